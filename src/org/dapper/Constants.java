@@ -28,7 +28,6 @@
 
 package org.dapper;
 
-import java.util.Timer;
 import java.util.regex.Pattern;
 
 import org.dapper.codelet.Codelet;
@@ -55,6 +54,12 @@ public class Constants {
      */
     final public static int DEFAULT_BUFFER_SIZE = 1 << 20;
 
+    /**
+     * The data size in bytes at or beyond which requested data is pushed over a dedicated connection rather than
+     * inlined in the control stream.
+     */
+    final public static int BULK_DATA_THRESHOLD = 1 << 14;
+
     /**
      * The request timeout in milliseconds.
      */
@@ -91,15 +96,80 @@ public class Constants {
     final public static String REMOTE = "^remote$";
 
     /**
-     * The {@link Timer#purge()} interval in milliseconds.
+     * The timer tick duration in milliseconds.
+     */
+    final public static long TIMER_TICK_MILLIS = 10;
+
+    /**
+     * The number of timer wheel buckets.
      */
-    final public static long TIMER_PURGE_INTERVAL_MILLIS = 120000;
+    final public static int TIMER_WHEEL_SIZE = 1024;
 
     /**
      * The maximum allowable size of the server's internal event queues.
      */
     final public static int MAX_INTERNAL_QUEUE_SIZE = 128;
 
+    /**
+     * The default interval in milliseconds at which aggregated flow progress is broadcast.
+     */
+    final public static long DEFAULT_PROGRESS_INTERVAL_MILLIS = 1000;
+
+    /**
+     * The multiple of the median sibling execution time past which a {@link Codelet} is considered a straggler.
+     */
+    final public static double SPECULATION_SLOWDOWN = 2.0;
+
+    /**
+     * The minimum number of finished siblings required before a {@link Codelet} may be considered a straggler.
+     */
+    final public static int MIN_SPECULATION_SAMPLES = 3;
+
+    /**
+     * The in-memory capacity in bytes of the client class cache.
+     */
+    final public static long CLASS_CACHE_MEMORY_SIZE = 1L << 26;
+
+    /**
+     * The on-disk capacity in bytes of the client class cache.
+     */
+    final public static long CLASS_CACHE_DISK_SIZE = 1L << 30;
+
+    /**
+     * The maximum number of class loaders a client keeps for reuse across jobs.
+     */
+    final public static int MAX_CACHED_LOADERS = 16;
+
+    /**
+     * The maximum number of retired class loader keys the server remembers and advertises to clients.
+     */
+    final public static int MAX_RETIRED_LOADER_KEYS = 64;
+
+    /**
+     * The number of server worker threads that read requested data.
+     */
+    final public static int DATA_SERVICE_THREADS = 4;
+
+    /**
+     * The capacity in bytes of the server's per-flow cache of requested data.
+     */
+    final public static long DATA_CACHE_SIZE = 1L << 26;
+
+    /**
+     * The minimum number of status changes a flow retains for observers to catch up on.
+     */
+    final public static int MIN_FLOW_STATUS_LOG_SIZE = 1 << 10;
+
+    /**
+     * The size of the first block of stems leased to a {@link Codelet}.
+     */
+    final public static int INITIAL_STEM_BLOCK_SIZE = 16;
+
+    /**
+     * The maximum size of a block of stems leased to a {@link Codelet}.
+     */
+    final public static int MAX_STEM_BLOCK_SIZE = 4096;
+
     // Declare some colors.
 
     /**
@@ -29,7 +29,8 @@
 package org.dapper;
 
 import static org.dapper.Constants.DEFAULT_BUFFER_SIZE;
-import static org.dapper.Constants.TIMER_PURGE_INTERVAL_MILLIS;
+import static org.dapper.Constants.TIMER_TICK_MILLIS;
+import static org.dapper.Constants.TIMER_WHEEL_SIZE;
 import static org.shared.util.XmlBase.strictErrorHandler;
 
 import java.io.ByteArrayInputStream;
@@ -41,8 +42,6 @@ import java.net.InetSocketAddress;
 import java.net.NetworkInterface;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.xml.parsers.DocumentBuilder;
@@ -51,6 +50,9 @@ import javax.xml.parsers.ParserConfigurationException;
 
 import org.dapper.event.ControlEvent;
 import org.dapper.event.ControlEventHandler;
+import org.dapper.util.TimingWheel;
+import org.dapper.util.TimingWheel.Action;
+import org.dapper.util.TimingWheel.Timeout;
 import org.shared.codec.Codecs;
 import org.shared.event.Event;
 import org.shared.event.SourceLocal;
@@ -102,7 +104,7 @@ public class DapperBase implements Closeable {
     };
 
     final SocketManager<?, ? extends SocketConnection> manager;
-    final Timer timer;
+    final TimingWheel timer;
     final AtomicLong counter;
 
     /**
@@ -111,29 +113,19 @@ public class DapperBase implements Closeable {
     public DapperBase() {
 
         this.manager = new NioManager("CM").setBufferSize(DEFAULT_BUFFER_SIZE);
-        this.timer = new Timer();
-        this.timer.schedule(new TimerTask() {
-
-            @Override
-            public void run() {
-
-                DapperBase.this.timer.purge();
-                System.gc();
-            }
-
-        }, 0, TIMER_PURGE_INTERVAL_MILLIS);
+        this.timer = new TimingWheel("Timer", TIMER_TICK_MILLIS, TIMER_WHEEL_SIZE);
 
         this.counter = new AtomicLong(0);
     }
 
     /**
-     * Shuts down the underlying {@link ConnectionManager} and {@link Timer}.
+     * Shuts down the underlying {@link ConnectionManager} and {@link TimingWheel}.
      */
     @Override
     public void close() {
 
         IoBase.close(this.manager);
-        this.timer.cancel();
+        IoBase.close(this.timer);
     }
 
     /**
@@ -164,42 +156,60 @@ public class DapperBase implements Closeable {
     }
 
     /**
-     * Schedules an interrupt for the given thread.
+     * Gets the {@link TimingWheel}.
      */
-    public TimerTask scheduleInterrupt(final Thread thread, long timeout) {
+    public TimingWheel getTimer() {
+        return this.timer;
+    }
 
-        TimerTask task = new TimerTask() {
+    /**
+     * Creates a reusable {@link Timeout} handle that interrupts the given thread upon expiration.
+     */
+    public Timeout createInterruptTimeout(final Thread thread) {
+
+        return this.timer.createTimeout(new Action() {
 
             @Override
-            public void run() {
+            public void run(Object tag) {
                 thread.interrupt();
             }
-        };
-
-        this.timer.schedule(task, timeout);
-
-        return task;
+        });
     }
 
     /**
-     * Schedules an {@link Event} for firing.
+     * Creates a reusable {@link Timeout} handle that fires the given {@link Event} upon expiration.
      * 
      * @param <T>
      *            the {@link Event} type.
      */
-    public <T extends Event<T, ?, ?>> TimerTask scheduleEvent(final T evt, long timeout) {
+    public <T extends Event<T, ?, ?>> Timeout createEventTimeout(final T evt) {
 
-        TimerTask task = new TimerTask() {
+        return this.timer.createTimeout(new Action() {
 
             @Override
-            public void run() {
+            public void run(Object tag) {
                 evt.getSource().onLocal(evt);
             }
-        };
+        });
+    }
 
-        this.timer.schedule(task, timeout);
+    /**
+     * Schedules a one-off interrupt for the given thread. Callers that schedule repeatedly should hold on to a handle
+     * from {@link #createInterruptTimeout(Thread)} instead.
+     */
+    public Timeout scheduleInterrupt(Thread thread, long timeout) {
+        return createInterruptTimeout(thread).schedule(timeout);
+    }
 
-        return task;
+    /**
+     * Schedules a one-off {@link Event} for firing. Callers that schedule repeatedly should hold on to a handle from
+     * {@link #createEventTimeout(Event)} instead.
+     * 
+     * @param <T>
+     *            the {@link Event} type.
+     */
+    public <T extends Event<T, ?, ?>> Timeout scheduleEvent(T evt, long timeout) {
+        return createEventTimeout(evt).schedule(timeout);
     }
 
     /**
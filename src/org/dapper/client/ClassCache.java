@@ -0,0 +1,251 @@
+/**
+ * <p>
+ * Copyright (c) 2008 The Regents of the University of California<br>
+ * All rights reserved.
+ * </p>
+ * <p>
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ * </p>
+ * <ul>
+ * <li>Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.</li>
+ * <li>Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.</li>
+ * <li>Neither the name of the author nor the names of any contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.</li>
+ * </ul>
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * </p>
+ */
+
+package org.dapper.client;
+
+import static org.dapper.util.HashUtilities.hash;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+
+import org.shared.util.Control;
+import org.shared.util.IoBase;
+
+/**
+ * A content-addressed cache of class and resource bytes shared by all jobs of a client process. Entries are keyed by
+ * their SHA-1 hash and live in a bounded in-memory LRU tier, backed by a bounded on-disk tier that survives restarts
+ * and evicts least recently used files first.
+ * 
+ * @author Roy Liu
+ */
+public class ClassCache {
+
+    final LinkedHashMap<String, byte[]> memoryMap;
+    final long maxMemorySize;
+    final File directory;
+    final long maxDiskSize;
+
+    long memorySize;
+    long diskSize;
+
+    /**
+     * Default constructor.
+     * 
+     * @param directory
+     *            the on-disk tier's directory, or {@code null} for a memory-only cache.
+     */
+    public ClassCache(File directory, long maxMemorySize, long maxDiskSize) {
+
+        this.memoryMap = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+        this.maxMemorySize = maxMemorySize;
+        this.maxDiskSize = maxDiskSize;
+
+        this.memorySize = 0;
+        this.diskSize = 0;
+
+        if (directory != null && (directory.isDirectory() || directory.mkdirs())) {
+
+            this.directory = directory;
+
+            for (File file : directory.listFiles()) {
+                this.diskSize += file.length();
+            }
+
+        } else {
+
+            this.directory = null;
+        }
+    }
+
+    /**
+     * Gets the data with the given hash, or {@code null} if not cached.
+     */
+    public synchronized byte[] get(String hash) {
+
+        byte[] data = this.memoryMap.get(hash);
+
+        if (data != null || this.directory == null) {
+            return data;
+        }
+
+        File file = new File(this.directory, hash);
+
+        if (!file.isFile()) {
+            return null;
+        }
+
+        FileInputStream in = null;
+
+        try {
+
+            in = new FileInputStream(file);
+            data = IoBase.getBytes(in);
+
+        } catch (Exception e) {
+
+            return null;
+
+        } finally {
+
+            IoBase.close(in);
+        }
+
+        // Guard against corrupted files.
+        if (!hash(data).equals(hash)) {
+
+            this.diskSize -= file.length();
+            file.delete();
+
+            return null;
+        }
+
+        // Mark the file as recently used.
+        file.setLastModified(System.currentTimeMillis());
+
+        putMemory(hash, data);
+
+        return data;
+    }
+
+    /**
+     * Puts the given data into the cache.
+     * 
+     * @return the data's hash.
+     */
+    public synchronized String put(byte[] data) {
+
+        String hash = hash(data);
+
+        if (this.memoryMap.containsKey(hash)) {
+            return hash;
+        }
+
+        putMemory(hash, data);
+
+        if (this.directory != null) {
+            putDisk(hash, data);
+        }
+
+        return hash;
+    }
+
+    /**
+     * Puts the given data into the in-memory tier, evicting least recently used entries as necessary.
+     */
+    protected void putMemory(String hash, byte[] data) {
+
+        this.memoryMap.put(hash, data);
+        this.memorySize += data.length;
+
+        for (Iterator<Entry<String, byte[]>> itr = this.memoryMap.entrySet().iterator(); //
+        itr.hasNext() && this.memorySize > this.maxMemorySize;) {
+
+            this.memorySize -= itr.next().getValue().length;
+            itr.remove();
+        }
+    }
+
+    /**
+     * Puts the given data into the on-disk tier, evicting least recently used files as necessary.
+     */
+    protected void putDisk(String hash, byte[] data) {
+
+        File file = new File(this.directory, hash);
+
+        if (file.isFile()) {
+            return;
+        }
+
+        // Write to a temporary file first, so that readers never see partial contents.
+        File tmpFile = null;
+
+        OutputStream out = null;
+
+        try {
+
+            tmpFile = File.createTempFile(hash, ".tmp", this.directory);
+
+            out = new FileOutputStream(tmpFile);
+            out.write(data);
+            out.close();
+
+            Control.checkTrue(tmpFile.renameTo(file), //
+                    "Could not rename file");
+
+            this.diskSize += data.length;
+
+        } catch (Exception e) {
+
+            if (tmpFile != null) {
+                tmpFile.delete();
+            }
+
+            Client.getLog().info(String.format("Could not cache \"%s\" on disk.", hash), e);
+
+            return;
+
+        } finally {
+
+            IoBase.close(out);
+        }
+
+        if (this.diskSize <= this.maxDiskSize) {
+            return;
+        }
+
+        File[] files = this.directory.listFiles();
+
+        Arrays.sort(files, new Comparator<File>() {
+
+            @Override
+            public int compare(File f1, File f2) {
+
+                long m1 = f1.lastModified();
+                long m2 = f2.lastModified();
+
+                return (m1 < m2) ? -1 : ((m1 > m2) ? 1 : 0);
+            }
+        });
+
+        for (int i = 0, n = files.length; i < n && this.diskSize > this.maxDiskSize; i++) {
+
+            long length = files[i].length();
+
+            if (files[i].delete()) {
+                this.diskSize -= length;
+            }
+        }
+    }
+}
@@ -28,7 +28,10 @@
 
 package org.dapper.client;
 
+import static org.dapper.Constants.CLASS_CACHE_DISK_SIZE;
+import static org.dapper.Constants.CLASS_CACHE_MEMORY_SIZE;
 import static org.dapper.Constants.DEFAULT_SERVER_PORT;
+import static org.dapper.Constants.MAX_CACHED_LOADERS;
 import static org.dapper.Constants.MAX_PENDING_ACCEPTS;
 import static org.dapper.Constants.REQUEST_TIMEOUT_MILLIS;
 import static org.dapper.event.ControlEvent.ControlEventType.INIT;
@@ -36,12 +39,18 @@ import static org.shared.net.ConnectionManager.InitializationType.REGISTER;
 import static org.shared.net.Constants.DEFAULT_BACKLOG_SIZE;
 
 import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.InetSocketAddress;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
 
 import org.apache.commons.cli.CommandLine;
@@ -62,7 +71,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * The Dapper client main class.
+ * The Dapper client main class. A client has one or more execution slots, each of which runs a {@link ClientJob} at a
+ * time and appears to the server as a client in its own right. Slots share the accept socket, to which incoming
+ * streams are routed by identifier.
  * 
  * @apiviz.composedOf org.dapper.client.ClientProcessor
  * @author Roy Liu
@@ -70,7 +81,9 @@ import org.slf4j.LoggerFactory;
 @CliOptions(options = {
 //
         @CliOption(opt = "h", longOpt = "host", nArgs = 1, description = "the server address"), //
-        @CliOption(opt = "d", longOpt = "domain", nArgs = 1, description = "the execution domain") //
+        @CliOption(opt = "d", longOpt = "domain", nArgs = 1, description = "the execution domain"), //
+        @CliOption(opt = "s", longOpt = "slots", nArgs = 1, description = "the number of execution slots"), //
+        @CliOption(opt = "c", longOpt = "cache", nArgs = 1, description = "the class cache directory") //
 })
 public class Client extends Thread implements Closeable {
 
@@ -97,7 +110,8 @@ public class Client extends Thread implements Closeable {
     }
 
     final DapperBase base;
-    final ClientProcessor processor;
+    final List<ClientProcessor> processors;
+    final Map<String, ClientProcessor> routeMap;
     final InetSocketAddress localAddress;
     final ServerSocketChannel ssChannel;
 
@@ -106,9 +120,12 @@ public class Client extends Thread implements Closeable {
     /**
      * Default constructor.
      */
-    public Client(InetSocketAddress address, String domain) {
+    public Client(InetSocketAddress address, String domain, int nSlots, File cacheDirectory) {
         super("Client");
 
+        Control.checkTrue(nSlots > 0, //
+                "Invalid number of slots");
+
         this.base = new DapperBase();
 
         try {
@@ -123,20 +140,36 @@ public class Client extends Thread implements Closeable {
 
         this.localAddress = new InetSocketAddress(this.ssChannel.socket().getLocalPort());
 
-        this.processor = new ClientProcessor(this.base, this.localAddress, address, domain, //
-                //
-                new Runnable() {
+        this.routeMap = new ConcurrentHashMap<String, ClientProcessor>();
 
-                    @Override
-                    public void run() {
-                        IoBase.close(Client.this);
-                    }
-                } //
-        );
-        this.processor.start();
+        // All slots share one class cache and one set of class loaders.
+        ClassCache cache = new ClassCache(cacheDirectory, CLASS_CACHE_MEMORY_SIZE, CLASS_CACHE_DISK_SIZE);
+        LoaderCache loaders = new LoaderCache(MAX_CACHED_LOADERS);
+
+        List<ClientProcessor> processors = new ArrayList<ClientProcessor>();
+
+        for (int slot = 0; slot < nSlots; slot++) {
+
+            ClientProcessor processor = new ClientProcessor(this.base, this.localAddress, address, domain, //
+                    slot, nSlots, this.routeMap, cache, loaders, //
+                    //
+                    new Runnable() {
+
+                        @Override
+                        public void run() {
+                            IoBase.close(Client.this);
+                        }
+                    } //
+            );
+            processor.start();
+
+            // Prime the processor with an artificially generated event.
+            processor.onLocal(new BaseControlEvent(INIT, processor));
 
-        // Prime the processor with an artificially generated event.
-        this.processor.onLocal(new BaseControlEvent(INIT, this.processor));
+            processors.add(processor);
+        }
+
+        this.processors = Collections.unmodifiableList(processors);
 
         this.run = true;
 
@@ -144,11 +177,32 @@ public class Client extends Thread implements Closeable {
     }
 
     /**
-     * Delegates to the underlying {@link ClientProcessor}.
+     * Alternate constructor. Uses the default class cache directory.
+     */
+    public Client(InetSocketAddress address, String domain, int nSlots) {
+        this(address, domain, nSlots, getDefaultCacheDirectory());
+    }
+
+    /**
+     * Alternate constructor for single-slot clients.
+     */
+    public Client(InetSocketAddress address, String domain) {
+        this(address, domain, 1);
+    }
+
+    /**
+     * Gets the default class cache directory.
+     */
+    final public static File getDefaultCacheDirectory() {
+        return new File(System.getProperty("java.io.tmpdir"), "dapper-cache");
+    }
+
+    /**
+     * Delegates to the underlying {@link ClientProcessor}s.
      */
     @Override
     public String toString() {
-        return this.processor.toString();
+        return this.processors.toString();
     }
 
     /**
@@ -219,11 +273,17 @@ public class Client extends Thread implements Closeable {
                                         "Could not read a complete header");
                             }
 
-                            // Success! Notify the server processor.
+                            // Success! Notify the processor of the slot expecting the stream.
+
+                            String identifier = new String(header);
 
-                            Client.this.processor.onLocal( //
-                                    new StreamReadyEvent<SocketConnection>(new String(header), sh,
-                                            Client.this.processor));
+                            ClientProcessor processor = Client.this.routeMap.get(identifier);
+
+                            Control.checkTrue(processor != null, //
+                                    "No slot expects the stream");
+
+                            processor.onLocal( //
+                                    new StreamReadyEvent<SocketConnection>(identifier, sh, processor));
 
                             getLog().debug(String.format("Accepted: %s.", //
                                     conn.getRemoteAddress()));
@@ -240,7 +300,7 @@ public class Client extends Thread implements Closeable {
                         }
                     }
 
-                }.run();
+                }.start();
 
                 guard.acquireUninterruptibly(1);
             }
@@ -257,7 +317,11 @@ public class Client extends Thread implements Closeable {
         } finally {
 
             IoBase.close(this.base);
-            IoBase.close(this.processor);
+
+            for (ClientProcessor processor : this.processors) {
+                IoBase.close(processor);
+            }
+
             IoBase.close(this.ssChannel);
         }
     }
@@ -271,6 +335,8 @@ public class Client extends Thread implements Closeable {
     public static void createClient(String[] args) throws ParseException {
 
         String host, domain;
+        int nSlots;
+        File cacheDirectory;
 
         try {
 
@@ -288,6 +354,14 @@ public class Client extends Thread implements Closeable {
                 domain = "";
             }
 
+            String slots = cmdLine.getOptionValue("s");
+
+            nSlots = (slots != null) ? Integer.parseInt(slots) : 1;
+
+            String cache = cmdLine.getOptionValue("c");
+
+            cacheDirectory = (cache != null) ? new File(cache) : getDefaultCacheDirectory();
+
         } catch (ParseException e) {
 
             getLog().info(Cli.createHelp(Client.class));
@@ -295,7 +369,7 @@ public class Client extends Thread implements Closeable {
             throw e;
         }
 
-        new Client(inferAddress(host), domain);
+        new Client(inferAddress(host), domain, nSlots, cacheDirectory);
     }
 
     /**
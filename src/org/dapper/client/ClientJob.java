@@ -33,6 +33,7 @@ import static org.dapper.codelet.Resource.ResourceType.OUTPUT_HANDLE;
 
 import java.io.ByteArrayInputStream;
 import java.io.Closeable;
+import java.io.DataInputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URL;
@@ -46,6 +47,8 @@ import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.dapper.DapperBase;
 import org.dapper.codelet.Codelet;
@@ -81,27 +84,44 @@ import org.w3c.dom.Node;
  */
 public class ClientJob extends Thread implements Closeable, DataService {
 
+    /**
+     * A counter for side channel identifiers. The leading non-hexadecimal character keeps them disjoint from
+     * server-issued stream identifiers.
+     */
+    final protected static AtomicInteger channelCounter = new AtomicInteger(0);
+
     final ResourceEvent event;
     final DapperBase base;
+    final ClassCache cache;
+    final LoaderCache loaders;
 
     final Map<String, StreamResource<?>> remaining;
     final Set<StreamResource<?>> connectResources;
+    final Set<String> acceptIdentifiers;
+    final Map<String, String> channelMap;
     final Source<ControlEvent, SourceType> callback;
+    final AtomicReference<ResourceRegistry> binding;
 
     Map<String, RequestFuture<byte[]>> pending;
 
     /**
      * Default constructor.
      */
-    public ClientJob(ResourceEvent event, DapperBase base, Source<ControlEvent, SourceType> callback) {
+    public ClientJob(ResourceEvent event, DapperBase base, ClassCache cache, LoaderCache loaders, //
+            Source<ControlEvent, SourceType> callback) {
         super("Job Thread");
 
         this.event = event;
         this.base = base;
+        this.cache = cache;
+        this.loaders = loaders;
 
         this.pending = new HashMap<String, RequestFuture<byte[]>>();
         this.remaining = new HashMap<String, StreamResource<?>>();
         this.connectResources = new HashSet<StreamResource<?>>();
+        this.acceptIdentifiers = new HashSet<String>();
+        this.channelMap = new HashMap<String, String>();
+        this.binding = new AtomicReference<ResourceRegistry>(null);
 
         Set<Resource> allResources = new HashSet<Resource>();
         allResources.addAll(this.event.getIn());
@@ -120,7 +140,12 @@ public class ClientJob extends Thread implements Closeable, DataService {
 
                 // This stream requires connecting to.
                 if (connectResource.getAddress() != null) {
+
                     this.connectResources.add(connectResource);
+
+                } else {
+
+                    this.acceptIdentifiers.add(connectResource.getIdentifier());
                 }
 
                 break;
@@ -167,6 +192,83 @@ public class ClientJob extends Thread implements Closeable, DataService {
         }
     }
 
+    /**
+     * Registers a side channel stream carrying requested data, and reads it on a separate thread so as not to hold up
+     * the caller.
+     * 
+     * @return whether the stream was a side channel of this job.
+     */
+    protected boolean registerChannel(String identifier, final SynchronousHandler<? extends SocketConnection> handler) {
+
+        final String pathname;
+
+        synchronized (this) {
+            pathname = this.channelMap.remove(identifier);
+        }
+
+        if (pathname == null) {
+            return false;
+        }
+
+        new Thread("Data Sync") {
+
+            @Override
+            public void run() {
+
+                try {
+
+                    DataInputStream in = new DataInputStream(handler.getInputStream());
+
+                    byte[] data = new byte[in.readInt()];
+                    in.readFully(data);
+
+                    registerData(pathname, data);
+
+                } catch (Throwable t) {
+
+                    // The server only falls back to inlining the data when the failure is on its end, so ask again.
+                    Client.getLog().info("Side channel failure; requesting the data inline.", t);
+
+                    requestInline(pathname);
+
+                } finally {
+
+                    IoBase.close(handler);
+                }
+            }
+
+        }.start();
+
+        return true;
+    }
+
+    /**
+     * Requests data again, this time inline, after its side channel failed on our end. Should the server have inlined
+     * it as well, the duplicate goes unclaimed.
+     */
+    protected void requestInline(String pathname) {
+
+        synchronized (this) {
+
+            // The job has since closed or the data has arrived after all.
+            if (this.pending == null || !this.pending.containsKey(pathname)) {
+                return;
+            }
+        }
+
+        this.callback.onLocal(new DataEvent(pathname, new byte[] {}, this.callback));
+    }
+
+    /**
+     * Gets the identifiers of side channels that have yet to arrive.
+     */
+    public Set<String> getChannelIdentifiers() {
+
+        synchronized (this) {
+            return new HashSet<String>(this.channelMap.keySet());
+        }
+    }
+
     /**
      * Gets the set of {@link Resource}s that require connecting to.
      */
@@ -174,6 +276,13 @@ public class ClientJob extends Thread implements Closeable, DataService {
         return this.connectResources;
     }
 
+    /**
+     * Gets the identifiers of streams that will be accepted.
+     */
+    public Set<String> getAcceptIdentifiers() {
+        return this.acceptIdentifiers;
+    }
+
     /**
      * Gets whether this job is ready to execute.
      */
@@ -188,7 +297,8 @@ public class ClientJob extends Thread implements Closeable, DataService {
 
         synchronized (this) {
 
-            RequestFuture<byte[]> rf = this.pending.remove(pathname);
+            // Data may arrive over a side channel after the job has closed.
+            RequestFuture<byte[]> rf = (this.pending != null) ? this.pending.remove(pathname) : null;
 
             if (rf != null) {
                 rf.set(data);
@@ -221,6 +331,9 @@ public class ClientJob extends Thread implements Closeable, DataService {
 
         synchronized (this) {
 
+            // Cut off this job's threads from the shared class loader, and let it be collected.
+            this.binding.set(null);
+
             for (RequestFuture<byte[]> future : this.pending.values()) {
                 future.setException(new IllegalStateException("The client job has been stopped"));
             }
@@ -237,8 +350,7 @@ public class ClientJob extends Thread implements Closeable, DataService {
 
         try {
 
-            RegistryClassLoader rcl = new RegistryClassLoader();
-            rcl.addRegistry(new ResourceRegistry() {
+            ResourceRegistry registry = new ResourceRegistry() {
 
                 @Override
                 public URL getResource(String pathname) {
@@ -254,10 +366,47 @@ public class ClientJob extends Thread implements Closeable, DataService {
                 @Override
                 public InputStream getResourceAsStream(String pathname) {
 
-                    byte[] data = getData(String.format("cp:%s", pathname));
+                    ClientJob cj = ClientJob.this;
+
+                    // Entries advertised by the server may already be cached, in which case no round trip is needed.
+                    String hash = cj.event.getHashes().get(pathname);
+                    byte[] data = (hash != null) ? cj.cache.get(hash) : null;
+
+                    if (data == null) {
+
+                        data = getData(String.format("cp:%s", pathname));
+
+                        if (data != null) {
+                            cj.cache.put(data);
+                        }
+                    }
+
                     return (data != null) ? new ByteArrayInputStream(data) : null;
                 }
-            });
+            };
+
+            String loaderKey = this.event.getLoaderKey();
+
+            final RegistryClassLoader rcl;
+
+            // Reuse the class loader of earlier jobs, if possible, so that already compiled code stays hot.
+            if (loaderKey != null) {
+
+                synchronized (this) {
+
+                    // The job may have been closed already.
+                    if (this.pending != null) {
+                        this.binding.set(registry);
+                    }
+                }
+
+                rcl = this.loaders.get(loaderKey, this.binding);
+
+            } else {
+
+                rcl = new RegistryClassLoader();
+                rcl.addRegistry(registry);
+            }
 
             Codelet codelet = (Codelet) rcl.loadClass(this.event.getClassName()).newInstance();
 
@@ -420,7 +569,13 @@ public class ClientJob extends Thread implements Closeable, DataService {
             this.pending.put(pathname, rf);
         }
 
-        this.callback.onLocal(new DataEvent(pathname, new byte[] {}, ClientJob.this.callback));
+        String channel = String.format("x%07x", channelCounter.getAndIncrement() & 0xFFFFFFF);
+
+        synchronized (this) {
+            this.channelMap.put(channel, pathname);
+        }
+
+        this.callback.onLocal(new DataEvent(pathname, new byte[] {}, channel, ClientJob.this.callback));
 
         try {
 
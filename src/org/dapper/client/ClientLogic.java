@@ -35,6 +35,7 @@ import static org.shared.net.ConnectionManager.InitializationType.CONNECT;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.Map;
 
 import org.dapper.DapperBase;
 import org.dapper.event.AddressEvent;
@@ -67,6 +68,10 @@ public class ClientLogic {
     final InetSocketAddress localAddress;
     final InetSocketAddress remoteAddress;
     final String domain;
+    final int slot, nSlots;
+    final Map<String, ClientProcessor> routeMap;
+    final ClassCache cache;
+    final LoaderCache loaders;
     final ClientProcessor cp;
 
     ControlEventHandler<?> server;
@@ -81,12 +86,20 @@ public class ClientLogic {
             InetSocketAddress localAddress, //
             InetSocketAddress remoteAddress, //
             String domain, //
+            int slot, int nSlots, //
+            Map<String, ClientProcessor> routeMap, //
+            ClassCache cache, LoaderCache loaders, //
             ClientProcessor cp) {
 
         this.base = base;
         this.localAddress = localAddress;
         this.remoteAddress = remoteAddress;
         this.domain = domain;
+        this.slot = slot;
+        this.nSlots = nSlots;
+        this.routeMap = routeMap;
+        this.cache = cache;
+        this.loaders = loaders;
         this.cp = cp;
 
         this.server = null;
@@ -95,6 +108,23 @@ public class ClientLogic {
         this.connector = null;
     }
 
+    /**
+     * Closes the current job and connector, and stops routing their incoming streams to this slot.
+     */
+    protected void closeJob() {
+
+        if (this.job != null) {
+            this.routeMap.keySet().removeAll(this.job.getAcceptIdentifiers());
+            this.routeMap.keySet().removeAll(this.job.getChannelIdentifiers());
+        }
+
+        IoBase.close(this.job);
+        this.job = null;
+
+        IoBase.close(this.connector);
+        this.connector = null;
+    }
+
     // INTERNAL LOGIC
 
     /**
@@ -132,11 +162,7 @@ public class ClientLogic {
             return;
         }
 
-        IoBase.close(this.job);
-        this.job = null;
-
-        IoBase.close(this.connector);
-        this.connector = null;
+        closeJob();
 
         this.cp.setStatus(ClientStatus.WAIT);
     }
@@ -162,7 +188,7 @@ public class ClientLogic {
                     server.onRemote(new AddressEvent(new InetSocketAddress( //
                             conn.getLocalAddress().getAddress(), //
                             cl.localAddress.getPort()), //
-                            cl.domain, null));
+                            cl.domain, cl.slot, cl.nSlots, null));
 
                 } catch (RuntimeException e) {
 
@@ -186,6 +212,14 @@ public class ClientLogic {
 
         SynchronousHandler<SocketConnection> sh = evt.getStreamHandler();
 
+        // Side channels carry requested data, and have no bearing on job readiness.
+        if (this.job != null && this.job.registerChannel(evt.getIdentifier(), sh)) {
+
+            this.routeMap.remove(evt.getIdentifier());
+
+            return;
+        }
+
         if (this.job != null) {
 
             // Register the connection with the current job.
@@ -212,11 +246,7 @@ public class ClientLogic {
 
         this.server.onRemote(evt);
 
-        IoBase.close(this.job);
-        this.job = null;
-
-        IoBase.close(this.connector);
-        this.connector = null;
+        closeJob();
 
         this.cp.setStatus(ClientStatus.WAIT);
     }
@@ -259,12 +289,20 @@ public class ClientLogic {
      */
     protected void handleWaitToResource(ResourceEvent evt) {
 
-        evt.getSource().onRemote(new BaseControlEvent(RESOURCE_ACK, null));
+        // Evict class loaders whose flows have all ended.
+        this.loaders.retire(evt.getRetiredKeys());
 
         // Allocate, but do not start, a job thread and a connector thread.
-        this.job = new ClientJob(evt, this.base, this.cp);
+        this.job = new ClientJob(evt, this.base, this.cache, this.loaders, this.cp);
         this.connector = new ClientConnector(this.job.getConnectResources(), this.base, this.cp);
 
+        // Streams accepted on the shared socket are routed by identifier to this slot, so do so BEFORE acknowledging.
+        for (String identifier : this.job.getAcceptIdentifiers()) {
+            this.routeMap.put(identifier, this.cp);
+        }
+
+        evt.getSource().onRemote(new BaseControlEvent(RESOURCE_ACK, null));
+
         this.cp.setStatus(ClientStatus.RESOURCE);
     }
 
@@ -303,6 +341,13 @@ public class ClientLogic {
         // Forward the event if it was locally generated. Otherwise, it was from the server.
         if (source == this.cp) {
 
+            String channel = evt.getChannel();
+
+            // Route the side channel, if any, to this slot BEFORE the server gets a chance to connect.
+            if (channel != null) {
+                this.routeMap.put(channel, this.cp);
+            }
+
             this.server.onRemote(evt);
 
         } else if (source == this.server) {
@@ -32,6 +32,7 @@ import static org.dapper.client.ClientStatus.IDLE;
 import static org.dapper.event.SourceType.PROCESSOR;
 
 import java.net.InetSocketAddress;
+import java.util.Map;
 
 import org.dapper.DapperBase;
 import org.dapper.event.ControlEvent;
@@ -76,12 +77,16 @@ public class ClientProcessor extends EventProcessor<ControlEvent, ControlEventTy
             InetSocketAddress localAddress, //
             InetSocketAddress remoteAddress, //
             String domain, //
+            int slot, int nSlots, //
+            Map<String, ClientProcessor> routeMap, //
+            ClassCache cache, LoaderCache loaders, //
             Runnable finalizer) {
         super("CEP");
 
         this.finalizer = finalizer;
 
-        this.logic = new ClientLogic(base, localAddress, remoteAddress, domain, this);
+        this.logic = new ClientLogic(base, localAddress, remoteAddress, domain, slot, nSlots, routeMap, //
+                cache, loaders, this);
 
         this.fsmInternal = new StateTable<ClientStatus, ControlEventType, ControlEvent>(this, //
                 ClientStatus.class, ControlEventType.class, //
@@ -0,0 +1,162 @@
+/**
+ * <p>
+ * Copyright (c) 2008 The Regents of the University of California<br>
+ * All rights reserved.
+ * </p>
+ * <p>
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ * </p>
+ * <ul>
+ * <li>Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.</li>
+ * <li>Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.</li>
+ * <li>Neither the name of the author nor the names of any contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.</li>
+ * </ul>
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * </p>
+ */
+
+package org.dapper.client;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.shared.metaclass.RegistryClassLoader;
+import org.shared.metaclass.ResourceRegistry;
+import org.shared.util.Control;
+
+/**
+ * A bounded cache of {@link RegistryClassLoader}s shared by all jobs of a client process. Reusing a class loader across
+ * jobs from the same flow or archive means classes aren't redefined, and so their profiles and compiled code survive
+ * from one job to the next.
+ * 
+ * @author Roy Liu
+ */
+public class LoaderCache {
+
+    /**
+     * A {@link ResourceRegistry} that forwards requests to the job on whose behalf the current thread loads classes.
+     * Threads spawned by a job inherit its binding, and lose it along with the job thread once the job clears it.
+     * Lookups from unbound threads fail rather than get routed through some other job, possibly of another slot.
+     */
+    protected static class JobRegistry implements ResourceRegistry {
+
+        final ThreadLocal<AtomicReference<ResourceRegistry>> registryLocal;
+
+        /**
+         * Default constructor.
+         */
+        protected JobRegistry() {
+            this.registryLocal = new InheritableThreadLocal<AtomicReference<ResourceRegistry>>();
+        }
+
+        /**
+         * Binds the given job's {@link ResourceRegistry} holder to the current thread.
+         */
+        protected void bind(AtomicReference<ResourceRegistry> binding) {
+            this.registryLocal.set(binding);
+        }
+
+        @Override
+        public URL getResource(String pathname) {
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Enumeration<URL> getResources(String pathname) {
+            return Collections.enumeration(Collections.EMPTY_LIST);
+        }
+
+        @Override
+        public InputStream getResourceAsStream(String pathname) {
+
+            AtomicReference<ResourceRegistry> binding = this.registryLocal.get();
+            ResourceRegistry registry = (binding != null) ? binding.get() : null;
+
+            return (registry != null) ? registry.getResourceAsStream(pathname) : null;
+        }
+    }
+
+    final LinkedHashMap<String, RegistryClassLoader> loaderMap;
+    final Map<RegistryClassLoader, JobRegistry> registryMap;
+    final int capacity;
+
+    /**
+     * Default constructor.
+     */
+    public LoaderCache(int capacity) {
+
+        Control.checkTrue(capacity > 0, //
+                "Invalid capacity");
+
+        this.loaderMap = new LinkedHashMap<String, RegistryClassLoader>(16, 0.75f, true);
+        this.registryMap = new HashMap<RegistryClassLoader, JobRegistry>();
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets the class loader with the given key, creating it if necessary, and binds the given holder of a job's
+     * {@link ResourceRegistry} to it on behalf of the current thread. The job clears the holder when it ends.
+     */
+    public synchronized RegistryClassLoader get(String key, AtomicReference<ResourceRegistry> binding) {
+
+        RegistryClassLoader rcl = this.loaderMap.get(key);
+
+        if (rcl == null) {
+
+            JobRegistry jobRegistry = new JobRegistry();
+
+            rcl = new RegistryClassLoader();
+            rcl.addRegistry(jobRegistry);
+
+            this.loaderMap.put(key, rcl);
+            this.registryMap.put(rcl, jobRegistry);
+
+            // Evict the least recently used class loaders.
+            for (Iterator<RegistryClassLoader> itr = this.loaderMap.values().iterator(); //
+            itr.hasNext() && this.loaderMap.size() > this.capacity;) {
+
+                this.registryMap.remove(itr.next());
+                itr.remove();
+            }
+        }
+
+        this.registryMap.get(rcl).bind(binding);
+
+        return rcl;
+    }
+
+    /**
+     * Evicts the class loaders with the given keys.
+     */
+    public synchronized void retire(Collection<String> keys) {
+
+        for (String key : keys) {
+
+            RegistryClassLoader rcl = this.loaderMap.remove(key);
+
+            if (rcl != null) {
+                this.registryMap.remove(rcl);
+            }
+        }
+    }
+}
@@ -28,6 +28,9 @@
 
 package org.dapper.codelet;
 
+import static org.dapper.Constants.INITIAL_STEM_BLOCK_SIZE;
+import static org.dapper.Constants.MAX_STEM_BLOCK_SIZE;
+
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -56,17 +59,40 @@ abstract public class CodeletUtilities {
     final protected static ThreadLocal<DataService> dsLocal = new ThreadLocal<DataService>();
 
     /**
-     * Requests a stem from the server that is unique over the server's lifetime.
+     * A local thread variable for storing the block of stems leased from the server, as the triple of the next stem,
+     * the end of the block, and the block size.
+     */
+    final protected static ThreadLocal<int[]> stemBlockLocal = new ThreadLocal<int[]>();
+
+    /**
+     * Creates a stem that is unique over the server's lifetime. Stems are handed out from blocks leased from the
+     * server, so that only exhausting a block incurs a round trip. Successive blocks double in size up to
+     * {@link org.dapper.Constants#MAX_STEM_BLOCK_SIZE}.
      */
     final public static String createStem() {
-        return new String(dsLocal.get().getData(String.format("id:%08x", requestCounter.getAndIncrement())));
+
+        int[] block = stemBlockLocal.get();
+
+        if (block[0] == block[1]) {
+
+            String[] lease = new String(dsLocal.get().getData(String.format("ids:%08x:%d", //
+                    requestCounter.getAndIncrement(), block[2]))).split(":", -1);
+
+            block[0] = (int) Long.parseLong(lease[0], 16);
+            block[1] = block[0] + Integer.parseInt(lease[1]);
+            block[2] = Math.min(block[2] << 1, MAX_STEM_BLOCK_SIZE);
+        }
+
+        return String.format("%08x", block[0]++);
     }
 
     /**
-     * Sets the local thread's {@link DataService}.
+     * Sets the local thread's {@link DataService}. Any leased stems are forgotten.
      */
     final public static void setDataService(DataService ds) {
+
         dsLocal.set(ds);
+        stemBlockLocal.set(new int[] { 0, 0, INITIAL_STEM_BLOCK_SIZE });
     }
 
     /**
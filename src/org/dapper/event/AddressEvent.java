@@ -29,7 +29,16 @@
 package org.dapper.event;
 
 import static org.dapper.event.ControlEvent.ControlEventType.ADDRESS;
-
+import static org.dapper.event.WireFormat.readBytes;
+import static org.dapper.event.WireFormat.readString;
+import static org.dapper.event.WireFormat.readVarint;
+import static org.dapper.event.WireFormat.writeBytes;
+import static org.dapper.event.WireFormat.writeString;
+import static org.dapper.event.WireFormat.writeVarint;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
@@ -42,6 +51,8 @@ import org.w3c.dom.NodeList;
 
 /**
  * A subclass of {@link ControlEvent} for conveying an {@link InetSocketAddress} by which a client may be contacted.
+ * Clients with multiple execution slots send one such event per slot, each over its own control connection. The event
+ * also advertises whether the client understands {@link WireFormat#BINARY}.
  * 
  * @author Roy Liu
  */
@@ -49,15 +60,28 @@ public class AddressEvent extends BaseControlEvent {
 
     final InetSocketAddress address;
     final String domain;
+    final int slot, nSlots;
+    final boolean binaryCapable;
 
     /**
      * Default constructor.
      */
-    public AddressEvent(InetSocketAddress address, String domain, Source<ControlEvent, SourceType> source) {
+    public AddressEvent(InetSocketAddress address, String domain, int slot, int nSlots, //
+            Source<ControlEvent, SourceType> source) {
         super(ADDRESS, source);
 
         this.address = address;
         this.domain = domain;
+        this.slot = slot;
+        this.nSlots = nSlots;
+        this.binaryCapable = true;
+    }
+
+    /**
+     * Alternate constructor for single-slot clients.
+     */
+    public AddressEvent(InetSocketAddress address, String domain, Source<ControlEvent, SourceType> source) {
+        this(address, domain, 0, 1, source);
     }
 
     /**
@@ -80,6 +104,34 @@ public class AddressEvent extends BaseControlEvent {
         }
 
         this.domain = nodeList.item(2).getTextContent();
+
+        // Older clients don't advertise slots.
+        if (nodeList.getLength() > 4) {
+
+            this.slot = Integer.parseInt(nodeList.item(3).getTextContent());
+            this.nSlots = Integer.parseInt(nodeList.item(4).getTextContent());
+
+        } else {
+
+            this.slot = 0;
+            this.nSlots = 1;
+        }
+
+        // Older clients don't understand the binary wire format.
+        this.binaryCapable = nodeList.getLength() > 5 && Boolean.parseBoolean(nodeList.item(5).getTextContent());
+    }
+
+    /**
+     * Alternate constructor.
+     */
+    public AddressEvent(DataInput in, Source<ControlEvent, SourceType> source) throws IOException {
+        super(ADDRESS, source);
+
+        this.address = new InetSocketAddress(InetAddress.getByAddress(readBytes(in)), (int) readVarint(in));
+        this.domain = readString(in);
+        this.slot = (int) readVarint(in);
+        this.nSlots = (int) readVarint(in);
+        this.binaryCapable = true;
     }
 
     /**
@@ -96,6 +148,27 @@ public class AddressEvent extends BaseControlEvent {
         return this.domain;
     }
 
+    /**
+     * Gets the index of the execution slot.
+     */
+    public int getSlot() {
+        return this.slot;
+    }
+
+    /**
+     * Gets the number of execution slots the client has.
+     */
+    public int getSlotCount() {
+        return this.nSlots;
+    }
+
+    /**
+     * Gets whether the client understands {@link WireFormat#BINARY}.
+     */
+    public boolean isBinaryCapable() {
+        return this.binaryCapable;
+    }
+
     @Override
     protected void getContents(Node contentNode) {
 
@@ -107,5 +180,21 @@ public class AddressEvent extends BaseControlEvent {
                 .setTextContent(Integer.toString(this.address.getPort()));
         contentNode.appendChild(doc.createElement("domain")) //
                 .setTextContent(this.domain);
+        contentNode.appendChild(doc.createElement("slot")) //
+                .setTextContent(Integer.toString(this.slot));
+        contentNode.appendChild(doc.createElement("slots")) //
+                .setTextContent(Integer.toString(this.nSlots));
+        contentNode.appendChild(doc.createElement("binary_capable")) //
+                .setTextContent(Boolean.toString(this.binaryCapable));
+    }
+
+    @Override
+    protected void getContents(DataOutput out) throws IOException {
+
+        writeBytes(out, this.address.getAddress().getAddress());
+        writeVarint(out, this.address.getPort());
+        writeString(out, this.domain);
+        writeVarint(out, this.slot);
+        writeVarint(out, this.nSlots);
     }
 }
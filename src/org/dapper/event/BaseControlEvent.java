@@ -28,6 +28,9 @@
 
 package org.dapper.event;
 
+import java.io.DataOutput;
+import java.io.IOException;
+
 import org.dapper.DapperBase;
 import org.shared.event.Source;
 import org.shared.event.XmlEvent;
@@ -62,6 +65,15 @@ public class BaseControlEvent implements ControlEvent {
     protected void getContents(Node contentNode) {
     }
 
+    /**
+     * Transfers the contents of this event into the given {@link DataOutput} in the {@link WireFormat#BINARY} format.
+     * 
+     * @throws IOException
+     *             when the output could not be written.
+     */
+    protected void getContents(DataOutput out) throws IOException {
+    }
+
     @Override
     public Element toDom() {
 
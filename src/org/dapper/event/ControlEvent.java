@@ -28,6 +28,9 @@
 
 package org.dapper.event;
 
+import java.io.DataInput;
+import java.io.IOException;
+
 import org.dapper.server.ServerProcessor.FlowProxy;
 import org.dapper.server.flow.Flow;
 import org.shared.event.Source;
@@ -56,6 +59,11 @@ public interface ControlEvent extends XmlEvent<ControlEvent, ControlEvent.Contro
             protected ControlEvent parse(Node contentNode, Source<ControlEvent, SourceType> source) {
                 return new BaseControlEvent(this, source);
             }
+
+            @Override
+            protected ControlEvent parse(DataInput in, Source<ControlEvent, SourceType> source) throws IOException {
+                return new BaseControlEvent(this, source);
+            }
         }, //
 
         /**
@@ -67,6 +75,11 @@ public interface ControlEvent extends XmlEvent<ControlEvent, ControlEvent.Contro
             protected ControlEvent parse(Node contentNode, Source<ControlEvent, SourceType> source) {
                 return new AddressEvent(contentNode, source);
             }
+
+            @Override
+            protected ControlEvent parse(DataInput in, Source<ControlEvent, SourceType> source) throws IOException {
+                return new AddressEvent(in, source);
+            }
         }, //
 
         /**
@@ -78,6 +91,11 @@ public interface ControlEvent extends XmlEvent<ControlEvent, ControlEvent.Contro
             protected ControlEvent parse(Node contentNode, Source<ControlEvent, SourceType> source) {
                 return new ResourceEvent(contentNode, source);
             }
+
+            @Override
+            protected ControlEvent parse(DataInput in, Source<ControlEvent, SourceType> source) throws IOException {
+                return new ResourceEvent(in, source);
+            }
         }, //
 
         /**
@@ -89,6 +107,11 @@ public interface ControlEvent extends XmlEvent<ControlEvent, ControlEvent.Contro
             protected ControlEvent parse(Node contentNode, Source<ControlEvent, SourceType> source) {
                 return new BaseControlEvent(this, source);
             }
+
+            @Override
+            protected ControlEvent parse(DataInput in, Source<ControlEvent, SourceType> source) throws IOException {
+                return new BaseControlEvent(this, source);
+            }
         }, //
 
         /**
@@ -100,6 +123,11 @@ public interface ControlEvent extends XmlEvent<ControlEvent, ControlEvent.Contro
             protected ControlEvent parse(Node contentNode, Source<ControlEvent, SourceType> source) {
                 return new BaseControlEvent(this, source);
             }
+
+            @Override
+            protected ControlEvent parse(DataInput in, Source<ControlEvent, SourceType> source) throws IOException {
+                return new BaseControlEvent(this, source);
+            }
         }, //
 
         /**
@@ -111,6 +139,11 @@ public interface ControlEvent extends XmlEvent<ControlEvent, ControlEvent.Contro
             protected ControlEvent parse(Node contentNode, Source<ControlEvent, SourceType> source) {
                 return new BaseControlEvent(this, source);
             }
+
+            @Override
+            protected ControlEvent parse(DataInput in, Source<ControlEvent, SourceType> source) throws IOException {
+                return new BaseControlEvent(this, source);
+            }
         }, //
 
         /**
@@ -122,6 +155,11 @@ public interface ControlEvent extends XmlEvent<ControlEvent, ControlEvent.Contro
             protected ControlEvent parse(Node contentNode, Source<ControlEvent, SourceType> source) {
                 return new BaseControlEvent(this, source);
             }
+
+            @Override
+            protected ControlEvent parse(DataInput in, Source<ControlEvent, SourceType> source) throws IOException {
+                return new BaseControlEvent(this, source);
+            }
         }, //
 
         /**
@@ -133,6 +171,11 @@ public interface ControlEvent extends XmlEvent<ControlEvent, ControlEvent.Contro
             protected ControlEvent parse(Node contentNode, Source<ControlEvent, SourceType> source) {
                 return new ExecuteAckEvent(contentNode, source);
             }
+
+            @Override
+            protected ControlEvent parse(DataInput in, Source<ControlEvent, SourceType> source) throws IOException {
+                return new ExecuteAckEvent(in, source);
+            }
         }, //
 
         /**
@@ -144,6 +187,11 @@ public interface ControlEvent extends XmlEvent<ControlEvent, ControlEvent.Contro
             protected ControlEvent parse(Node contentNode, Source<ControlEvent, SourceType> source) {
                 return new DataEvent(contentNode, source);
             }
+
+            @Override
+            protected ControlEvent parse(DataInput in, Source<ControlEvent, SourceType> source) throws IOException {
+                return new DataEvent(in, source);
+            }
         }, //
 
         /**
@@ -155,6 +203,11 @@ public interface ControlEvent extends XmlEvent<ControlEvent, ControlEvent.Contro
             protected ControlEvent parse(Node contentNode, Source<ControlEvent, SourceType> source) {
                 return new ResetEvent(contentNode, source);
             }
+
+            @Override
+            protected ControlEvent parse(DataInput in, Source<ControlEvent, SourceType> source) throws IOException {
+                return new ResetEvent(in, source);
+            }
         }, //
 
         /**
@@ -162,6 +215,11 @@ public interface ControlEvent extends XmlEvent<ControlEvent, ControlEvent.Contro
          */
         REFRESH, //
 
+        /**
+         * Indicates a request to broadcast aggregated {@link Flow} progress.
+         */
+        PROGRESS, //
+
         /**
          * Indicates a connection end-of-stream notification.
          */
@@ -182,6 +240,11 @@ public interface ControlEvent extends XmlEvent<ControlEvent, ControlEvent.Contro
          */
         TIMEOUT, //
 
+        /**
+         * Indicates that data requested by a client has been read off of the processing thread.
+         */
+        DATA_READY, //
+
         /**
          * Indicates a request to create a new {@link Flow}.
          */
@@ -197,12 +260,32 @@ public interface ControlEvent extends XmlEvent<ControlEvent, ControlEvent.Contro
          */
         SET_AUTOCLOSE_IDLE, //
 
+        /**
+         * Indicates a request to set the window over which refresh requests are batched.
+         */
+        SET_REFRESH_WINDOW, //
+
+        /**
+         * Indicates a request to set the delay for which nodes wait on clients near their input handles.
+         */
+        SET_LOCALITY_DELAY, //
+
+        /**
+         * Indicates a request to set the interval at which aggregated {@link Flow} progress is broadcast.
+         */
+        SET_PROGRESS_INTERVAL, //
+
         /**
          * Indicates a request to get the {@link FlowProxy} associated with an individual {@link Flow} or all
          * {@link FlowProxy}s associated with all {@link Flow}s.
          */
         GET_FLOW_PROXY, //
 
+        /**
+         * Indicates a request to get a copy of a {@link Flow}, structure included.
+         */
+        GET_FLOW_SNAPSHOT, //
+
         /**
          * Indicates a request to get the number of additional clients required to saturate pending computations.
          */
@@ -235,5 +318,15 @@ public interface ControlEvent extends XmlEvent<ControlEvent, ControlEvent.Contro
         protected ControlEvent parse(Node contentNode, Source<ControlEvent, SourceType> source) {
             throw new UnsupportedOperationException("Parse method not defined");
         }
+
+        /**
+         * Parses a {@link ControlEvent} from the given {@link DataInput} in the {@link WireFormat#BINARY} format.
+         * 
+         * @throws IOException
+         *             when the input could not be read.
+         */
+        protected ControlEvent parse(DataInput in, Source<ControlEvent, SourceType> source) throws IOException {
+            throw new UnsupportedOperationException("Parse method not defined");
+        }
     }
 }
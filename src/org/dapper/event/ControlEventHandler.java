@@ -33,13 +33,23 @@ import static org.dapper.Constants.MAX_CONTROL_MESSAGE_SIZE;
 import static org.dapper.event.ControlEvent.ControlEventType.END_OF_STREAM;
 import static org.dapper.event.SourceType.CONNECTION;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.dapper.DapperBase;
 import org.shared.event.SourceLocal;
 import org.shared.net.Connection;
 import org.shared.net.handler.XmlHandler;
+import org.shared.util.Control;
 import org.w3c.dom.Element;
 
 /**
- * A subclass of {@link XmlHandler} specialized for handling {@link ControlEvent}s.
+ * A subclass of {@link XmlHandler} specialized for handling {@link ControlEvent}s. Events travel in frames consisting
+ * of a four-byte length followed by the payload in the current {@link WireFormat}. Binary payloads are distinguished
+ * by a leading marker byte, which can never start an XML document, and receipt of one switches the handler to reply in
+ * kind.
  * 
  * @apiviz.has org.dapper.event.ControlEvent - - - event
  * @apiviz.owns org.dapper.event.SourceType
@@ -50,8 +60,17 @@ import org.w3c.dom.Element;
 public class ControlEventHandler<C extends Connection> //
         extends XmlHandler<ControlEventHandler<C>, C, ControlEvent, SourceType> {
 
+    /**
+     * The marker byte that starts {@link WireFormat#BINARY} payloads.
+     */
+    final protected static int BINARY_MARKER = 0;
+
     final SourceLocal<ControlEvent> delegate;
 
+    volatile WireFormat format;
+
+    ByteBuffer frameBuffer;
+
     /**
      * Default constructor.
      * 
@@ -62,6 +81,55 @@ public class ControlEventHandler<C extends Connection> //
         super(name, CONNECTION, DEFAULT_BUFFER_SIZE, MAX_CONTROL_MESSAGE_SIZE);
 
         this.delegate = delegate;
+
+        this.format = WireFormat.XML;
+        this.frameBuffer = null;
+    }
+
+    /**
+     * Gets the {@link WireFormat} of outbound events.
+     */
+    public WireFormat getWireFormat() {
+        return this.format;
+    }
+
+    /**
+     * Sets the {@link WireFormat} of outbound events.
+     */
+    public ControlEventHandler<C> setWireFormat(WireFormat format) {
+
+        this.format = format;
+
+        return this;
+    }
+
+    /**
+     * Frames the given {@link ControlEvent} in the current {@link WireFormat}.
+     */
+    public ByteBuffer createFrame(ControlEvent evt) {
+
+        WireFormat format = this.format;
+        FrameOutputStream fos = new FrameOutputStream();
+
+        try {
+
+            if (format == WireFormat.BINARY) {
+                fos.write(BINARY_MARKER);
+            }
+
+            format.encode(evt, fos);
+
+        } catch (IOException e) {
+
+            throw new RuntimeException(e);
+        }
+
+        return fos.toFrame();
+    }
+
+    @Override
+    public void onRemote(ControlEvent evt) {
+        getConnection().sendOutbound(createFrame(evt));
     }
 
     @Override
@@ -69,6 +137,65 @@ public class ControlEventHandler<C extends Connection> //
         this.delegate.onLocal(evt);
     }
 
+    @Override
+    public void onReceive(ByteBuffer bb) {
+
+        ByteBuffer frameBuffer = this.frameBuffer;
+
+        if (frameBuffer == null) {
+            frameBuffer = ByteBuffer.allocate(Math.max(DEFAULT_BUFFER_SIZE, bb.remaining()));
+        } else if (frameBuffer.remaining() < bb.remaining()) {
+            frameBuffer = ByteBuffer.allocate(Math.max(frameBuffer.capacity() << 1, //
+                    frameBuffer.position() + bb.remaining())).put((ByteBuffer) frameBuffer.flip());
+        }
+
+        this.frameBuffer = frameBuffer;
+
+        frameBuffer.put(bb).flip();
+
+        for (int size; frameBuffer.remaining() >= 4 //
+                && frameBuffer.remaining() - 4 >= (size = frameBuffer.getInt(frameBuffer.position()));) {
+
+            Control.checkTrue(size >= 0 && size <= MAX_CONTROL_MESSAGE_SIZE, //
+                    "Invalid frame size");
+
+            int offset = frameBuffer.arrayOffset() + frameBuffer.position() + 4;
+
+            frameBuffer.position(frameBuffer.position() + 4 + size);
+
+            onLocal(parse(frameBuffer.array(), offset, size));
+        }
+
+        Control.checkTrue(frameBuffer.remaining() < 4 //
+                || frameBuffer.getInt(frameBuffer.position()) <= MAX_CONTROL_MESSAGE_SIZE, //
+                "Invalid frame size");
+
+        frameBuffer.compact();
+    }
+
+    /**
+     * Parses a {@link ControlEvent} from the given frame payload.
+     */
+    protected ControlEvent parse(byte[] array, int offset, int length) {
+
+        if (length > 0 && array[offset] == BINARY_MARKER) {
+
+            // The remote end speaks binary, so we should too.
+            this.format = WireFormat.BINARY;
+
+            try {
+
+                return WireFormat.BINARY.decode(new ByteArrayInputStream(array, offset + 1, length - 1), this);
+
+            } catch (IOException e) {
+
+                throw new RuntimeException(e);
+            }
+        }
+
+        return parse(DapperBase.parse(new ByteArrayInputStream(array, offset, length)).getDocumentElement());
+    }
+
     @Override
     protected ControlEvent parse(Element rootElement) {
         return BaseControlEvent.parse(rootElement, this);
@@ -83,4 +210,31 @@ public class ControlEventHandler<C extends Connection> //
     protected ControlEvent createError() {
         return new ErrorEvent(getConnection().getException(), this);
     }
+
+    /**
+     * A {@link ByteArrayOutputStream} that reserves room for the frame length and hands out its buffer without
+     * copying.
+     */
+    protected static class FrameOutputStream extends ByteArrayOutputStream {
+
+        /**
+         * Default constructor.
+         */
+        protected FrameOutputStream() {
+
+            // Reserve the length field.
+            this.count = 4;
+        }
+
+        /**
+         * Creates a frame from the bytes written so far.
+         */
+        protected ByteBuffer toFrame() {
+
+            ByteBuffer bb = ByteBuffer.wrap(this.buf, 0, this.count);
+            bb.putInt(0, this.count - 4);
+
+            return bb;
+        }
+    }
 }
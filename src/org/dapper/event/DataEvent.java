@@ -29,6 +29,14 @@
 package org.dapper.event;
 
 import static org.dapper.event.ControlEvent.ControlEventType.DATA;
+import static org.dapper.event.WireFormat.readBytes;
+import static org.dapper.event.WireFormat.readString;
+import static org.dapper.event.WireFormat.writeBytes;
+import static org.dapper.event.WireFormat.writeString;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 import org.shared.codec.Codecs;
 import org.shared.event.Source;
@@ -37,7 +45,9 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 /**
- * A subclass of {@link ControlEvent} for requesting and receiving data.
+ * A subclass of {@link ControlEvent} for requesting and receiving data. A request may name a side channel, which is the
+ * identifier of a stream the client is prepared to accept; the server may then push bulk data over a dedicated
+ * connection instead of inlining it in the control stream.
  * 
  * @author Roy Liu
  */
@@ -45,15 +55,27 @@ public class DataEvent extends BaseControlEvent {
 
     final String pathname;
     final byte[] data;
+    final String channel;
 
     /**
      * Default constructor.
+     * 
+     * @param channel
+     *            the side channel identifier, or {@code null} if none.
      */
-    public DataEvent(String pathname, byte[] data, Source<ControlEvent, SourceType> source) {
+    public DataEvent(String pathname, byte[] data, String channel, Source<ControlEvent, SourceType> source) {
         super(DATA, source);
 
         this.pathname = pathname;
         this.data = data;
+        this.channel = channel;
+    }
+
+    /**
+     * Alternate constructor.
+     */
+    public DataEvent(String pathname, byte[] data, Source<ControlEvent, SourceType> source) {
+        this(pathname, data, null, source);
     }
 
     /**
@@ -66,6 +88,22 @@ public class DataEvent extends BaseControlEvent {
 
         this.pathname = nodeList.item(0).getTextContent();
         this.data = Codecs.base64ToBytes(nodeList.item(1).getTextContent());
+
+        // Older peers don't know about side channels.
+        this.channel = (nodeList.getLength() > 2) ? nodeList.item(2).getTextContent() : null;
+    }
+
+    /**
+     * Alternate constructor.
+     */
+    public DataEvent(DataInput in, Source<ControlEvent, SourceType> source) throws IOException {
+        super(DATA, source);
+
+        this.pathname = readString(in);
+        this.data = readBytes(in);
+
+        String channel = readString(in);
+        this.channel = !channel.equals("") ? channel : null;
     }
 
     /**
@@ -82,6 +120,13 @@ public class DataEvent extends BaseControlEvent {
         return this.data;
     }
 
+    /**
+     * Gets the side channel identifier, or {@code null} if none.
+     */
+    public String getChannel() {
+        return this.channel;
+    }
+
     @Override
     protected void getContents(Node contentNode) {
 
@@ -91,5 +136,18 @@ public class DataEvent extends BaseControlEvent {
                 .setTextContent(this.pathname);
         contentNode.appendChild(doc.createElement("data")) //
                 .setTextContent(Codecs.bytesToBase64(this.data));
+
+        if (this.channel != null) {
+            contentNode.appendChild(doc.createElement("channel")) //
+                    .setTextContent(this.channel);
+        }
+    }
+
+    @Override
+    protected void getContents(DataOutput out) throws IOException {
+
+        writeString(out, this.pathname);
+        writeBytes(out, this.data);
+        writeString(out, (this.channel != null) ? this.channel : "");
     }
 }
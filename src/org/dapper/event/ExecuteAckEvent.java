@@ -29,6 +29,12 @@
 package org.dapper.event;
 
 import static org.dapper.event.ControlEvent.ControlEventType.EXECUTE_ACK;
+import static org.dapper.event.WireFormat.readNode;
+import static org.dapper.event.WireFormat.writeNode;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 import org.dapper.codelet.ParameterMetadata;
 import org.shared.event.Source;
@@ -81,6 +87,13 @@ public class ExecuteAckEvent extends BaseControlEvent implements ParameterMetada
         this.tag = null;
     }
 
+    /**
+     * Alternate constructor.
+     */
+    public ExecuteAckEvent(DataInput in, Source<ControlEvent, SourceType> source) throws IOException {
+        this(readNode(in), readNode(in), source);
+    }
+
     @Override
     public Node getParameters() {
         return this.embeddingParameters;
@@ -102,6 +115,13 @@ public class ExecuteAckEvent extends BaseControlEvent implements ParameterMetada
         contentNode.appendChild(doc.importNode(this.edgeParameters, true));
     }
 
+    @Override
+    protected void getContents(DataOutput out) throws IOException {
+
+        writeNode(out, this.embeddingParameters);
+        writeNode(out, this.edgeParameters);
+    }
+
     @Override
     public Object get() {
         return this.tag;
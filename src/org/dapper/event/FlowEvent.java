@@ -60,6 +60,11 @@ public class FlowEvent<F, N> implements Event<FlowEvent<F, N>, FlowEvent.FlowEve
      */
     final public static int F_FLOW_NODE = 0x00000002;
 
+    /**
+     * A flag indicating interest in periodic, aggregated {@link Flow} progress events.
+     */
+    final public static int F_FLOW_PROGRESS = 0x00000004;
+
     /**
      * A flag indicating interest in all events.
      */
@@ -98,7 +103,12 @@ public class FlowEvent<F, N> implements Event<FlowEvent<F, N>, FlowEvent.FlowEve
         /**
          * Indicates an error on a {@link FlowNode} computation.
          */
-        FLOW_NODE_ERROR;
+        FLOW_NODE_ERROR, //
+
+        /**
+         * Indicates aggregated progress on a {@link Flow}. Events of this type are {@link FlowProgressEvent}s.
+         */
+        FLOW_PROGRESS;
     }
 
     final FlowEventType type;
@@ -32,52 +32,103 @@ import static org.dapper.event.ControlEvent.ControlEventType.RESUME;
 import static org.dapper.event.ControlEvent.ControlEventType.SUSPEND;
 
 import java.io.Closeable;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.IdentityHashMap;
+import java.util.EnumMap;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Queue;
-import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
 
+import org.dapper.event.FlowEvent.FlowEventType;
 import org.dapper.server.flow.Flow;
 import org.dapper.server.flow.FlowNode;
 import org.shared.event.Source;
+import org.shared.util.Control;
 import org.shared.util.ReferenceReaper;
 import org.shared.util.ReferenceReaper.ReferenceType;
 
 /**
  * A mechanism for broadcasting {@link FlowEvent}s from the Dapper server to multiple subscribers in a thread-safe way.
+ * Every subscriber owns a bounded, lock-free ring buffer with a single producer, the server, and a single consumer, and
+ * decides through its {@link OverflowPolicy} what happens when it falls behind. Subscribers are indexed by the event
+ * types their {@link FlowEventFilter}s accept, so that the server only visits interested subscribers.
  * 
  * @apiviz.has org.dapper.event.FlowEvent - - - event
+ * @apiviz.owns org.dapper.event.FlowEventBroadcaster.OverflowPolicy
+ * @apiviz.uses org.dapper.event.FlowEventFilter
  * @author Roy Liu
  */
 public class FlowEventBroadcaster implements BlockingQueue<FlowEvent<?, ?>>, Closeable {
 
-    final int backlog;
+    /**
+     * An enumeration of the ways in which a subscriber may react to its ring buffer filling up.
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * Never lose events: spill them into an unbounded overflow queue and suspend the scheduling of new work until
+         * the subscriber catches up.
+         */
+        BLOCK, //
+
+        /**
+         * Discard the oldest buffered event to make room for the newest one.
+         */
+        DROP_OLDEST, //
+
+        /**
+         * Keep the buffered events and conflate the events past them into the latest one per {@link Flow} and event
+         * type. Terminal events are thus never lost, since each {@link Flow} has only one.
+         */
+        CONFLATE;
+    }
+
+    final int capacity;
     final Source<ControlEvent, SourceType> processor;
     final ReferenceReaper<Queue<FlowEvent<?, ?>>> rr;
-    final Set<Queue<FlowEvent<?, ?>>> queues;
-
-    int eventCount;
+    final List<Buffer> buffers;
+    final Map<FlowEventType, List<Buffer>> buffersByType;
+    final AtomicInteger nSaturated;
 
-    boolean closed;
+    volatile boolean closed;
 
     /**
      * Default constructor.
+     * 
+     * @param capacity
+     *            the default per-subscriber ring buffer capacity.
+     * @param processor
+     *            the server {@link Source} to notify of suspensions and resumptions.
      */
-    public FlowEventBroadcaster(int threshold, Source<ControlEvent, SourceType> processor) {
+    public FlowEventBroadcaster(int capacity, Source<ControlEvent, SourceType> processor) {
 
-        this.backlog = threshold;
+        Control.checkTrue(capacity > 0, //
+                "Capacity must be positive");
+
+        this.capacity = capacity;
         this.processor = processor;
 
         this.rr = new ReferenceReaper<Queue<FlowEvent<?, ?>>>();
-        // Use an IdentityHashMap to prevent comparison of contents based on list equality.
-        this.queues = Collections.newSetFromMap(new IdentityHashMap<Queue<FlowEvent<?, ?>>, Boolean>());
+        this.buffers = new CopyOnWriteArrayList<Buffer>();
+        this.buffersByType = new EnumMap<FlowEventType, List<Buffer>>(FlowEventType.class);
+
+        for (FlowEventType type : FlowEventType.values()) {
+            this.buffersByType.put(type, new CopyOnWriteArrayList<Buffer>());
+        }
 
-        this.eventCount = 0;
+        this.nSaturated = new AtomicInteger(0);
 
         this.closed = false;
     }
@@ -89,283 +140,97 @@ public class FlowEventBroadcaster implements BlockingQueue<FlowEvent<?, ?>>, Clo
     @Override
     public void close() {
 
-        synchronized (this) {
+        this.closed = true;
 
-            this.closed = true;
-
-            notifyAll();
+        for (Buffer buffer : this.buffers) {
+            buffer.wakeUp();
         }
     }
 
     /**
-     * Increments the event count.
+     * Gets whether some subscriber with the {@link OverflowPolicy#BLOCK} policy has fallen behind.
      */
-    public void incrEventCount(int amount) {
-
-        int queueCount = this.queues.size();
-
-        this.eventCount += amount;
-
-        if (this.eventCount > queueCount * this.backlog //
-                && this.eventCount - amount <= queueCount * this.backlog) {
-            this.processor.onLocal(new BaseControlEvent(SUSPEND, this.processor));
-        }
+    public boolean isSaturated() {
+        return this.nSaturated.get() > 0;
     }
 
     /**
-     * Decrements the event count.
+     * Checks whether any subscriber accepts events of the given type.
      */
-    public void decrEventCount(int amount) {
-
-        int queueCount = this.queues.size();
-
-        this.eventCount -= amount;
-
-        if (this.eventCount + amount > queueCount * this.backlog //
-                && this.eventCount <= queueCount * this.backlog) {
-            this.processor.onLocal(new BaseControlEvent(RESUME, this.processor));
-        }
+    public boolean hasSubscribers(FlowEventType type) {
+        return !this.buffersByType.get(type).isEmpty();
     }
 
     /**
-     * Creates a user-facing, read-only {@link Queue}.
+     * Creates a user-facing, read-only {@link Queue} that accepts all events with the {@link OverflowPolicy#BLOCK}
+     * policy.
      * 
      * @param <F>
      *            the {@link Flow} attachment type.
      * @param <N>
      *            the {@link FlowNode} attachment type.
      */
-    @SuppressWarnings("unchecked")
     public <F, N> BlockingQueue<FlowEvent<F, N>> createUserQueue() {
+        return createUserQueue(FlowEventFilter.ALL, OverflowPolicy.BLOCK, this.capacity);
+    }
 
-        final FlowEventBroadcaster feb = this;
-        final Queue<FlowEvent<F, N>> backing = new LinkedList<FlowEvent<F, N>>();
-
-        BlockingQueue<FlowEvent<F, N>> queue = new BlockingQueue<FlowEvent<F, N>>() {
-
-            @Override
-            public FlowEvent<F, N> peek() {
-
-                synchronized (feb) {
-                    return backing.peek();
-                }
-            }
-
-            @Override
-            public FlowEvent<F, N> element() {
-
-                synchronized (feb) {
-                    return backing.element();
-                }
-            }
-
-            @Override
-            public FlowEvent<F, N> poll() {
-
-                synchronized (feb) {
-
-                    decrEventCount(Math.min(backing.size(), 1));
-
-                    return backing.poll();
-                }
-            }
-
-            @Override
-            public FlowEvent<F, N> poll(long timeout, TimeUnit unit) throws InterruptedException {
-
-                long timeoutMillis = unit.toMillis(timeout);
-
-                synchronized (feb) {
-
-                    for (long remaining = timeoutMillis, end = System.currentTimeMillis() + timeoutMillis; //
-                    remaining > 0 && backing.isEmpty() && !feb.closed; //
-                    remaining = end - System.currentTimeMillis()) {
-                        feb.wait(remaining);
-                    }
-
-                    decrEventCount(Math.min(backing.size(), 1));
-
-                    return backing.poll();
-                }
-            }
-
-            @Override
-            public FlowEvent<F, N> remove() {
-
-                synchronized (feb) {
-
-                    decrEventCount(Math.min(backing.size(), 1));
-
-                    return backing.remove();
-                }
-            }
-
-            @Override
-            public FlowEvent<F, N> take() throws InterruptedException {
-
-                synchronized (feb) {
-
-                    for (; backing.isEmpty() && !feb.closed;) {
-                        feb.wait();
-                    }
-
-                    decrEventCount(Math.min(backing.size(), 1));
-
-                    return backing.poll();
-                }
-            }
-
-            @Override
-            public void clear() {
-
-                synchronized (feb) {
-
-                    decrEventCount(backing.size());
-
-                    backing.clear();
-                }
-            }
-
-            @Override
-            public int size() {
-
-                synchronized (feb) {
-                    return backing.size();
-                }
-            }
-
-            @Override
-            public boolean isEmpty() {
-
-                synchronized (feb) {
-                    return backing.isEmpty();
-                }
-            }
-
-            @Override
-            public int remainingCapacity() {
-                return Integer.MAX_VALUE;
-            }
-
-            @Override
-            public String toString() {
-
-                synchronized (feb) {
-                    return backing.toString();
-                }
-            }
-
-            //
-
-            @Override
-            public boolean add(FlowEvent<F, N> evt) {
-                throw new UnsupportedOperationException();
-            }
-
-            @Override
-            public boolean addAll(Collection<? extends FlowEvent<F, N>> c) {
-                throw new UnsupportedOperationException();
-            }
-
-            @Override
-            public boolean contains(Object o) {
-                throw new UnsupportedOperationException();
-            }
-
-            @Override
-            public boolean containsAll(Collection<?> c) {
-                throw new UnsupportedOperationException();
-            }
-
-            @Override
-            public int drainTo(Collection<? super FlowEvent<F, N>> c) {
-                throw new UnsupportedOperationException();
-            }
-
-            @Override
-            public int drainTo(Collection<? super FlowEvent<F, N>> c, int maxElements) {
-                throw new UnsupportedOperationException();
-            }
-
-            @Override
-            public Iterator<FlowEvent<F, N>> iterator() {
-                throw new UnsupportedOperationException();
-            }
-
-            @Override
-            public boolean offer(FlowEvent<F, N> evt) {
-                throw new UnsupportedOperationException();
-            }
-
-            @Override
-            public boolean offer(FlowEvent<F, N> evt, long timeout, TimeUnit unit) {
-                throw new UnsupportedOperationException();
-            }
-
-            @Override
-            public void put(FlowEvent<F, N> evt) {
-                throw new UnsupportedOperationException();
-            }
-
-            @Override
-            public boolean remove(Object o) {
-                throw new UnsupportedOperationException();
-            }
-
-            @Override
-            public boolean removeAll(Collection<?> c) {
-                throw new UnsupportedOperationException();
-            }
+    /**
+     * Creates a user-facing, read-only {@link Queue} that receives the events accepted by the given
+     * {@link FlowEventFilter}, with the given {@link OverflowPolicy} and ring buffer capacity. The returned queue
+     * supports a single consuming thread.
+     * 
+     * @param <F>
+     *            the {@link Flow} attachment type.
+     * @param <N>
+     *            the {@link FlowNode} attachment type.
+     */
+    @SuppressWarnings("unchecked")
+    public <F, N> BlockingQueue<FlowEvent<F, N>> createUserQueue(final FlowEventFilter filter, OverflowPolicy policy, //
+            int capacity) {
 
-            @Override
-            public boolean retainAll(Collection<?> c) {
-                throw new UnsupportedOperationException();
-            }
+        Control.checkTrue(capacity > 0, //
+                "Capacity must be positive");
 
-            @Override
-            public Object[] toArray() {
-                throw new UnsupportedOperationException();
-            }
+        final FlowEventBroadcaster feb = this;
+        final Buffer buffer = new Buffer(filter, policy, capacity);
 
-            @Override
-            public <T> T[] toArray(T[] a) {
-                throw new UnsupportedOperationException();
-            }
-        };
+        BlockingQueue<FlowEvent<F, N>> queue = new UserQueue<F, N>(buffer);
 
         this.rr.wrap(ReferenceType.WEAK, (Queue<FlowEvent<?, ?>>) ((Queue<?>) queue), new Runnable() {
 
             @Override
             public void run() {
 
-                synchronized (feb) {
-
-                    feb.queues.remove(backing);
+                feb.buffers.remove(buffer);
 
-                    decrEventCount(backing.size());
+                for (FlowEventType type : filter.getTypes()) {
+                    feb.buffersByType.get(type).remove(buffer);
                 }
+
+                buffer.release(true);
             }
         });
 
-        synchronized (this) {
-            this.queues.add((Queue<FlowEvent<?, ?>>) ((Queue<?>) backing));
+        this.buffers.add(buffer);
+
+        for (FlowEventType type : filter.getTypes()) {
+            this.buffersByType.get(type).add(buffer);
         }
 
         return queue;
     }
 
+    /**
+     * Publishes the given event to all interested subscribers. Must only be called from the server thread.
+     */
     @Override
     public boolean add(FlowEvent<?, ?> evt) {
 
-        synchronized (this) {
+        for (Buffer buffer : this.buffersByType.get(evt.getType())) {
 
-            for (Queue<FlowEvent<?, ?>> queue : this.queues) {
-                queue.add(evt);
+            if (buffer.filter.accepts(evt)) {
+                buffer.offer(evt);
             }
-
-            incrEventCount(this.queues.size());
-
-            notifyAll();
         }
 
         return true;
@@ -389,17 +254,18 @@ public class FlowEventBroadcaster implements BlockingQueue<FlowEvent<?, ?>>, Clo
     @Override
     public int size() {
 
-        synchronized (this) {
-            return this.eventCount;
+        int size = 0;
+
+        for (Buffer buffer : this.buffers) {
+            size += buffer.size();
         }
+
+        return size;
     }
 
     @Override
     public boolean isEmpty() {
-
-        synchronized (this) {
-            return this.eventCount == 0;
-        }
+        return size() == 0;
     }
 
     @Override
@@ -412,10 +278,7 @@ public class FlowEventBroadcaster implements BlockingQueue<FlowEvent<?, ?>>, Clo
      */
     @Override
     public String toString() {
-
-        synchronized (this) {
-            return this.queues.toString();
-        }
+        return this.buffers.toString();
     }
 
     //
@@ -509,4 +372,523 @@ public class FlowEventBroadcaster implements BlockingQueue<FlowEvent<?, ?>>, Clo
     public <T> T[] toArray(T[] a) {
         throw new UnsupportedOperationException();
     }
+
+    /**
+     * A bounded single-producer, single-consumer ring buffer backing a subscriber. The consumer advances the head with
+     * compare-and-set, so that the producer may also advance it to drop the oldest event without taking a lock.
+     */
+    protected class Buffer {
+
+        final FlowEventFilter filter;
+        final OverflowPolicy policy;
+        final int mask;
+        final AtomicReferenceArray<FlowEvent<?, ?>> ring;
+        final AtomicLong head;
+        final AtomicLong tail;
+        final Queue<FlowEvent<?, ?>> spill;
+        final Map<List<Object>, FlowEvent<?, ?>> latest;
+        final Queue<List<Object>> latestKeys;
+        final AtomicBoolean saturated;
+        final FlowEvent<?, ?>[] scratch;
+
+        volatile Thread waiter;
+
+        /**
+         * Default constructor.
+         */
+        protected Buffer(FlowEventFilter filter, OverflowPolicy policy, int capacity) {
+
+            // Round up to a power of two so that indices wrap with a mask.
+            int size = (capacity > 1) ? Integer.highestOneBit(capacity - 1) << 1 : 1;
+
+            this.filter = filter;
+            this.policy = policy;
+            this.mask = size - 1;
+            this.ring = new AtomicReferenceArray<FlowEvent<?, ?>>(size);
+            this.head = new AtomicLong(0);
+            this.tail = new AtomicLong(0);
+            this.spill = new ConcurrentLinkedQueue<FlowEvent<?, ?>>();
+            this.latest = new ConcurrentHashMap<List<Object>, FlowEvent<?, ?>>();
+            this.latestKeys = new ConcurrentLinkedQueue<List<Object>>();
+            this.saturated = new AtomicBoolean(false);
+            this.scratch = new FlowEvent<?, ?>[size];
+
+            this.waiter = null;
+        }
+
+        /**
+         * Offers the given event on behalf of the producer.
+         */
+        protected void offer(FlowEvent<?, ?> evt) {
+
+            switch (this.policy) {
+
+            case BLOCK:
+
+                // Once events spill, keep spilling until the consumer empties the overflow queue to preserve order.
+                if (!this.spill.isEmpty() || !push(evt)) {
+
+                    this.spill.add(evt);
+
+                    if (this.saturated.compareAndSet(false, true) //
+                            && FlowEventBroadcaster.this.nSaturated.getAndIncrement() == 0) {
+                        FlowEventBroadcaster.this.processor.onLocal(new BaseControlEvent(SUSPEND, //
+                                FlowEventBroadcaster.this.processor));
+                    }
+                }
+
+                break;
+
+            case DROP_OLDEST:
+
+                for (; !push(evt);) {
+
+                    long head = this.head.get();
+
+                    // A failed exchange means that the consumer has just made room.
+                    if (this.tail.get() - head > this.mask) {
+                        this.head.compareAndSet(head, head + 1);
+                    }
+                }
+
+                break;
+
+            case CONFLATE:
+
+                // Once events conflate, keep conflating until the consumer catches up to preserve order. Keys keep
+                // their first position, and only the producer adds them.
+                if (!this.latest.isEmpty() || !push(evt)) {
+
+                    List<Object> key = Arrays.<Object> asList(evt.getFlowAttachment(), evt.getType());
+
+                    if (this.latest.put(key, evt) == null) {
+                        this.latestKeys.add(key);
+                    }
+                }
+
+                break;
+
+            default:
+                throw new IllegalArgumentException("Invalid overflow policy");
+            }
+
+            wakeUp();
+        }
+
+        /**
+         * Attempts to append the given event to the ring.
+         */
+        protected boolean push(FlowEvent<?, ?> evt) {
+
+            long tail = this.tail.get();
+
+            if (tail - this.head.get() > this.mask) {
+                return false;
+            }
+
+            this.ring.set((int) tail & this.mask, evt);
+            this.tail.lazySet(tail + 1);
+
+            return true;
+        }
+
+        /**
+         * Polls for an event on behalf of the consumer.
+         */
+        protected FlowEvent<?, ?> poll() {
+
+            for (;;) {
+
+                long head = this.head.get();
+
+                if (head == this.tail.get()) {
+                    break;
+                }
+
+                FlowEvent<?, ?> evt = this.ring.get((int) head & this.mask);
+
+                // A failed exchange means that the producer dropped the event; try again.
+                if (this.head.compareAndSet(head, head + 1)) {
+
+                    release(false);
+
+                    return evt;
+                }
+            }
+
+            FlowEvent<?, ?> evt = pollOverflow();
+
+            release(false);
+
+            return evt;
+        }
+
+        /**
+         * Drains up to the given number of events into the given {@link Collection} on behalf of the consumer, claiming
+         * whole runs of the ring with a single compare-and-set.
+         */
+        protected <T> int drainTo(Collection<? super T> c, int maxElements) {
+
+            int nDrained = 0;
+
+            for (; nDrained < maxElements;) {
+
+                long head = this.head.get();
+                int batchSize = (int) Math.min(Math.min(this.tail.get() - head, this.mask + 1), //
+                        maxElements - nDrained);
+
+                if (batchSize > 0) {
+
+                    for (int i = 0; i < batchSize; i++) {
+                        this.scratch[i] = this.ring.get((int) (head + i) & this.mask);
+                    }
+
+                    if (this.head.compareAndSet(head, head + batchSize)) {
+
+                        for (int i = 0; i < batchSize; i++) {
+                            c.add(FlowEventBroadcaster.<T> cast(this.scratch[i]));
+                        }
+
+                        nDrained += batchSize;
+                    }
+
+                    Arrays.fill(this.scratch, 0, batchSize, null);
+
+                    continue;
+                }
+
+                FlowEvent<?, ?> evt = pollOverflow();
+
+                if (evt == null) {
+                    break;
+                }
+
+                c.add(FlowEventBroadcaster.<T> cast(evt));
+
+                nDrained++;
+            }
+
+            release(false);
+
+            return nDrained;
+        }
+
+        /**
+         * Peeks at the next event on behalf of the consumer.
+         */
+        protected FlowEvent<?, ?> peek() {
+
+            long head = this.head.get();
+
+            if (head != this.tail.get()) {
+                return this.ring.get((int) head & this.mask);
+            }
+
+            FlowEvent<?, ?> evt = this.spill.peek();
+
+            if (evt != null) {
+                return evt;
+            }
+
+            List<Object> key = this.latestKeys.peek();
+
+            return (key != null) ? this.latest.get(key) : null;
+        }
+
+        /**
+         * Polls the overflow storage, which the consumer only visits once the ring has emptied.
+         */
+        protected FlowEvent<?, ?> pollOverflow() {
+
+            FlowEvent<?, ?> evt = this.spill.poll();
+
+            if (evt != null) {
+                return evt;
+            }
+
+            List<Object> key = this.latestKeys.poll();
+
+            // The producer replaces, but never removes, conflated events.
+            return (key != null) ? this.latest.remove(key) : null;
+        }
+
+        /**
+         * Waits for an event on behalf of the consumer.
+         * 
+         * @param timeoutNanos
+         *            the timeout in nanoseconds, or a negative value to wait indefinitely.
+         * @throws InterruptedException
+         *             when this operation is interrupted.
+         */
+        protected FlowEvent<?, ?> await(long timeoutNanos) throws InterruptedException {
+
+            long end = System.nanoTime() + timeoutNanos;
+
+            for (;;) {
+
+                FlowEvent<?, ?> evt = poll();
+
+                if (evt != null || FlowEventBroadcaster.this.closed) {
+                    return evt;
+                }
+
+                long remaining = end - System.nanoTime();
+
+                if (timeoutNanos >= 0 && remaining <= 0) {
+                    return null;
+                }
+
+                this.waiter = Thread.currentThread();
+
+                // Check again to avoid missing a wake up that raced with registration.
+                if ((evt = poll()) != null || FlowEventBroadcaster.this.closed) {
+
+                    this.waiter = null;
+
+                    return evt;
+                }
+
+                if (timeoutNanos < 0) {
+                    LockSupport.park(this);
+                } else {
+                    LockSupport.parkNanos(this, remaining);
+                }
+
+                this.waiter = null;
+
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+
+        /**
+         * Wakes up the consumer, if it is waiting.
+         */
+        protected void wakeUp() {
+
+            Thread waiter = this.waiter;
+
+            if (waiter != null) {
+                LockSupport.unpark(waiter);
+            }
+        }
+
+        /**
+         * Clears all buffered events on behalf of the consumer.
+         */
+        protected void clear() {
+
+            for (; poll() != null;) {
+            }
+        }
+
+        /**
+         * Lifts this buffer's contribution to server suspension once it has sufficiently drained, or unconditionally
+         * if forced.
+         */
+        protected void release(boolean force) {
+
+            if (this.saturated.get() //
+                    && (force || (this.spill.isEmpty() && this.tail.get() - this.head.get() <= (this.mask >>> 1))) //
+                    && this.saturated.compareAndSet(true, false) //
+                    && FlowEventBroadcaster.this.nSaturated.decrementAndGet() == 0) {
+                FlowEventBroadcaster.this.processor.onLocal(new BaseControlEvent(RESUME, //
+                        FlowEventBroadcaster.this.processor));
+            }
+        }
+
+        /**
+         * Gets the number of buffered events.
+         */
+        protected int size() {
+
+            long head = this.head.get();
+
+            return (int) (this.tail.get() - head) + this.spill.size() + this.latest.size();
+        }
+
+        /**
+         * Creates a human-readable representation of this buffer.
+         */
+        @Override
+        public String toString() {
+            return String.format("%s[%s, %s, size = %d]", //
+                    Buffer.class.getSimpleName(), this.filter, this.policy, size());
+        }
+    }
+
+    /**
+     * A user-facing, read-only view of a {@link Buffer}.
+     * 
+     * @param <F>
+     *            the {@link Flow} attachment type.
+     * @param <N>
+     *            the {@link FlowNode} attachment type.
+     */
+    protected static class UserQueue<F, N> implements BlockingQueue<FlowEvent<F, N>> {
+
+        final Buffer buffer;
+
+        /**
+         * Default constructor.
+         */
+        protected UserQueue(Buffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public FlowEvent<F, N> peek() {
+            return FlowEventBroadcaster.<FlowEvent<F, N>> cast(this.buffer.peek());
+        }
+
+        @Override
+        public FlowEvent<F, N> element() {
+
+            FlowEvent<F, N> evt = peek();
+
+            if (evt == null) {
+                throw new NoSuchElementException();
+            }
+
+            return evt;
+        }
+
+        @Override
+        public FlowEvent<F, N> poll() {
+            return FlowEventBroadcaster.<FlowEvent<F, N>> cast(this.buffer.poll());
+        }
+
+        @Override
+        public FlowEvent<F, N> poll(long timeout, TimeUnit unit) throws InterruptedException {
+            return FlowEventBroadcaster.<FlowEvent<F, N>> cast(this.buffer.await(Math.max(unit.toNanos(timeout), 0)));
+        }
+
+        @Override
+        public FlowEvent<F, N> remove() {
+
+            FlowEvent<F, N> evt = poll();
+
+            if (evt == null) {
+                throw new NoSuchElementException();
+            }
+
+            return evt;
+        }
+
+        @Override
+        public FlowEvent<F, N> take() throws InterruptedException {
+            return FlowEventBroadcaster.<FlowEvent<F, N>> cast(this.buffer.await(-1));
+        }
+
+        @Override
+        public int drainTo(Collection<? super FlowEvent<F, N>> c) {
+            return drainTo(c, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public int drainTo(Collection<? super FlowEvent<F, N>> c, int maxElements) {
+            return this.buffer.<FlowEvent<F, N>> drainTo(c, maxElements);
+        }
+
+        @Override
+        public void clear() {
+            this.buffer.clear();
+        }
+
+        @Override
+        public int size() {
+            return this.buffer.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return this.buffer.size() == 0;
+        }
+
+        @Override
+        public int remainingCapacity() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public String toString() {
+            return this.buffer.toString();
+        }
+
+        //
+
+        @Override
+        public boolean add(FlowEvent<F, N> evt) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends FlowEvent<F, N>> c) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean containsAll(Collection<?> c) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Iterator<FlowEvent<F, N>> iterator() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean offer(FlowEvent<F, N> evt) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean offer(FlowEvent<F, N> evt, long timeout, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void put(FlowEvent<F, N> evt) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> c) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean retainAll(Collection<?> c) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object[] toArray() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> T[] toArray(T[] a) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Casts the given event to the subscriber's attachment types.
+     */
+    @SuppressWarnings("unchecked")
+    protected static <T> T cast(FlowEvent<?, ?> evt) {
+        return (T) evt;
+    }
 }
@@ -0,0 +1,135 @@
+/**
+ * <p>
+ * Copyright (c) 2010 The Regents of the University of California<br>
+ * All rights reserved.
+ * </p>
+ * <p>
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ * </p>
+ * <ul>
+ * <li>Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.</li>
+ * <li>Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.</li>
+ * <li>Neither the name of the author nor the names of any contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.</li>
+ * </ul>
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * </p>
+ */
+
+package org.dapper.event;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.dapper.event.FlowEvent.FlowEventType;
+import org.dapper.server.flow.Flow;
+import org.dapper.server.flow.FlowNode;
+
+/**
+ * A predicate that selects the {@link FlowEvent}s a subscriber receives.
+ * 
+ * @author Roy Liu
+ */
+public class FlowEventFilter {
+
+    /**
+     * A filter that accepts all events.
+     */
+    final public static FlowEventFilter ALL = new FlowEventFilter(FlowEvent.F_ALL, null, null);
+
+    final Set<FlowEventType> types;
+    final Set<Object> flowAttachments;
+
+    /**
+     * Default constructor.
+     * 
+     * @param flowFlags
+     *            the bit vector of {@link FlowEvent} interest flags selecting {@link Flow}-level,
+     *            {@link FlowNode}-level and/or progress events.
+     * @param types
+     *            the accepted event types, or {@code null} for all.
+     * @param flowAttachments
+     *            the attachments of the {@link Flow}s of interest, or {@code null} for all.
+     */
+    public FlowEventFilter(int flowFlags, Set<FlowEventType> types, Collection<?> flowAttachments) {
+
+        Set<FlowEventType> accepted = (types != null && !types.isEmpty()) ? EnumSet.copyOf(types) //
+                : EnumSet.allOf(FlowEventType.class);
+
+        if ((flowFlags & FlowEvent.F_FLOW) == 0) {
+            accepted.removeAll(EnumSet.of(FlowEventType.FLOW_BEGIN, FlowEventType.FLOW_END, //
+                    FlowEventType.FLOW_ERROR));
+        }
+
+        if ((flowFlags & FlowEvent.F_FLOW_NODE) == 0) {
+            accepted.removeAll(EnumSet.of(FlowEventType.FLOW_NODE_BEGIN, FlowEventType.FLOW_NODE_END, //
+                    FlowEventType.FLOW_NODE_ERROR));
+        }
+
+        if ((flowFlags & FlowEvent.F_FLOW_PROGRESS) == 0) {
+            accepted.remove(FlowEventType.FLOW_PROGRESS);
+        }
+
+        this.types = Collections.unmodifiableSet(accepted);
+        this.flowAttachments = (flowAttachments != null) ? Collections.unmodifiableSet( //
+                new HashSet<Object>(flowAttachments)) : null;
+    }
+
+    /**
+     * Alternate constructor. Accepts the given event types of the given {@link Flow}s.
+     */
+    public FlowEventFilter(Set<FlowEventType> types, Collection<?> flowAttachments) {
+        this(FlowEvent.F_ALL, types, flowAttachments);
+    }
+
+    /**
+     * Gets the accepted event types.
+     */
+    public Set<FlowEventType> getTypes() {
+        return this.types;
+    }
+
+    /**
+     * Gets the attachments of the {@link Flow}s of interest, or {@code null} if all are of interest.
+     */
+    public Set<Object> getFlowAttachments() {
+        return this.flowAttachments;
+    }
+
+    /**
+     * Checks whether events of the given type may be accepted.
+     */
+    public boolean accepts(FlowEventType type) {
+        return this.types.contains(type);
+    }
+
+    /**
+     * Checks whether the given event is accepted.
+     */
+    public boolean accepts(FlowEvent<?, ?> evt) {
+        return this.types.contains(evt.getType()) //
+                && (this.flowAttachments == null || this.flowAttachments.contains(evt.getFlowAttachment()));
+    }
+
+    /**
+     * Creates a human-readable representation of this filter.
+     */
+    @Override
+    public String toString() {
+        return String.format("%s[%s, %s]", //
+                FlowEventFilter.class.getSimpleName(), this.types, this.flowAttachments);
+    }
+}
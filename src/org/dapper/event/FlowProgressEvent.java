@@ -0,0 +1,130 @@
+/**
+ * <p>
+ * Copyright (c) 2010 The Regents of the University of California<br>
+ * All rights reserved.
+ * </p>
+ * <p>
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ * </p>
+ * <ul>
+ * <li>Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.</li>
+ * <li>Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.</li>
+ * <li>Neither the name of the author nor the names of any contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.</li>
+ * </ul>
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * </p>
+ */
+
+package org.dapper.event;
+
+import org.dapper.server.flow.Flow;
+import org.dapper.server.flow.FlowNode;
+
+/**
+ * A {@link FlowEvent} summarizing the progress of a {@link Flow} in lieu of individual {@link FlowNode} events.
+ * 
+ * @param <F>
+ *            the {@link Flow} attachment type.
+ * @param <N>
+ *            the {@link FlowNode} attachment type.
+ * @author Roy Liu
+ */
+public class FlowProgressEvent<F, N> extends FlowEvent<F, N> {
+
+    final long nPending;
+    final long nExecuting;
+    final long nFinished;
+    final long nFailed;
+    final long nBytes;
+    final double bytesPerSecond;
+    final double flowNodesPerSecond;
+
+    /**
+     * Default constructor.
+     */
+    public FlowProgressEvent(F flowAttachment, //
+            long nPending, long nExecuting, long nFinished, long nFailed, //
+            long nBytes, double bytesPerSecond, double flowNodesPerSecond) {
+        super(FlowEventType.FLOW_PROGRESS, flowAttachment, null, null);
+
+        this.nPending = nPending;
+        this.nExecuting = nExecuting;
+        this.nFinished = nFinished;
+        this.nFailed = nFailed;
+        this.nBytes = nBytes;
+        this.bytesPerSecond = bytesPerSecond;
+        this.flowNodesPerSecond = flowNodesPerSecond;
+    }
+
+    /**
+     * Gets the number of {@link FlowNode}s that have neither been dispatched to clients nor finished.
+     */
+    public long getPendingCount() {
+        return this.nPending;
+    }
+
+    /**
+     * Gets the number of {@link FlowNode}s dispatched to clients.
+     */
+    public long getExecutingCount() {
+        return this.nExecuting;
+    }
+
+    /**
+     * Gets the number of finished {@link FlowNode}s.
+     */
+    public long getFinishedCount() {
+        return this.nFinished;
+    }
+
+    /**
+     * Gets the number of failed {@link FlowNode} executions, including those that were retried.
+     */
+    public long getFailedCount() {
+        return this.nFailed;
+    }
+
+    /**
+     * Gets the number of bytes served to the {@link Flow}'s clients.
+     */
+    public long getBytes() {
+        return this.nBytes;
+    }
+
+    /**
+     * Gets the number of bytes served per second since the previous progress event.
+     */
+    public double getBytesPerSecond() {
+        return this.bytesPerSecond;
+    }
+
+    /**
+     * Gets the number of {@link FlowNode}s finished per second since the previous progress event.
+     */
+    public double getFlowNodesPerSecond() {
+        return this.flowNodesPerSecond;
+    }
+
+    /**
+     * Creates a human-readable representation of this event.
+     */
+    @Override
+    public String toString() {
+        return String.format("%s[%s, pending = %d, executing = %d, finished = %d, failed = %d, " //
+                + "bytes = %d (%.1f/s), flow nodes = %.1f/s]", //
+                FlowProgressEvent.class.getSimpleName(), getFlowAttachment(), //
+                this.nPending, this.nExecuting, this.nFinished, this.nFailed, //
+                this.nBytes, this.bytesPerSecond, this.flowNodesPerSecond);
+    }
+}
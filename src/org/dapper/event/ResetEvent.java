@@ -29,8 +29,16 @@
 package org.dapper.event;
 
 import static org.dapper.event.ControlEvent.ControlEventType.RESET;
-
+import static org.dapper.event.WireFormat.readString;
+import static org.dapper.event.WireFormat.readVarint;
+import static org.dapper.event.WireFormat.writeString;
+import static org.dapper.event.WireFormat.writeVarint;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 
 import org.dapper.DapperException;
 import org.shared.event.Source;
@@ -82,6 +90,50 @@ public class ResetEvent extends BaseControlEvent implements Handle<Object> {
         String causeClassName = l1.item(1).getTextContent();
         String causeMessage = l1.item(2).getTextContent();
 
+        NodeList l2 = l1.item(3).getChildNodes();
+
+        ArrayList<StackTraceElement> tmpList = new ArrayList<StackTraceElement>();
+
+        for (int i = 0, n = l2.getLength(); i < n; i++) {
+
+            NodeList l3 = l2.item(i).getChildNodes();
+
+            tmpList.add(new StackTraceElement( //
+                    l3.item(0).getTextContent(), //
+                    l3.item(1).getTextContent(), //
+                    l3.item(2).getTextContent(), //
+                    Integer.parseInt(l3.item(3).getTextContent())));
+        }
+
+        this.exception = new DapperException(message, createCause(causeClassName, causeMessage, tmpList));
+    }
+
+    /**
+     * Alternate constructor.
+     */
+    public ResetEvent(DataInput in, Source<ControlEvent, SourceType> source) throws IOException {
+        super(RESET, source);
+
+        String message = readString(in);
+        String causeClassName = readString(in);
+        String causeMessage = readString(in);
+
+        ArrayList<StackTraceElement> tmpList = new ArrayList<StackTraceElement>();
+
+        for (int i = 0, n = (int) readVarint(in); i < n; i++) {
+            tmpList.add(new StackTraceElement(readString(in), readString(in), readString(in), //
+                    (int) readVarint(in) - 2));
+        }
+
+        this.exception = new DapperException(message, createCause(causeClassName, causeMessage, tmpList));
+    }
+
+    /**
+     * Recreates the cause of a reset from its class name, message, and stack trace.
+     */
+    protected static Throwable createCause(String causeClassName, String causeMessage, //
+            List<StackTraceElement> stackTrace) {
+
         Throwable cause = null;
 
         // Attempt to load the appropriate Throwable class.
@@ -103,24 +155,9 @@ public class ResetEvent extends BaseControlEvent implements Handle<Object> {
             cause = new RuntimeException(causeMessage);
         }
 
-        NodeList l2 = l1.item(3).getChildNodes();
-
-        ArrayList<StackTraceElement> tmpList = new ArrayList<StackTraceElement>();
-
-        for (int i = 0, n = l2.getLength(); i < n; i++) {
-
-            NodeList l3 = l2.item(i).getChildNodes();
-
-            tmpList.add(new StackTraceElement( //
-                    l3.item(0).getTextContent(), //
-                    l3.item(1).getTextContent(), //
-                    l3.item(2).getTextContent(), //
-                    Integer.parseInt(l3.item(3).getTextContent())));
-        }
-
-        cause.setStackTrace(tmpList.toArray(emptyStackTraceElements));
+        cause.setStackTrace(stackTrace.toArray(emptyStackTraceElements));
 
-        this.exception = new DapperException(message, cause);
+        return cause;
     }
 
     /**
@@ -162,6 +199,31 @@ public class ResetEvent extends BaseControlEvent implements Handle<Object> {
         }
     }
 
+    @Override
+    protected void getContents(DataOutput out) throws IOException {
+
+        writeString(out, String.valueOf(this.exception.getMessage()));
+
+        Throwable cause = this.exception.getCause();
+
+        writeString(out, cause.getClass().getName());
+        writeString(out, String.valueOf(cause.getMessage()));
+
+        StackTraceElement[] elements = cause.getStackTrace();
+
+        writeVarint(out, elements.length);
+
+        for (StackTraceElement element : elements) {
+
+            writeString(out, element.getClassName());
+            writeString(out, element.getMethodName());
+            writeString(out, String.valueOf(element.getFileName()));
+
+            // Line numbers may be negative for native methods.
+            writeVarint(out, element.getLineNumber() + 2);
+        }
+    }
+
     @Override
     public Object get() {
         return this.tag;
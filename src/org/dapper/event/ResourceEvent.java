@@ -28,14 +28,40 @@
 
 package org.dapper.event;
 
+import static org.dapper.codelet.Resource.ResourceType.INPUT_HANDLE;
+import static org.dapper.codelet.Resource.ResourceType.INPUT_STREAM;
 import static org.dapper.event.ControlEvent.ControlEventType.RESOURCE;
-
+import static org.dapper.event.WireFormat.readBytes;
+import static org.dapper.event.WireFormat.readNode;
+import static org.dapper.event.WireFormat.readString;
+import static org.dapper.event.WireFormat.readVarint;
+import static org.dapper.event.WireFormat.writeBytes;
+import static org.dapper.event.WireFormat.writeNode;
+import static org.dapper.event.WireFormat.writeString;
+import static org.dapper.event.WireFormat.writeVarint;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 
+import org.dapper.codelet.AbstractHandleResource;
+import org.dapper.codelet.InputHandleResource;
+import org.dapper.codelet.OutputHandleResource;
 import org.dapper.codelet.ParameterMetadata;
 import org.dapper.codelet.Resource;
 import org.dapper.codelet.Resource.ResourceType;
+import org.dapper.codelet.StreamResource;
+import org.shared.array.ObjectArray;
 import org.shared.event.Source;
 import org.shared.util.Control;
 import org.w3c.dom.Document;
@@ -43,7 +69,9 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 /**
- * A subclass of {@link ControlEvent} for carrying {@link Resource} information.
+ * A subclass of {@link ControlEvent} for carrying {@link Resource} information. The event also advertises the content
+ * hashes of class path entries known to be needed, so that clients may serve them from their caches, and names the
+ * server-side class loader so that clients may reuse already loaded classes across jobs.
  * 
  * @author Roy Liu
  */
@@ -52,12 +80,24 @@ public class ResourceEvent extends BaseControlEvent implements ParameterMetadata
     final List<Resource> in, out;
     final String className;
     final Node parameters;
+    final Map<String, String> hashes;
+    final String loaderKey;
+    final List<String> retiredKeys;
 
     /**
      * Default constructor.
+     * 
+     * @param hashes
+     *            the mapping from class path entries to their content hashes.
+     * @param loaderKey
+     *            the key of the class loader to use, or {@code null} if a fresh one is required.
+     * @param retiredKeys
+     *            the keys of class loaders whose flows have all ended.
      */
     public ResourceEvent(List<Resource> in, List<Resource> out, //
-            String className, Node parameters, Source<ControlEvent, SourceType> source) {
+            String className, Node parameters, //
+            Map<String, String> hashes, String loaderKey, List<String> retiredKeys, //
+            Source<ControlEvent, SourceType> source) {
         super(RESOURCE, source);
 
         this.in = in;
@@ -66,6 +106,19 @@ public class ResourceEvent extends BaseControlEvent implements ParameterMetadata
         this.className = className;
 
         this.parameters = parameters;
+
+        this.hashes = hashes;
+        this.loaderKey = loaderKey;
+        this.retiredKeys = retiredKeys;
+    }
+
+    /**
+     * Alternate constructor.
+     */
+    public ResourceEvent(List<Resource> in, List<Resource> out, //
+            String className, Node parameters, Source<ControlEvent, SourceType> source) {
+        this(in, out, className, parameters, //
+                Collections.<String, String> emptyMap(), null, Collections.<String> emptyList(), source);
     }
 
     @Override
@@ -94,6 +147,27 @@ public class ResourceEvent extends BaseControlEvent implements ParameterMetadata
         return this.out;
     }
 
+    /**
+     * Gets the mapping from class path entries to their content hashes.
+     */
+    public Map<String, String> getHashes() {
+        return this.hashes;
+    }
+
+    /**
+     * Gets the key of the class loader to use, or {@code null} if a fresh one is required.
+     */
+    public String getLoaderKey() {
+        return this.loaderKey;
+    }
+
+    /**
+     * Gets the keys of class loaders whose flows have all ended.
+     */
+    public List<String> getRetiredKeys() {
+        return this.retiredKeys;
+    }
+
     /**
      * Alternate constructor.
      */
@@ -134,6 +208,81 @@ public class ResourceEvent extends BaseControlEvent implements ParameterMetadata
 
         this.in = res.get(0);
         this.out = res.get(1);
+
+        this.hashes = new HashMap<String, String>();
+
+        // Older servers don't advertise hashes.
+        if (l1.getLength() > 3) {
+
+            NodeList l4 = l1.item(3).getChildNodes();
+
+            for (int i = 0, n = l4.getLength(); i < n; i++) {
+
+                NodeList l5 = l4.item(i).getChildNodes();
+
+                this.hashes.put(l5.item(0).getTextContent(), l5.item(1).getTextContent());
+            }
+        }
+
+        this.retiredKeys = new ArrayList<String>();
+
+        // Older servers don't name class loaders.
+        if (l1.getLength() > 5) {
+
+            String loaderKey = l1.item(4).getTextContent();
+            this.loaderKey = !loaderKey.equals("") ? loaderKey : null;
+
+            NodeList l6 = l1.item(5).getChildNodes();
+
+            for (int i = 0, n = l6.getLength(); i < n; i++) {
+                this.retiredKeys.add(l6.item(i).getTextContent());
+            }
+
+        } else {
+
+            this.loaderKey = null;
+        }
+    }
+
+    /**
+     * Alternate constructor.
+     */
+    public ResourceEvent(DataInput in, Source<ControlEvent, SourceType> source) throws IOException {
+        super(RESOURCE, source);
+
+        ArrayList<List<Resource>> res = new ArrayList<List<Resource>>();
+
+        this.className = readString(in);
+        this.parameters = readNode(in);
+
+        for (int i = 0; i < 2; i++) {
+
+            List<Resource> list = new ArrayList<Resource>();
+
+            for (int j = 0, m = (int) readVarint(in); j < m; j++) {
+                list.add(readResource(in));
+            }
+
+            res.add(list);
+        }
+
+        this.in = res.get(0);
+        this.out = res.get(1);
+
+        this.hashes = new HashMap<String, String>();
+
+        for (int i = 0, n = (int) readVarint(in); i < n; i++) {
+            this.hashes.put(readString(in), readString(in));
+        }
+
+        String loaderKey = readString(in);
+        this.loaderKey = !loaderKey.equals("") ? loaderKey : null;
+
+        this.retiredKeys = new ArrayList<String>();
+
+        for (int i = 0, n = (int) readVarint(in); i < n; i++) {
+            this.retiredKeys.add(readString(in));
+        }
     }
 
     @Override
@@ -174,5 +323,160 @@ public class ResourceEvent extends BaseControlEvent implements ParameterMetadata
 
             node1.appendChild(node2);
         }
+
+        Node hashesNode = contentNode.appendChild(doc.createElement("hashes"));
+
+        for (Entry<String, String> entry : this.hashes.entrySet()) {
+
+            Node entryNode = hashesNode.appendChild(doc.createElement("entry"));
+
+            entryNode.appendChild(doc.createElement("pathname")).setTextContent(entry.getKey());
+            entryNode.appendChild(doc.createElement("hash")).setTextContent(entry.getValue());
+        }
+
+        contentNode.appendChild(doc.createElement("loader_key")) //
+                .setTextContent((this.loaderKey != null) ? this.loaderKey : "");
+
+        Node retiredKeysNode = contentNode.appendChild(doc.createElement("retired_keys"));
+
+        for (String retiredKey : this.retiredKeys) {
+            retiredKeysNode.appendChild(doc.createElement("key")).setTextContent(retiredKey);
+        }
+    }
+
+    @Override
+    protected void getContents(DataOutput out) throws IOException {
+
+        writeString(out, this.className);
+        writeNode(out, this.parameters);
+
+        ArrayList<List<Resource>> res = new ArrayList<List<Resource>>();
+
+        res.add(this.in);
+        res.add(this.out);
+
+        for (int i = 0; i < 2; i++) {
+
+            writeVarint(out, res.get(i).size());
+
+            for (Resource resource : res.get(i)) {
+                writeResource(out, resource);
+            }
+        }
+
+        writeVarint(out, this.hashes.size());
+
+        for (Entry<String, String> entry : this.hashes.entrySet()) {
+
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+
+        writeString(out, (this.loaderKey != null) ? this.loaderKey : "");
+        writeVarint(out, this.retiredKeys.size());
+
+        for (String retiredKey : this.retiredKeys) {
+            writeString(out, retiredKey);
+        }
+    }
+
+    /**
+     * Writes the given {@link Resource} field by field.
+     */
+    protected static void writeResource(DataOutput out, Resource resource) throws IOException {
+
+        ResourceType type = resource.getType();
+
+        writeVarint(out, type.ordinal());
+
+        switch (type) {
+
+        case INPUT_HANDLE:
+        case OUTPUT_HANDLE:
+
+            AbstractHandleResource<?> ahr = (AbstractHandleResource<?>) resource;
+
+            writeString(out, ahr.getName());
+            writeVarint(out, ahr.nHandles());
+
+            for (int i = 0, n = ahr.nHandles(); i < n; i++) {
+
+                writeString(out, ahr.getHandle(i));
+                writeString(out, ahr.getStem(i));
+            }
+
+            break;
+
+        case INPUT_STREAM:
+        case OUTPUT_STREAM:
+
+            StreamResource<?> sr = (StreamResource<?>) resource;
+            InetSocketAddress address = sr.getAddress();
+
+            writeString(out, sr.getIdentifier());
+            writeString(out, sr.getName());
+            writeBytes(out, (address != null) ? address.getAddress().getAddress() : new byte[0]);
+            writeVarint(out, (address != null) ? address.getPort() : 0);
+
+            break;
+
+        default:
+            throw new IllegalArgumentException("Invalid resource type");
+        }
+    }
+
+    /**
+     * Reads a {@link Resource} written by {@link #writeResource(DataOutput, Resource)}.
+     */
+    protected static Resource readResource(DataInput in) throws IOException {
+
+        ResourceType type = ResourceType.values()[(int) readVarint(in)];
+
+        switch (type) {
+
+        case INPUT_HANDLE:
+        case OUTPUT_HANDLE:
+
+            String name = readString(in);
+            int nHandles = (int) readVarint(in);
+
+            ObjectArray<String> handleArray = new ObjectArray<String>(String.class, nHandles, 2);
+
+            for (int i = 0; i < nHandles; i++) {
+
+                handleArray.set(readString(in), i, 0);
+                handleArray.set(readString(in), i, 1);
+            }
+
+            if (type == INPUT_HANDLE) {
+
+                return new InputHandleResource(name, handleArray);
+
+            } else {
+
+                OutputHandleResource ohr = new OutputHandleResource(name);
+                ohr.put(handleArray);
+
+                return ohr;
+            }
+
+        case INPUT_STREAM:
+        case OUTPUT_STREAM:
+
+            String identifier = readString(in);
+            String streamName = readString(in);
+            byte[] addressBytes = readBytes(in);
+            int port = (int) readVarint(in);
+
+            InetSocketAddress address = (addressBytes.length > 0) ? new InetSocketAddress( //
+                    InetAddress.getByAddress(addressBytes), port) : null;
+
+            return (type == INPUT_STREAM) //
+                    ? new StreamResource<InputStream>(type, identifier, streamName, address) //
+                    : new StreamResource<OutputStream>(type, identifier, streamName, address);
+
+        default:
+            throw new IllegalArgumentException("Invalid resource type");
+        }
     }
 }
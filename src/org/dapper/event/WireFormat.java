@@ -0,0 +1,236 @@
+/**
+ * <p>
+ * Copyright (c) 2008 The Regents of the University of California<br>
+ * All rights reserved.
+ * </p>
+ * <p>
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ * </p>
+ * <ul>
+ * <li>Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.</li>
+ * <li>Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.</li>
+ * <li>Neither the name of the author nor the names of any contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.</li>
+ * </ul>
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * </p>
+ */
+
+package org.dapper.event;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.dapper.DapperBase;
+import org.dapper.event.ControlEvent.ControlEventType;
+import org.shared.event.Source;
+import org.shared.util.XmlBase;
+import org.w3c.dom.Node;
+
+/**
+ * An enumeration of wire formats for {@link ControlEvent}s. The binary format consists of the event type ordinal
+ * followed by type-specific fields, where integers are varints and strings and byte arrays are length-prefixed. Fields
+ * that are DOM {@link Node}s by nature, like {@link org.dapper.codelet.Codelet} parameters, are embedded as XML text,
+ * except that childless elements travel as their names alone and so skip the XML parser on receipt.
+ * 
+ * @author Roy Liu
+ */
+public enum WireFormat {
+
+    /**
+     * Indicates the XML format.
+     */
+    XML {
+
+        @Override
+        public void encode(ControlEvent evt, OutputStream out) throws IOException {
+            out.write(XmlBase.toString(evt.toDom()).getBytes());
+        }
+
+        @Override
+        public ControlEvent decode(InputStream in, Source<ControlEvent, SourceType> source) {
+            return BaseControlEvent.parse(DapperBase.parse(in).getDocumentElement(), source);
+        }
+    }, //
+
+    /**
+     * Indicates the binary format.
+     */
+    BINARY {
+
+        @Override
+        public void encode(ControlEvent evt, OutputStream out) throws IOException {
+
+            DataOutputStream dos = new DataOutputStream(out);
+
+            writeVarint(dos, evt.getType().ordinal());
+            ((BaseControlEvent) evt).getContents(dos);
+
+            dos.flush();
+        }
+
+        @Override
+        public ControlEvent decode(InputStream in, Source<ControlEvent, SourceType> source) throws IOException {
+
+            DataInputStream dis = new DataInputStream(in);
+
+            return ControlEventType.values()[(int) readVarint(dis)].parse(dis, source);
+        }
+    };
+
+    /**
+     * Encodes the given {@link ControlEvent} onto the given {@link OutputStream}.
+     */
+    abstract public void encode(ControlEvent evt, OutputStream out) throws IOException;
+
+    /**
+     * Decodes a {@link ControlEvent} from the given {@link InputStream}.
+     */
+    abstract public ControlEvent decode(InputStream in, Source<ControlEvent, SourceType> source) throws IOException;
+
+    /**
+     * Encodes the given {@link ControlEvent}.
+     */
+    public byte[] encode(ControlEvent evt) {
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+
+        try {
+
+            encode(evt, bos);
+
+        } catch (IOException e) {
+
+            throw new RuntimeException(e);
+        }
+
+        return bos.toByteArray();
+    }
+
+    /**
+     * Decodes a {@link ControlEvent} from the given bytes.
+     */
+    public ControlEvent decode(byte[] data, Source<ControlEvent, SourceType> source) {
+
+        try {
+
+            return decode(new ByteArrayInputStream(data), source);
+
+        } catch (IOException e) {
+
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Writes a nonnegative integer as a varint, seven bits at a time, least significant group first.
+     */
+    final public static void writeVarint(DataOutput out, long value) throws IOException {
+
+        for (; (value & ~0x7FL) != 0; value >>>= 7) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+        }
+
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Reads a varint.
+     */
+    final public static long readVarint(DataInput in) throws IOException {
+
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+
+            int b = in.readUnsignedByte();
+
+            value |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Writes a length-prefixed byte array.
+     */
+    final public static void writeBytes(DataOutput out, byte[] data) throws IOException {
+
+        writeVarint(out, data.length);
+        out.write(data);
+    }
+
+    /**
+     * Reads a length-prefixed byte array.
+     */
+    final public static byte[] readBytes(DataInput in) throws IOException {
+
+        long length = readVarint(in);
+
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Invalid length");
+        }
+
+        byte[] data = new byte[(int) length];
+        in.readFully(data);
+
+        return data;
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string.
+     */
+    final public static void writeString(DataOutput out, String s) throws IOException {
+        writeBytes(out, s.getBytes("UTF-8"));
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string.
+     */
+    final public static String readString(DataInput in) throws IOException {
+        return new String(readBytes(in), "UTF-8");
+    }
+
+    /**
+     * Writes a DOM {@link Node} as length-prefixed XML text, or as just its name if it is an empty element.
+     */
+    final public static void writeNode(DataOutput out, Node node) throws IOException {
+
+        boolean empty = !node.hasChildNodes() && !node.hasAttributes();
+
+        out.writeBoolean(empty);
+        writeString(out, empty ? node.getNodeName() : XmlBase.toString(node));
+    }
+
+    /**
+     * Reads a DOM {@link Node} written by {@link #writeNode(DataOutput, Node)}.
+     */
+    final public static Node readNode(DataInput in) throws IOException {
+
+        boolean empty = in.readBoolean();
+        String s = readString(in);
+
+        return empty ? DapperBase.newDocument().createElement(s) : DapperBase.parse(s).getDocumentElement();
+    }
+}
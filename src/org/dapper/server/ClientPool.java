@@ -0,0 +1,412 @@
+/**
+ * <p>
+ * Copyright (c) 2010 The Regents of the University of California<br>
+ * All rights reserved.
+ * </p>
+ * <p>
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ * </p>
+ * <ul>
+ * <li>Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.</li>
+ * <li>Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.</li>
+ * <li>Neither the name of the author nor the names of any contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.</li>
+ * </ul>
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * </p>
+ */
+
+package org.dapper.server;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.dapper.server.flow.FlowNode;
+import org.dapper.util.MatchingAlgorithm;
+import org.dapper.util.Requirement;
+
+/**
+ * A pool of waiting clients bucketed by domain. Since clusters tend to have few distinct domains, the outcome of
+ * matching a domain {@link Pattern} against a domain is memoized, and matching considers interchangeable clients of the
+ * same domain only as many times as there are requirements.
+ * 
+ * @author Roy Liu
+ */
+public class ClientPool implements Iterable<ClientState> {
+
+    final Map<String, Set<ClientState>> domainMap;
+    final Map<String, Map<String, Boolean>> memoMap;
+
+    int size;
+
+    /**
+     * Default constructor.
+     */
+    public ClientPool() {
+
+        this.domainMap = new HashMap<String, Set<ClientState>>();
+        this.memoMap = new HashMap<String, Map<String, Boolean>>();
+
+        this.size = 0;
+    }
+
+    /**
+     * Adds a client.
+     * 
+     * @return {@code true} if and only if the client was not already present.
+     */
+    public boolean add(ClientState csh) {
+
+        String domain = csh.getDomain();
+
+        Set<ClientState> clients = this.domainMap.get(domain);
+
+        if (clients == null) {
+
+            clients = new LinkedHashSet<ClientState>();
+            this.domainMap.put(domain, clients);
+        }
+
+        if (!clients.add(csh)) {
+            return false;
+        }
+
+        this.size++;
+
+        return true;
+    }
+
+    /**
+     * Removes a client.
+     * 
+     * @return {@code true} if and only if the client was present.
+     */
+    public boolean remove(ClientState csh) {
+
+        String domain = csh.getDomain();
+
+        Set<ClientState> clients = this.domainMap.get(domain);
+
+        if (clients == null || !clients.remove(csh)) {
+            return false;
+        }
+
+        if (clients.isEmpty()) {
+            this.domainMap.remove(domain);
+        }
+
+        this.size--;
+
+        return true;
+    }
+
+    /**
+     * Gets whether the given client is present.
+     */
+    public boolean contains(ClientState csh) {
+
+        Set<ClientState> clients = this.domainMap.get(csh.getDomain());
+
+        return clients != null && clients.contains(csh);
+    }
+
+    /**
+     * Gets the number of clients.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets whether the given {@link FlowNode}'s requirement is satisfied by clients of the given domain.
+     */
+    public boolean isSatisfied(FlowNode flowNode, String domain) {
+
+        Pattern pattern = flowNode.getDomainPattern();
+
+        if (pattern == null) {
+            return true;
+        }
+
+        String key = getKey(pattern);
+
+        Map<String, Boolean> domainMemoMap = this.memoMap.get(key);
+
+        if (domainMemoMap == null) {
+
+            domainMemoMap = new HashMap<String, Boolean>();
+            this.memoMap.put(key, domainMemoMap);
+        }
+
+        Boolean satisfied = domainMemoMap.get(domain);
+
+        if (satisfied == null) {
+
+            satisfied = pattern.matcher(domain).matches();
+            domainMemoMap.put(domain, satisfied);
+        }
+
+        return satisfied;
+    }
+
+    /**
+     * Gets whether this pool has enough clients to satisfy the given {@link FlowNode}s at once. Each distinct domain
+     * {@link Pattern} must match domains holding at least as many clients as there are {@link FlowNode}s bearing it.
+     */
+    public boolean isFeasible(Collection<FlowNode> flowNodes) {
+
+        if (flowNodes.size() > this.size) {
+            return false;
+        }
+
+        Map<String, FlowNode> representativeMap = new HashMap<String, FlowNode>();
+        Map<String, Integer> demandMap = new HashMap<String, Integer>();
+
+        for (FlowNode flowNode : flowNodes) {
+
+            if (flowNode.isTrivial()) {
+                continue;
+            }
+
+            String key = getKey(flowNode.getDomainPattern());
+
+            Integer demand = demandMap.get(key);
+
+            if (demand == null) {
+
+                representativeMap.put(key, flowNode);
+                demand = 0;
+            }
+
+            demandMap.put(key, demand + 1);
+        }
+
+        for (Entry<String, Integer> entry : demandMap.entrySet()) {
+
+            FlowNode representative = representativeMap.get(entry.getKey());
+
+            int supply = 0;
+
+            for (Entry<String, Set<ClientState>> domainEntry : this.domainMap.entrySet()) {
+
+                if (isSatisfied(representative, domainEntry.getKey())) {
+                    supply += domainEntry.getValue().size();
+                }
+            }
+
+            if (supply < entry.getValue()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Matches the given {@link FlowNode}s with clients from this pool, save for the excluded ones.
+     */
+    public Map<FlowNode, ClientState> match(Collection<FlowNode> flowNodes, MatchingAlgorithm matching, //
+            Set<ClientState> excluded) {
+        return match(flowNodes, matching, excluded, Collections.<FlowNode, Set<InetAddress>> emptyMap());
+    }
+
+    /**
+     * Matches the given {@link FlowNode}s with clients from this pool, save for the excluded ones. {@link FlowNode}s
+     * with entries in the given host map may only be matched with clients residing on one of the associated hosts.
+     */
+    public Map<FlowNode, ClientState> match(Collection<FlowNode> flowNodes, MatchingAlgorithm matching, //
+            Set<ClientState> excluded, Map<FlowNode, Set<InetAddress>> hostsMap) {
+
+        int nFlowNodes = flowNodes.size();
+
+        Set<InetAddress> allHosts = new HashSet<InetAddress>();
+
+        for (Set<InetAddress> hosts : hostsMap.values()) {
+            allHosts.addAll(hosts);
+        }
+
+        // Clients of the same domain are interchangeable, so consider no more of them than there are requirements.
+        // The exception is clients on preferred hosts, which are not interchangeable with the rest.
+        List<ClientState> candidates = new ArrayList<ClientState>();
+
+        for (Set<ClientState> clients : this.domainMap.values()) {
+
+            int nCandidates = 0;
+
+            for (ClientState csh : clients) {
+
+                if (excluded.contains(csh)) {
+                    continue;
+                }
+
+                if (allHosts.contains(getHost(csh))) {
+
+                    candidates.add(csh);
+
+                } else if (nCandidates < nFlowNodes) {
+
+                    candidates.add(csh);
+                    nCandidates++;
+
+                } else if (allHosts.isEmpty()) {
+
+                    break;
+                }
+            }
+        }
+
+        // Compute the satisfying domains once per distinct pattern.
+        Map<String, Set<String>> patternDomainsMap = new HashMap<String, Set<String>>();
+        Map<Requirement<ClientState>, FlowNode> requirementMap = new HashMap<Requirement<ClientState>, FlowNode>();
+
+        for (FlowNode flowNode : flowNodes) {
+
+            Set<InetAddress> hosts = hostsMap.get(flowNode);
+
+            if (flowNode.isTrivial()) {
+
+                requirementMap.put((hosts != null) ? new DomainRequirement(null, hosts) : flowNode, flowNode);
+
+                continue;
+            }
+
+            String key = getKey(flowNode.getDomainPattern());
+
+            Set<String> domains = patternDomainsMap.get(key);
+
+            if (domains == null) {
+
+                domains = new HashSet<String>();
+
+                for (String domain : this.domainMap.keySet()) {
+
+                    if (isSatisfied(flowNode, domain)) {
+                        domains.add(domain);
+                    }
+                }
+
+                patternDomainsMap.put(key, domains);
+            }
+
+            requirementMap.put(new DomainRequirement(domains, hosts), flowNode);
+        }
+
+        Map<FlowNode, ClientState> res = new HashMap<FlowNode, ClientState>();
+
+        for (Entry<Requirement<ClientState>, ClientState> entry : //
+        matching.match(requirementMap.keySet(), candidates).entrySet()) {
+            res.put(requirementMap.get(entry.getKey()), entry.getValue());
+        }
+
+        return res;
+    }
+
+    /**
+     * Gets a key identifying the given domain {@link Pattern}. Since flags such as {@link Pattern#CASE_INSENSITIVE}
+     * change what a {@link Pattern} matches, they are part of the key along with the source.
+     * 
+     * @return the key, or {@code null} if the {@link Pattern} is {@code null}.
+     */
+    final public static String getKey(Pattern pattern) {
+        return (pattern != null) ? String.format("%d:%s", pattern.flags(), pattern.pattern()) : null;
+    }
+
+    /**
+     * Gets the host on which the given client resides, or {@code null} if unknown.
+     */
+    final public static InetAddress getHost(ClientState csh) {
+
+        InetSocketAddress address = csh.getAddress();
+
+        return (address != null) ? address.getAddress() : null;
+    }
+
+    @Override
+    public Iterator<ClientState> iterator() {
+
+        final Iterator<Set<ClientState>> domainItr = this.domainMap.values().iterator();
+
+        return new Iterator<ClientState>() {
+
+            Iterator<ClientState> itr = null;
+
+            @Override
+            public boolean hasNext() {
+
+                for (; (this.itr == null || !this.itr.hasNext()) && domainItr.hasNext();) {
+                    this.itr = domainItr.next().iterator();
+                }
+
+                return this.itr != null && this.itr.hasNext();
+            }
+
+            @Override
+            public ClientState next() {
+
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                return this.itr.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * A {@link Requirement} satisfied by clients belonging to any of a precomputed set of domains and, optionally,
+     * residing on any of a set of hosts. A {@code null} set means no restriction.
+     */
+    protected static class DomainRequirement implements Requirement<ClientState> {
+
+        final Set<String> domains;
+        final Set<InetAddress> hosts;
+
+        /**
+         * Default constructor.
+         */
+        protected DomainRequirement(Set<String> domains, Set<InetAddress> hosts) {
+
+            this.domains = domains;
+            this.hosts = hosts;
+        }
+
+        @Override
+        public boolean isSatisfied(ClientState satisfier) {
+            return (this.domains == null || this.domains.contains(satisfier.getDomain())) //
+                    && (this.hosts == null || this.hosts.contains(getHost(satisfier)));
+        }
+
+        @Override
+        public boolean isTrivial() {
+            return false;
+        }
+    }
+}
@@ -29,7 +29,6 @@
 package org.dapper.server;
 
 import java.net.InetSocketAddress;
-import java.util.TimerTask;
 
 import org.dapper.DapperBase;
 import org.dapper.client.ClientStatus;
@@ -38,6 +37,8 @@ import org.dapper.event.ControlEvent;
 import org.dapper.event.ControlEventHandler;
 import org.dapper.event.TimeoutEvent;
 import org.dapper.server.flow.FlowNode;
+import org.dapper.util.TimingWheel.Action;
+import org.dapper.util.TimingWheel.Timeout;
 import org.shared.event.EnumStatus;
 import org.shared.event.Handler;
 import org.shared.parallel.Handle;
@@ -57,8 +58,9 @@ public class ClientState //
 
     InetSocketAddress address;
 
+    final Timeout timeoutHandle;
+
     Object timeoutToken;
-    TimerTask timeoutTask;
 
     ClientStatus status;
 
@@ -82,7 +84,17 @@ public class ClientState //
         this.address = null;
         this.flowNode = null;
         this.timeoutToken = null;
-        this.timeoutTask = null;
+
+        // The handle is reused across timeouts, and the token distinguishes stale expirations from current ones.
+        this.timeoutHandle = base.getTimer().createTimeout(new Action() {
+
+            @Override
+            public void run(Object tag) {
+
+                ClientState csh = ClientState.this;
+                csh.handler.onLocal(new TimeoutEvent(csh, tag, csh.handler));
+            }
+        });
         this.domain = null;
         this.idle = false;
 
@@ -146,7 +158,13 @@ public class ClientState //
 
     @Override
     public void setStatus(ClientStatus status) {
+
         this.status = status;
+
+        // Keep the node's view current, unless this client runs a backup copy of it.
+        if (this.flowNode != null && this.flowNode.getClientState() == this) {
+            this.flowNode.setClientStatus(status);
+        }
     }
 
     /**
@@ -196,11 +214,8 @@ public class ClientState //
      */
     public void timeout(long timeout) {
 
-        untimeout();
-
         this.timeoutToken = new Object();
-        this.timeoutTask = this.base.scheduleEvent( //
-                (ControlEvent) new TimeoutEvent(this, this.timeoutToken, this.handler), timeout);
+        this.timeoutHandle.schedule(timeout, this.timeoutToken);
     }
 
     /**
@@ -212,7 +227,7 @@ public class ClientState //
         if (this.timeoutToken != null) {
 
             this.timeoutToken = null;
-            this.timeoutTask.cancel();
+            this.timeoutHandle.cancel();
         }
     }
 
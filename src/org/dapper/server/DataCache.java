@@ -0,0 +1,239 @@
+/**
+ * <p>
+ * Copyright (c) 2010 The Regents of the University of California<br>
+ * All rights reserved.
+ * </p>
+ * <p>
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ * </p>
+ * <ul>
+ * <li>Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.</li>
+ * <li>Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.</li>
+ * <li>Neither the name of the author nor the names of any contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.</li>
+ * </ul>
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * </p>
+ */
+
+package org.dapper.server;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.dapper.server.flow.Flow;
+import org.dapper.util.HashUtilities;
+import org.shared.util.IoBase;
+
+/**
+ * A thread-safe cache of class path entries read on behalf of {@link Flow}s. Each {@link Flow} has its own
+ * size-bounded LRU cache, and concurrent requests for the same entry share a single read. Entries are hashed as they
+ * are read, so that the content hash comes at no extra cost to the requester.
+ * 
+ * @author Roy Liu
+ */
+public class DataCache {
+
+    /**
+     * A class path entry along with its content hash.
+     */
+    public static class Content {
+
+        final byte[] data;
+        final String hash;
+
+        /**
+         * Default constructor.
+         */
+        protected Content(byte[] data) {
+
+            this.data = data;
+            this.hash = HashUtilities.hash(data);
+        }
+
+        /**
+         * Gets the data.
+         */
+        public byte[] getData() {
+            return this.data;
+        }
+
+        /**
+         * Gets the content hash.
+         */
+        public String getHash() {
+            return this.hash;
+        }
+    }
+
+    /**
+     * A per-{@link Flow} LRU cache.
+     */
+    @SuppressWarnings("serial")
+    protected static class FlowCache extends LinkedHashMap<String, FutureTask<Content>> {
+
+        long size;
+
+        /**
+         * Default constructor.
+         */
+        protected FlowCache() {
+            super(16, 0.75f, true);
+
+            this.size = 0;
+        }
+    }
+
+    final Map<Flow, FlowCache> flowMap;
+    final long maxSize;
+
+    /**
+     * Default constructor.
+     * 
+     * @param maxSize
+     *            the capacity in bytes of each {@link Flow}'s cache.
+     */
+    public DataCache(long maxSize) {
+
+        // Weak keys, in case the outside world loses all strong references to a flow.
+        this.flowMap = new WeakHashMap<Flow, FlowCache>();
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the given class path entry, reading and hashing it from the given {@link ClassLoader} if necessary.
+     * 
+     * @throws Exception
+     *             when the entry could not be read.
+     */
+    public Content get(Flow flow, final ClassLoader cl, final String pathname) throws Exception {
+
+        final FutureTask<Content> task;
+        final boolean owner;
+
+        synchronized (this) {
+
+            FlowCache fc = this.flowMap.get(flow);
+
+            if (fc == null) {
+
+                fc = new FlowCache();
+                this.flowMap.put(flow, fc);
+            }
+
+            FutureTask<Content> existing = fc.get(pathname);
+
+            if (existing == null) {
+
+                task = new FutureTask<Content>(new Callable<Content>() {
+
+                    @Override
+                    public Content call() throws Exception {
+                        return new Content(IoBase.getBytes(cl.getResourceAsStream(pathname)));
+                    }
+                });
+
+                fc.put(pathname, task);
+
+                owner = true;
+
+            } else {
+
+                task = existing;
+
+                owner = false;
+            }
+        }
+
+        // Only the first requester reads; everyone else waits on the result.
+        if (owner) {
+
+            task.run();
+
+            account(flow, pathname, task);
+        }
+
+        try {
+
+            return task.get();
+
+        } catch (ExecutionException e) {
+
+            Throwable cause = e.getCause();
+            throw (cause instanceof Exception) ? (Exception) cause : e;
+        }
+    }
+
+    /**
+     * Accounts for a completed read, evicting least recently used entries as necessary. Failed reads aren't cached.
+     */
+    protected synchronized void account(Flow flow, String pathname, FutureTask<Content> task) {
+
+        FlowCache fc = this.flowMap.get(flow);
+
+        // The flow's cache was removed in the meantime.
+        if (fc == null || fc.get(pathname) != task) {
+            return;
+        }
+
+        final byte[] data;
+
+        try {
+
+            data = task.get().getData();
+
+        } catch (Exception e) {
+
+            fc.remove(pathname);
+
+            return;
+        }
+
+        fc.size += data.length;
+
+        for (Iterator<Entry<String, FutureTask<Content>>> itr = fc.entrySet().iterator(); //
+        itr.hasNext() && fc.size > this.maxSize;) {
+
+            FutureTask<Content> evicted = itr.next().getValue();
+
+            // Reads in progress have yet to be accounted for.
+            if (!evicted.isDone()) {
+                continue;
+            }
+
+            try {
+
+                fc.size -= evicted.get().getData().length;
+
+            } catch (Exception e) {
+
+                // Failed reads are never accounted for.
+            }
+
+            itr.remove();
+        }
+    }
+
+    /**
+     * Removes the cache of the given {@link Flow}.
+     */
+    public synchronized void remove(Flow flow) {
+        this.flowMap.remove(flow);
+    }
+}
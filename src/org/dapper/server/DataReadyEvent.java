@@ -0,0 +1,135 @@
+/**
+ * <p>
+ * Copyright (c) 2010 The Regents of the University of California<br>
+ * All rights reserved.
+ * </p>
+ * <p>
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ * </p>
+ * <ul>
+ * <li>Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.</li>
+ * <li>Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.</li>
+ * <li>Neither the name of the author nor the names of any contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.</li>
+ * </ul>
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * </p>
+ */
+
+package org.dapper.server;
+
+import static org.dapper.event.ControlEvent.ControlEventType.DATA_READY;
+
+import org.dapper.event.BaseControlEvent;
+import org.dapper.event.ControlEvent;
+import org.dapper.event.DataEvent;
+import org.dapper.event.SourceType;
+import org.dapper.server.flow.FlowNode;
+import org.shared.event.Source;
+
+/**
+ * A subclass of {@link ControlEvent} for posting the outcome of a data request, read off of the processing thread,
+ * back to the {@link ServerProcessor}. It also hands back data whose side channel transfer failed, so that it may be
+ * inlined in the control stream instead.
+ * 
+ * @author Roy Liu
+ */
+public class DataReadyEvent extends BaseControlEvent {
+
+    final DataEvent request;
+    final FlowNode flowNode;
+    final byte[] data;
+    final String hash;
+    final Throwable exception;
+    final boolean inline;
+
+    /**
+     * Default constructor.
+     * 
+     * @param data
+     *            the data, or {@code null} if the request failed.
+     * @param hash
+     *            the content hash of the data, or {@code null} if the request failed.
+     * @param exception
+     *            the reason for failure, or {@code null} if the request succeeded.
+     */
+    public DataReadyEvent(DataEvent request, FlowNode flowNode, byte[] data, String hash, Throwable exception, //
+            Source<ControlEvent, SourceType> source) {
+        this(request, flowNode, data, hash, exception, false, source);
+    }
+
+    /**
+     * Alternate constructor for data to be inlined in the control stream.
+     */
+    public DataReadyEvent(DataEvent request, FlowNode flowNode, byte[] data, boolean inline, //
+            Source<ControlEvent, SourceType> source) {
+        this(request, flowNode, data, null, null, inline, source);
+    }
+
+    /**
+     * Internal constructor.
+     */
+    protected DataReadyEvent(DataEvent request, FlowNode flowNode, byte[] data, String hash, Throwable exception, //
+            boolean inline, Source<ControlEvent, SourceType> source) {
+        super(DATA_READY, source);
+
+        this.request = request;
+        this.flowNode = flowNode;
+        this.data = data;
+        this.hash = hash;
+        this.exception = exception;
+        this.inline = inline;
+    }
+
+    /**
+     * Gets the original request.
+     */
+    public DataEvent getRequest() {
+        return this.request;
+    }
+
+    /**
+     * Gets the {@link FlowNode} on whose behalf the request was made.
+     */
+    public FlowNode getFlowNode() {
+        return this.flowNode;
+    }
+
+    /**
+     * Gets the data.
+     */
+    public byte[] getData() {
+        return this.data;
+    }
+
+    /**
+     * Gets the content hash of the data.
+     */
+    public String getHash() {
+        return this.hash;
+    }
+
+    /**
+     * Gets the reason for failure.
+     */
+    public Throwable getException() {
+        return this.exception;
+    }
+
+    /**
+     * Gets whether the data, having failed to go over a side channel, is to be inlined in the control stream.
+     */
+    public boolean isInline() {
+        return this.inline;
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ * <p>
+ * Copyright (c) 2010 The Regents of the University of California<br>
+ * All rights reserved.
+ * </p>
+ * <p>
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ * </p>
+ * <ul>
+ * <li>Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.</li>
+ * <li>Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.</li>
+ * <li>Neither the name of the author nor the names of any contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.</li>
+ * </ul>
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * </p>
+ */
+
+package org.dapper.server;
+
+import static org.dapper.Constants.REQUEST_TIMEOUT_MILLIS;
+import static org.shared.net.ConnectionManager.InitializationType.CONNECT;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.net.InetSocketAddress;
+
+import org.dapper.DapperBase;
+import org.dapper.event.DataEvent;
+import org.dapper.server.flow.FlowNode;
+import org.dapper.util.TimingWheel.Timeout;
+import org.shared.net.SocketConnection;
+import org.shared.net.handler.SynchronousHandler;
+import org.shared.util.IoBase;
+
+/**
+ * A task for pushing bulk data to a client over a dedicated TCP connection, so that large transfers neither bloat nor
+ * hold up the control stream. Should the connection fail, the data goes back to the {@link ServerProcessor}, which
+ * inlines it in the control stream if the client still awaits it; the client only accepts side channel data that
+ * arrives in full.
+ * 
+ * @author Roy Liu
+ */
+public class DataSender implements Runnable, Closeable {
+
+    final DapperBase base;
+    final ServerProcessor sp;
+    final DataEvent request;
+    final FlowNode flowNode;
+    final InetSocketAddress address;
+    final byte[] data;
+
+    Thread thread;
+
+    /**
+     * Default constructor.
+     * 
+     * @param request
+     *            the data request, whose side channel identifier heads the stream.
+     * @param flowNode
+     *            the {@link FlowNode} on whose behalf the request was made.
+     */
+    public DataSender(DapperBase base, ServerProcessor sp, DataEvent request, FlowNode flowNode, //
+            InetSocketAddress address, byte[] data) {
+
+        this.base = base;
+        this.sp = sp;
+        this.request = request;
+        this.flowNode = flowNode;
+        this.address = address;
+        this.data = data;
+
+        this.thread = null;
+    }
+
+    /**
+     * Interrupts the transfer, if still in progress.
+     */
+    @Override
+    public synchronized void close() {
+
+        if (this.thread != null) {
+            this.thread.interrupt();
+        }
+    }
+
+    /**
+     * Runs the sender.
+     */
+    @Override
+    public void run() {
+
+        synchronized (this) {
+            this.thread = Thread.currentThread();
+        }
+
+        SynchronousHandler<SocketConnection> sh = this.base.createStreamHandler();
+
+        // Before proceeding, schedule a timeout.
+        Timeout timeout = this.base.getTimer().schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                close();
+            }
+
+        }, REQUEST_TIMEOUT_MILLIS);
+
+        try {
+
+            this.base.getManager().init(CONNECT, sh, this.address).get();
+
+            // Write the header, followed by the length-prefixed data.
+            DataOutputStream out = new DataOutputStream(sh.getOutputStream());
+            out.write(this.request.getChannel().getBytes());
+            out.writeInt(this.data.length);
+            out.write(this.data);
+            out.flush();
+
+        } catch (Throwable t) {
+
+            Server.getLog().info(String.format("Side channel to %s failed; inlining \"%s\" instead.", //
+                    this.address, this.request.getPathname()), t);
+
+            // Leave it to the processing thread to decide whether the client still awaits the data.
+            this.sp.onLocal(new DataReadyEvent(this.request, this.flowNode, this.data, true, this.sp));
+
+        } finally {
+
+            IoBase.close(sh);
+
+            timeout.cancel();
+
+            synchronized (this) {
+                this.thread = null;
+            }
+
+            // Clear any interrupt, lest it carry over to the next task of the pooled thread.
+            Thread.interrupted();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * <p>
+ * Copyright (c) 2010 The Regents of the University of California<br>
+ * All rights reserved.
+ * </p>
+ * <p>
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ * </p>
+ * <ul>
+ * <li>Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.</li>
+ * <li>Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.</li>
+ * <li>Neither the name of the author nor the names of any contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.</li>
+ * </ul>
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * </p>
+ */
+
+package org.dapper.server;
+
+import java.util.Comparator;
+
+import org.dapper.server.flow.FlowNode;
+import org.dapper.server.flow.LogicalNode;
+
+/**
+ * An enumeration of policies for ordering {@link LogicalNode}s that are eligible for execution. Nodes that compare
+ * lower are given the first opportunity at waiting clients.
+ * 
+ * @author Roy Liu
+ */
+public enum PriorityPolicy implements Comparator<LogicalNode> {
+
+    /**
+     * Prefers {@link LogicalNode}s representing small {@link FlowNode} equivalence classes, which are the easiest to
+     * satisfy.
+     */
+    SIZE {
+
+        @Override
+        public int compare(LogicalNode l1, LogicalNode l2) {
+            return l1.getFlowNodes().size() - l2.getFlowNodes().size();
+        }
+    }, //
+
+    /**
+     * Prefers {@link LogicalNode}s with the longest remaining paths to the sinks of their flows, since delaying them
+     * delays everything downstream. Ties are broken in favor of small equivalence classes.
+     */
+    CRITICAL_PATH {
+
+        @Override
+        public int compare(LogicalNode l1, LogicalNode l2) {
+
+            int cmp = l2.getHeight() - l1.getHeight();
+
+            return (cmp != 0) ? cmp : SIZE.compare(l1, l2);
+        }
+    };
+}
@@ -0,0 +1,616 @@
+/**
+ * <p>
+ * Copyright (c) 2010 The Regents of the University of California<br>
+ * All rights reserved.
+ * </p>
+ * <p>
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ * </p>
+ * <ul>
+ * <li>Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.</li>
+ * <li>Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.</li>
+ * <li>Neither the name of the author nor the names of any contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.</li>
+ * </ul>
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * </p>
+ */
+
+package org.dapper.server;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import org.dapper.server.flow.Flow;
+import org.dapper.server.flow.FlowNode;
+import org.dapper.server.flow.LogicalNode;
+import org.shared.util.Control;
+
+/**
+ * An indexed priority structure for {@link LogicalNode}s that are eligible for execution. Nodes are either <i>dirty</i>
+ * and awaiting examination by the scheduler, or <i>blocked</i> because their requirements could not be met by the
+ * clients available when they were last examined. Since a blocked node can only become satisfiable when a client able
+ * to fulfill one of its requirements arrives, blocked nodes are indexed by domain {@link Pattern} and only revisited
+ * when such a client shows up. Even then, each {@link Flow}'s blocked nodes are revisited in priority order only for as
+ * long as there are waiting clients to go around. Nodes <i>held</i> back for other reasons, such as quotas, don't
+ * count against this budget, and are only revisited when explicitly woken.
+ * 
+ * @author Roy Liu
+ */
+public class ReadyQueue implements Iterable<LogicalNode> {
+
+    final Comparator<LogicalNode> comparator;
+    final Comparator<Entry> entryComparator;
+    final ClientPool clientPool;
+    final Map<LogicalNode, Entry> entryMap;
+    final SortedSet<Entry> dirtySet;
+    final Map<String, Bucket> bucketMap;
+    final Map<Flow, FlowEntries> flowMap;
+    final SortedSet<Entry> gangSet;
+    final Set<Bucket> overflowBuckets;
+
+    long counter;
+    int nFlowNodes;
+
+    /**
+     * Default constructor.
+     * 
+     * @param comparator
+     *            the {@link Comparator} that determines the order in which dirty nodes are examined.
+     * @param clientPool
+     *            the {@link ClientPool} whose memoized domain matches are consulted.
+     */
+    public ReadyQueue(final Comparator<LogicalNode> comparator, ClientPool clientPool) {
+
+        this.comparator = comparator;
+        this.clientPool = clientPool;
+        this.entryMap = new HashMap<LogicalNode, Entry>();
+
+        // Break ties by insertion order so that distinct nodes never compare as equal.
+        this.entryComparator = new Comparator<Entry>() {
+
+            @Override
+            public int compare(Entry e1, Entry e2) {
+
+                int cmp = comparator.compare(e1.node, e2.node);
+
+                return (cmp != 0) ? cmp : (e1.sequence < e2.sequence) ? -1 : (e1.sequence > e2.sequence) ? 1 : 0;
+            }
+        };
+
+        this.dirtySet = new TreeSet<Entry>(this.entryComparator);
+
+        this.bucketMap = new HashMap<String, Bucket>();
+        this.flowMap = new HashMap<Flow, FlowEntries>();
+
+        // Gangs are ordered by age.
+        this.gangSet = new TreeSet<Entry>(new Comparator<Entry>() {
+
+            @Override
+            public int compare(Entry e1, Entry e2) {
+                return (e1.sequence < e2.sequence) ? -1 : (e1.sequence > e2.sequence) ? 1 : 0;
+            }
+        });
+
+        this.overflowBuckets = new HashSet<Bucket>();
+
+        this.counter = 0;
+        this.nFlowNodes = 0;
+    }
+
+    /**
+     * Adds a {@link LogicalNode} that has become eligible for execution.
+     * 
+     * @return {@code true} if and only if the node was not already present.
+     */
+    public boolean add(LogicalNode node) {
+
+        if (this.entryMap.containsKey(node)) {
+            return false;
+        }
+
+        Entry entry = new Entry(node, this.counter++);
+
+        this.entryMap.put(node, entry);
+        this.dirtySet.add(entry);
+
+        FlowEntries flowEntries = this.flowMap.get(entry.flow);
+
+        if (flowEntries == null) {
+
+            flowEntries = new FlowEntries();
+            this.flowMap.put(entry.flow, flowEntries);
+        }
+
+        flowEntries.entries.add(entry);
+        flowEntries.nFlowNodes += entry.nFlowNodes;
+
+        this.nFlowNodes += entry.nFlowNodes;
+
+        if (node.getFlowNodes().size() > 1) {
+            this.gangSet.add(entry);
+        }
+
+        for (FlowNode flowNode : node.getFlowNodes()) {
+
+            String key = ClientPool.getKey(flowNode.getDomainPattern());
+
+            Bucket bucket = this.bucketMap.get(key);
+
+            if (bucket == null) {
+
+                bucket = new Bucket(flowNode);
+                this.bucketMap.put(key, bucket);
+            }
+
+            if (bucket.entries.add(entry)) {
+                entry.keys.add(key);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Removes a {@link LogicalNode}.
+     * 
+     * @return {@code true} if and only if the node was present.
+     */
+    public boolean remove(LogicalNode node) {
+
+        Entry entry = this.entryMap.remove(node);
+
+        if (entry == null) {
+            return false;
+        }
+
+        this.dirtySet.remove(entry);
+        this.gangSet.remove(entry);
+
+        unlinkBlocked(entry);
+
+        FlowEntries flowEntries = this.flowMap.get(entry.flow);
+
+        Control.assertTrue(flowEntries.entries.remove(entry));
+        flowEntries.nFlowNodes -= entry.nFlowNodes;
+
+        if (flowEntries.entries.isEmpty()) {
+            this.flowMap.remove(entry.flow);
+        }
+
+        this.nFlowNodes -= entry.nFlowNodes;
+
+        for (String key : entry.keys) {
+
+            Bucket bucket = this.bucketMap.get(key);
+
+            Control.assertTrue(bucket.entries.remove(entry));
+
+            if (bucket.entries.isEmpty()) {
+
+                this.bucketMap.remove(key);
+                this.overflowBuckets.remove(bucket);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Removes all given {@link LogicalNode}s.
+     */
+    public void removeAll(Collection<LogicalNode> nodes) {
+
+        for (LogicalNode node : nodes) {
+            remove(node);
+        }
+    }
+
+    /**
+     * Removes all {@link LogicalNode}s belonging to the given {@link Flow}, in time proportional to their number.
+     */
+    public void removeFlow(Flow flow) {
+
+        FlowEntries flowEntries = this.flowMap.get(flow);
+
+        if (flowEntries == null) {
+            return;
+        }
+
+        for (Entry entry : new ArrayList<Entry>(flowEntries.entries)) {
+            remove(entry.node);
+        }
+    }
+
+    /**
+     * Removes all {@link LogicalNode}s belonging to the given {@link Flow} that aren't among the given ones, such as
+     * those merged away by an embedding. The rest keep their place.
+     */
+    public void retainFlow(Flow flow, Collection<LogicalNode> nodes) {
+
+        FlowEntries flowEntries = this.flowMap.get(flow);
+
+        if (flowEntries == null) {
+            return;
+        }
+
+        for (Entry entry : new ArrayList<Entry>(flowEntries.entries)) {
+
+            if (!nodes.contains(entry.node)) {
+                remove(entry.node);
+            }
+        }
+    }
+
+    /**
+     * Notifies this queue of a newly waiting client, and marks as dirty blocked nodes with requirements that it could
+     * fulfill. Each {@link Flow}'s nodes are taken in priority order, but only until their {@link FlowNode}s would
+     * exhaust the waiting clients, since the rest likely couldn't be dispatched anyway. Should the clients go unused
+     * regardless, {@link #wakeOverflow()} gives the rest their turn.
+     */
+    public void addClient(ClientState csh) {
+
+        // The waiting clients, including this one, bound the number of flow nodes that could be dispatched.
+        int capacity = this.clientPool.size();
+
+        List<Entry> wakeEntries = new ArrayList<Entry>();
+
+        for (Bucket bucket : this.bucketMap.values()) {
+
+            if (bucket.blockedMap.isEmpty() //
+                    || !this.clientPool.isSatisfied(bucket.representative, csh.getDomain())) {
+                continue;
+            }
+
+            // Budget per flow, lest the top nodes of one flow crowd out those of others before fair sharing gets to
+            // weigh in.
+            for (SortedSet<Entry> blockedEntries : bucket.blockedMap.values()) {
+
+                int remaining = capacity;
+                int nWoken = 0;
+
+                for (Iterator<Entry> itr = blockedEntries.iterator(); itr.hasNext() && remaining > 0;) {
+
+                    Entry entry = itr.next();
+
+                    // Skip nodes too large for the clients on hand, so that they don't hold back smaller ones.
+                    if (entry.nFlowNodes > remaining) {
+                        continue;
+                    }
+
+                    remaining -= entry.nFlowNodes;
+                    nWoken++;
+
+                    wakeEntries.add(entry);
+                }
+
+                if (nWoken < blockedEntries.size()) {
+                    this.overflowBuckets.add(bucket);
+                }
+            }
+        }
+
+        for (Entry entry : wakeEntries) {
+            unblock(entry);
+        }
+    }
+
+    /**
+     * Marks as dirty the blocked nodes that client arrivals passed over for want of capacity. Meant for when clients are
+     * left waiting after the woken nodes have been examined, as those may have been unable to use the clients after
+     * all.
+     * 
+     * @return {@code true} if and only if any nodes were marked.
+     */
+    public boolean wakeOverflow() {
+
+        List<Entry> wakeEntries = new ArrayList<Entry>();
+
+        for (Bucket bucket : this.overflowBuckets) {
+
+            for (SortedSet<Entry> blockedEntries : bucket.blockedMap.values()) {
+                wakeEntries.addAll(blockedEntries);
+            }
+        }
+
+        this.overflowBuckets.clear();
+
+        for (Entry entry : wakeEntries) {
+            unblock(entry);
+        }
+
+        return !wakeEntries.isEmpty();
+    }
+
+    /**
+     * Marks as dirty all blocked or held nodes belonging to the given {@link Flow}, in case they were held back for
+     * reasons other than a shortage of suitable clients.
+     */
+    public void wakeFlow(Flow flow) {
+
+        FlowEntries flowEntries = this.flowMap.get(flow);
+
+        if (flowEntries == null) {
+            return;
+        }
+
+        for (Entry entry : flowEntries.entries) {
+            unblock(entry);
+        }
+    }
+
+    /**
+     * Marks the given {@link LogicalNode} as dirty if blocked or held.
+     */
+    public void wake(LogicalNode node) {
+
+        Entry entry = this.entryMap.get(node);
+
+        if (entry != null) {
+            unblock(entry);
+        }
+    }
+
+    /**
+     * Holds back the given {@link LogicalNode} for reasons other than a shortage of suitable clients. Until woken by
+     * {@link #wake(LogicalNode)} or {@link #wakeFlow(Flow)}, the node is neither examined nor counted against the
+     * clients that arrive.
+     */
+    public void hold(LogicalNode node) {
+
+        Entry entry = this.entryMap.get(node);
+
+        if (entry == null) {
+            return;
+        }
+
+        this.dirtySet.remove(entry);
+        unlinkBlocked(entry);
+
+        entry.held = true;
+    }
+
+    /**
+     * Gets whether some node in this queue has a requirement that the given client could fulfill.
+     */
+    public boolean isWanted(ClientState csh) {
+
+        for (Bucket bucket : this.bucketMap.values()) {
+
+            if (this.clientPool.isSatisfied(bucket.representative, csh.getDomain())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Polls the dirty nodes in priority order. Nodes returned are considered blocked unless subsequently removed.
+     */
+    public List<LogicalNode> poll() {
+
+        List<LogicalNode> res = new ArrayList<LogicalNode>(this.dirtySet.size());
+
+        for (Entry entry : this.dirtySet) {
+
+            entry.blocked = true;
+
+            for (String key : entry.keys) {
+
+                Map<Flow, SortedSet<Entry>> blockedMap = this.bucketMap.get(key).blockedMap;
+                SortedSet<Entry> blockedEntries = blockedMap.get(entry.flow);
+
+                if (blockedEntries == null) {
+
+                    blockedEntries = new TreeSet<Entry>(this.entryComparator);
+                    blockedMap.put(entry.flow, blockedEntries);
+                }
+
+                blockedEntries.add(entry);
+            }
+
+            res.add(entry.node);
+        }
+
+        this.dirtySet.clear();
+
+        return res;
+    }
+
+    /**
+     * Marks the given {@link Entry} as dirty, if blocked or held.
+     */
+    protected void unblock(Entry entry) {
+
+        if (!entry.blocked && !entry.held) {
+            return;
+        }
+
+        unlinkBlocked(entry);
+
+        entry.held = false;
+
+        this.dirtySet.add(entry);
+    }
+
+    /**
+     * Removes the given {@link Entry} from the blocked sets of its buckets, if blocked.
+     */
+    protected void unlinkBlocked(Entry entry) {
+
+        if (!entry.blocked) {
+            return;
+        }
+
+        entry.blocked = false;
+
+        for (String key : entry.keys) {
+
+            Map<Flow, SortedSet<Entry>> blockedMap = this.bucketMap.get(key).blockedMap;
+            SortedSet<Entry> blockedEntries = blockedMap.get(entry.flow);
+
+            Control.assertTrue(blockedEntries.remove(entry));
+
+            if (blockedEntries.isEmpty()) {
+                blockedMap.remove(entry.flow);
+            }
+        }
+    }
+
+    /**
+     * Gets whether the given {@link LogicalNode} is present.
+     */
+    public boolean contains(LogicalNode node) {
+        return this.entryMap.containsKey(node);
+    }
+
+    /**
+     * Gets the time at which the given {@link LogicalNode} was added.
+     */
+    public long getReadyTime(LogicalNode node) {
+        return this.entryMap.get(node).readyTime;
+    }
+
+    /**
+     * Gets the {@link LogicalNode}s spanning more than one {@link FlowNode}, longest waiting first.
+     */
+    public List<LogicalNode> getGangs() {
+
+        List<LogicalNode> res = new ArrayList<LogicalNode>(this.gangSet.size());
+
+        for (Entry entry : this.gangSet) {
+            res.add(entry.node);
+        }
+
+        return res;
+    }
+
+    /**
+     * Gets the number of nodes.
+     */
+    public int size() {
+        return this.entryMap.size();
+    }
+
+    /**
+     * Gets the number of {@link FlowNode}s spanned by all nodes.
+     */
+    public int getFlowNodeCount() {
+        return this.nFlowNodes;
+    }
+
+    /**
+     * Gets the number of {@link FlowNode}s spanned by the nodes belonging to the given {@link Flow}.
+     */
+    public int getFlowNodeCount(Flow flow) {
+
+        FlowEntries flowEntries = this.flowMap.get(flow);
+
+        return (flowEntries != null) ? flowEntries.nFlowNodes : 0;
+    }
+
+    /**
+     * Gets the number of dirty nodes.
+     */
+    public int getDirtyCount() {
+        return this.dirtySet.size();
+    }
+
+    @Override
+    public Iterator<LogicalNode> iterator() {
+        return Collections.unmodifiableSet(this.entryMap.keySet()).iterator();
+    }
+
+    /**
+     * A bookkeeping record for a {@link LogicalNode} in the queue.
+     */
+    protected static class Entry {
+
+        final LogicalNode node;
+        final Flow flow;
+        final long sequence;
+        final long readyTime;
+        final int nFlowNodes;
+        final Set<String> keys;
+
+        boolean blocked, held;
+
+        /**
+         * Default constructor.
+         */
+        protected Entry(LogicalNode node, long sequence) {
+
+            this.node = node;
+            this.flow = node.getFlow();
+            this.sequence = sequence;
+            this.readyTime = System.currentTimeMillis();
+            this.nFlowNodes = node.getFlowNodes().size();
+            this.keys = new HashSet<String>();
+
+            this.blocked = false;
+            this.held = false;
+        }
+    }
+
+    /**
+     * The {@link Entry}s belonging to a {@link Flow}, along with the number of {@link FlowNode}s they span.
+     */
+    protected static class FlowEntries {
+
+        final Set<Entry> entries;
+
+        int nFlowNodes;
+
+        /**
+         * Default constructor.
+         */
+        protected FlowEntries() {
+
+            this.entries = new HashSet<Entry>();
+            this.nFlowNodes = 0;
+        }
+    }
+
+    /**
+     * A group of {@link Entry}s whose nodes share a domain requirement, with the blocked ones kept in priority order
+     * for each {@link Flow}.
+     */
+    protected static class Bucket {
+
+        final FlowNode representative;
+        final Set<Entry> entries;
+        final Map<Flow, SortedSet<Entry>> blockedMap;
+
+        /**
+         * Default constructor.
+         */
+        protected Bucket(FlowNode representative) {
+
+            this.representative = representative;
+            this.entries = new HashSet<Entry>();
+            this.blockedMap = new HashMap<Flow, SortedSet<Entry>>();
+        }
+    }
+}
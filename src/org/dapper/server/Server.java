@@ -34,6 +34,9 @@ import static org.dapper.event.ControlEvent.ControlEventType.CREATE_USER_QUEUE;
 import static org.dapper.event.ControlEvent.ControlEventType.GET_FLOW_PROXY;
 import static org.dapper.event.ControlEvent.ControlEventType.GET_PENDING_COUNT;
 import static org.dapper.event.ControlEvent.ControlEventType.SET_AUTOCLOSE_IDLE;
+import static org.dapper.event.ControlEvent.ControlEventType.SET_LOCALITY_DELAY;
+import static org.dapper.event.ControlEvent.ControlEventType.SET_PROGRESS_INTERVAL;
+import static org.dapper.event.ControlEvent.ControlEventType.SET_REFRESH_WINDOW;
 import static org.shared.net.ConnectionManager.InitializationType.REGISTER;
 import static org.shared.net.Constants.DEFAULT_BACKLOG_SIZE;
 
@@ -54,11 +57,17 @@ import org.dapper.Constants;
 import org.dapper.DapperBase;
 import org.dapper.event.ControlEventHandler;
 import org.dapper.event.FlowEvent;
+import org.dapper.event.FlowEventBroadcaster.OverflowPolicy;
+import org.dapper.event.FlowEventFilter;
 import org.dapper.server.ServerProcessor.FlowBuildRequest;
 import org.dapper.server.ServerProcessor.FlowProxy;
+import org.dapper.server.ServerProcessor.UserQueueRequest;
 import org.dapper.server.flow.Flow;
 import org.dapper.server.flow.FlowBuilder;
 import org.dapper.server.flow.FlowNode;
+import org.dapper.server.flow.LogicalNode;
+import org.dapper.util.HopcroftKarpMatching;
+import org.dapper.util.MatchingAlgorithm;
 import org.shared.net.Connection;
 import org.shared.util.IoBase;
 import org.slf4j.Logger;
@@ -97,12 +106,17 @@ public class Server extends Thread implements Closeable {
      *            the server's {@link InetAddress} as it would appear to clients.
      * @param port
      *            the port to listen on.
+     * @param matching
+     *            the {@link MatchingAlgorithm} for pairing {@link FlowNode}s with waiting clients.
+     * @param policy
+     *            the {@link PriorityPolicy} for ordering {@link LogicalNode}s eligible for execution.
      * @throws UnknownHostException
      *             when the server's {@link InetAddress} could not be inferred.
      * @throws IOException
      *             when the underlying {@link ServerSocketChannel} could not be bound.
      */
-    public Server(InetAddress address, int port) throws UnknownHostException, IOException {
+    public Server(InetAddress address, int port, MatchingAlgorithm matching, PriorityPolicy policy) //
+            throws UnknownHostException, IOException {
         super("Server");
 
         this.ssChannel = ServerSocketChannel.open();
@@ -110,7 +124,7 @@ public class Server extends Thread implements Closeable {
 
         this.base = new DapperBase();
 
-        this.processor = new ServerProcessor((address != null) ? address : DapperBase.inferAddress(), //
+        this.processor = new ServerProcessor((address != null) ? address : DapperBase.inferAddress(), this.base, //
                 //
                 new Runnable() {
 
@@ -118,8 +132,9 @@ public class Server extends Thread implements Closeable {
                     public void run() {
                         IoBase.close(Server.this);
                     }
-                } //
-        );
+                }, //
+                //
+                matching, policy);
         this.processor.start();
 
         this.run = true;
@@ -127,6 +142,19 @@ public class Server extends Thread implements Closeable {
         start();
     }
 
+    /**
+     * Alternate constructor. Uses {@link HopcroftKarpMatching} as the {@link MatchingAlgorithm} and
+     * {@link PriorityPolicy#CRITICAL_PATH} as the {@link PriorityPolicy}.
+     * 
+     * @throws UnknownHostException
+     *             when the server's {@link InetAddress} could not be inferred.
+     * @throws IOException
+     *             when the underlying {@link ServerSocketChannel} could not be bound.
+     */
+    public Server(InetAddress address, int port) throws UnknownHostException, IOException {
+        this(address, port, new HopcroftKarpMatching(), PriorityPolicy.CRITICAL_PATH);
+    }
+
     /**
      * Alternate constructor. Listens on the default port value {@link Constants#DEFAULT_SERVER_PORT}.
      * 
@@ -165,6 +193,27 @@ public class Server extends Thread implements Closeable {
         return this.processor.request(CREATE_FLOW, new FlowBuildRequest(builder, cl, flowFlags));
     }
 
+    /**
+     * Creates a {@link Flow} that competes for clients with other {@link Flow}s in proportion to the given weight.
+     * 
+     * @param weight
+     *            the fair share weight.
+     * @param minClients
+     *            the number of clients the {@link Flow} is entitled to before fair sharing applies.
+     * @param maxClients
+     *            the maximum number of clients the {@link Flow} may occupy.
+     * @throws InterruptedException
+     *             when this operation is interrupted.
+     * @throws ExecutionException
+     *             when something goes awry.
+     */
+    public FlowProxy createFlow(FlowBuilder builder, ClassLoader cl, int flowFlags, //
+            double weight, int minClients, int maxClients) //
+            throws InterruptedException, ExecutionException {
+        return this.processor.request(CREATE_FLOW, //
+                new FlowBuildRequest(builder, cl, flowFlags, weight, minClients, maxClients));
+    }
+
     /**
      * Refreshes all {@link Flow}s.
      * 
@@ -204,6 +253,104 @@ public class Server extends Thread implements Closeable {
         return this;
     }
 
+    /**
+     * Sets the window in milliseconds over which refresh requests are batched into a single scheduling pass. A value
+     * of {@code 0} means that refreshes happen as soon as the event queue allows.
+     * 
+     * @throws InterruptedException
+     *             when this operation is interrupted.
+     * @throws ExecutionException
+     *             when something goes awry.
+     */
+    public Server setRefreshWindow(long refreshWindow) throws InterruptedException, ExecutionException {
+
+        this.processor.request(SET_REFRESH_WINDOW, Long.valueOf(refreshWindow));
+
+        return this;
+    }
+
+    /**
+     * Sets the delay in milliseconds for which a computation waits on clients residing on the hosts that produced its
+     * input handles before settling for any client. A value of {@code 0} means that local clients are preferred but
+     * never waited on.
+     * 
+     * @throws InterruptedException
+     *             when this operation is interrupted.
+     * @throws ExecutionException
+     *             when something goes awry.
+     */
+    public Server setLocalityDelay(long localityDelay) throws InterruptedException, ExecutionException {
+
+        this.processor.request(SET_LOCALITY_DELAY, Long.valueOf(localityDelay));
+
+        return this;
+    }
+
+    /**
+     * Sets the interval in milliseconds at which aggregated progress is broadcast for {@link Flow}s created with the
+     * {@link FlowEvent#F_FLOW_PROGRESS} flag.
+     * 
+     * @throws InterruptedException
+     *             when this operation is interrupted.
+     * @throws ExecutionException
+     *             when something goes awry.
+     */
+    public Server setProgressInterval(long progressInterval) throws InterruptedException, ExecutionException {
+
+        this.processor.request(SET_PROGRESS_INTERVAL, Long.valueOf(progressInterval));
+
+        return this;
+    }
+
+    /**
+     * Gets the number of refreshes requested.
+     */
+    public long getRefreshRequestCount() {
+        return this.processor.getRefreshRequestCount();
+    }
+
+    /**
+     * Gets the number of refreshes executed.
+     */
+    public long getRefreshCount() {
+        return this.processor.getRefreshCount();
+    }
+
+    /**
+     * Gets the number of speculative backup copies launched.
+     */
+    public long getBackupCount() {
+        return this.processor.getBackupCount();
+    }
+
+    /**
+     * Gets the number of speculative backup copies that finished before their originals.
+     */
+    public long getBackupWinCount() {
+        return this.processor.getBackupWinCount();
+    }
+
+    /**
+     * Gets the number of dispatched gangs, which are equivalence classes spanning more than one {@link FlowNode}.
+     */
+    public long getGangDispatchCount() {
+        return this.processor.getGangDispatchCount();
+    }
+
+    /**
+     * Gets the total time in milliseconds that dispatched gangs spent waiting for clients.
+     */
+    public long getGangWaitMillis() {
+        return this.processor.getGangWaitMillis();
+    }
+
+    /**
+     * Gets the longest time in milliseconds that a dispatched gang spent waiting for clients.
+     */
+    public long getMaxGangWaitMillis() {
+        return this.processor.getMaxGangWaitMillis();
+    }
+
     /**
      * Gets the number of additional clients required to saturate all pending computations.
      * 
@@ -234,6 +381,44 @@ public class Server extends Thread implements Closeable {
         return (BlockingQueue<FlowEvent<F, N>>) this.processor.request(CREATE_USER_QUEUE, (Object) null);
     }
 
+    /**
+     * Creates a new {@link Queue} for subscribing to {@link FlowEvent}s, which reacts to falling behind according to
+     * the given {@link OverflowPolicy}.
+     * 
+     * @param <F>
+     *            the {@link Flow} attachment type.
+     * @param <N>
+     *            the {@link FlowNode} attachment type.
+     * @throws InterruptedException
+     *             when this operation is interrupted.
+     * @throws ExecutionException
+     *             when something goes awry.
+     */
+    public <F, N> BlockingQueue<FlowEvent<F, N>> createFlowEventQueue(OverflowPolicy policy) //
+            throws InterruptedException, ExecutionException {
+        return createFlowEventQueue(FlowEventFilter.ALL, policy);
+    }
+
+    /**
+     * Creates a new {@link Queue} that only receives the {@link FlowEvent}s accepted by the given
+     * {@link FlowEventFilter}, and which reacts to falling behind according to the given {@link OverflowPolicy}.
+     * 
+     * @param <F>
+     *            the {@link Flow} attachment type.
+     * @param <N>
+     *            the {@link FlowNode} attachment type.
+     * @throws InterruptedException
+     *             when this operation is interrupted.
+     * @throws ExecutionException
+     *             when something goes awry.
+     */
+    @SuppressWarnings("unchecked")
+    public <F, N> BlockingQueue<FlowEvent<F, N>> createFlowEventQueue(FlowEventFilter filter, OverflowPolicy policy) //
+            throws InterruptedException, ExecutionException {
+        return (BlockingQueue<FlowEvent<F, N>>) this.processor.request(CREATE_USER_QUEUE, //
+                new UserQueueRequest(filter, policy));
+    }
+
     /**
      * Delegates to the underlying {@link ServerProcessor}.
      */
@@ -28,10 +28,19 @@
 
 package org.dapper.server;
 
+import static org.dapper.Constants.BULK_DATA_THRESHOLD;
 import static org.dapper.Constants.CLIENT_TIMEOUT_MILLIS;
+import static org.dapper.Constants.DATA_CACHE_SIZE;
+import static org.dapper.Constants.DATA_SERVICE_THREADS;
+import static org.dapper.Constants.DEFAULT_PROGRESS_INTERVAL_MILLIS;
+import static org.dapper.Constants.MAX_STEM_BLOCK_SIZE;
+import static org.dapper.Constants.MAX_RETIRED_LOADER_KEYS;
+import static org.dapper.Constants.MIN_SPECULATION_SAMPLES;
+import static org.dapper.Constants.SPECULATION_SLOWDOWN;
 import static org.dapper.event.ControlEvent.ControlEventType.EXECUTE;
 import static org.dapper.event.ControlEvent.ControlEventType.INIT;
 import static org.dapper.event.ControlEvent.ControlEventType.PREPARE;
+import static org.dapper.event.ControlEvent.ControlEventType.PROGRESS;
 import static org.dapper.event.ControlEvent.ControlEventType.REFRESH;
 
 import java.io.IOException;
@@ -40,14 +49,24 @@ import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.UUID;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -62,8 +81,12 @@ import org.dapper.event.ControlEventHandler;
 import org.dapper.event.DataEvent;
 import org.dapper.event.ErrorEvent;
 import org.dapper.event.ExecuteAckEvent;
+import org.dapper.event.FlowEvent;
 import org.dapper.event.ResetEvent;
+import org.dapper.event.ResourceEvent;
 import org.dapper.event.TimeoutEvent;
+import org.dapper.event.WireFormat;
+import org.dapper.server.DataCache.Content;
 import org.dapper.server.ServerProcessor.FlowBuildRequest;
 import org.dapper.server.ServerProcessor.FlowProxy;
 import org.dapper.server.ServerProcessor.RequestEvent;
@@ -72,15 +95,19 @@ import org.dapper.server.flow.EmbeddingCodelet;
 import org.dapper.server.flow.Flow;
 import org.dapper.server.flow.FlowBuilder;
 import org.dapper.server.flow.FlowEdge;
+import org.dapper.server.flow.FlowEdge.FlowEdgeType;
 import org.dapper.server.flow.FlowNode;
 import org.dapper.server.flow.FlowStatus;
+import org.dapper.server.flow.FlowStatusLog;
+import org.dapper.server.flow.FlowStatusLog.Change;
 import org.dapper.server.flow.FlowUtilities;
 import org.dapper.server.flow.HandleEdge;
 import org.dapper.server.flow.LogicalEdge;
 import org.dapper.server.flow.LogicalNode;
 import org.dapper.server.flow.LogicalNodeStatus;
+import org.dapper.util.HopcroftKarpMatching;
 import org.dapper.util.MatchingAlgorithm;
-import org.dapper.util.MaximumFlowMatching;
+import org.dapper.util.TimingWheel.Timeout;
 import org.shared.util.Control;
 import org.shared.util.IoBase;
 
@@ -93,14 +120,25 @@ import org.shared.util.IoBase;
 public class ServerLogic {
 
     /**
-     * A {@link Comparator} for comparing {@link LogicalNode}s based on the sizes of the {@link FlowNode} equivalence
-     * classes they represent.
+     * A {@link Comparator} for interleaving {@link Flow}s so that the one furthest below its fair share goes first.
+     * {@link Flow}s below their guaranteed minimums take precedence over all others.
      */
-    final protected static Comparator<LogicalNode> sizeComparator = new Comparator<LogicalNode>() {
+    final protected static Comparator<FlowCursor> shareComparator = new Comparator<FlowCursor>() {
 
         @Override
-        public int compare(LogicalNode l1, LogicalNode l2) {
-            return l1.getFlowNodes().size() - l2.getFlowNodes().size();
+        public int compare(FlowCursor c1, FlowCursor c2) {
+
+            FlowProxy fp1 = c1.fp;
+            FlowProxy fp2 = c2.fp;
+
+            boolean starved1 = fp1.nClients < fp1.minClients;
+            boolean starved2 = fp2.nClients < fp2.minClients;
+
+            if (starved1 != starved2) {
+                return starved1 ? -1 : 1;
+            }
+
+            return Double.compare(fp1.nClients / fp1.weight, fp2.nClients / fp2.weight);
         }
     };
 
@@ -111,39 +149,345 @@ public class ServerLogic {
 
     final InetAddress address;
     final ServerProcessor sp;
-    final Set<ClientState> clientWaitSet;
+    final ClientPool clientWaitSet;
+    final ClientPool connectedClients;
     final Map<Flow, FlowProxy> allFlowsMap;
-    final List<LogicalNode> executeList;
+    final ReadyQueue readyQueue;
     final MatchingAlgorithm matching;
 
+    final AtomicLong nRefreshRequests;
+    final AtomicLong nRefreshes;
+    final AtomicLong nGangDispatches;
+    final AtomicLong gangWaitMillis;
+    final AtomicLong maxGangWaitMillis;
+
+    LogicalNode reservation;
+    Set<ClientState> reservedClients;
+
+    final Set<LogicalNode> localityDeferredSet;
+
+    final Map<FlowNode, Long> executeStartMap;
+    final Map<FlowNode, ClientState> backupMap;
+    final AtomicLong nBackups;
+    final AtomicLong nBackupWins;
+
+    final Map<ClassLoader, Map<String, String>> manifestMap;
+    final Map<ClassLoader, String> loaderKeyMap;
+    final LinkedList<String> retiredKeys;
+
+    final ExecutorService dataExecutor;
+    final DataCache dataCache;
+
+    final Timeout refreshTimeout;
+    final Timeout delayedRefreshTimeout;
+    final Timeout progressTimeout;
+
+    long refreshWindow;
+    long localityDelay;
+    long progressInterval;
+    long delayedRefreshTime;
+
     boolean autocloseIdle;
     boolean suspended;
+    boolean refreshPending;
+    boolean progressPending;
 
     /**
      * Default constructor.
+     * 
+     * @param matching
+     *            the {@link MatchingAlgorithm} for pairing {@link FlowNode}s with waiting clients.
+     * @param policy
+     *            the {@link PriorityPolicy} for ordering {@link LogicalNode}s eligible for execution.
      */
-    public ServerLogic(InetAddress address, ServerProcessor sp) {
+    public ServerLogic(InetAddress address, ServerProcessor sp, MatchingAlgorithm matching, PriorityPolicy policy) {
 
         this.address = address;
         this.sp = sp;
 
-        this.clientWaitSet = new HashSet<ClientState>();
+        // The wait set buckets clients by domain.
+        this.clientWaitSet = new ClientPool();
+
+        // The pool of all connected clients, waiting or not, determines which gangs could ever be satisfied.
+        this.connectedClients = new ClientPool();
 
         // The map of all flows has weak keys in case the outside world loses all strong references to the flows stored
         // therein.
         this.allFlowsMap = new WeakHashMap<Flow, FlowProxy>();
 
-        // The execute list holds everything currently eligible for execution.
-        this.executeList = new ArrayList<LogicalNode>();
+        // The ready queue holds everything currently eligible for execution, ordered by the given policy.
+        this.readyQueue = new ReadyQueue(policy, this.clientWaitSet);
+
+        this.matching = matching;
+
+        this.nRefreshRequests = new AtomicLong(0);
+        this.nRefreshes = new AtomicLong(0);
+        this.nGangDispatches = new AtomicLong(0);
+        this.gangWaitMillis = new AtomicLong(0);
+        this.maxGangWaitMillis = new AtomicLong(0);
+
+        this.reservation = null;
+        this.reservedClients = Collections.emptySet();
+
+        this.localityDeferredSet = new LinkedHashSet<LogicalNode>();
+
+        this.executeStartMap = new HashMap<FlowNode, Long>();
+        this.backupMap = new HashMap<FlowNode, ClientState>();
+        this.nBackups = new AtomicLong(0);
+        this.nBackupWins = new AtomicLong(0);
+
+        // The map of class path manifests has weak keys so that unloaded flows' class loaders may be collected.
+        this.manifestMap = new WeakHashMap<ClassLoader, Map<String, String>>();
+        this.loaderKeyMap = new WeakHashMap<ClassLoader, String>();
+        this.retiredKeys = new LinkedList<String>();
 
-        this.matching = new MaximumFlowMatching();
+        // Data requests and side channel transfers are served by a pool of daemon worker threads.
+        this.dataExecutor = Executors.newFixedThreadPool(DATA_SERVICE_THREADS, new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable r) {
+
+                Thread th = new Thread(r, "Data Service Thread");
+                th.setDaemon(true);
+
+                return th;
+            }
+        });
+        this.dataCache = new DataCache(DATA_CACHE_SIZE);
+
+        // Timeouts are rescheduled often, so reuse the handles.
+        this.refreshTimeout = sp.base.createEventTimeout((ControlEvent) new BaseControlEvent(REFRESH, sp));
+        this.delayedRefreshTimeout = sp.base.createEventTimeout((ControlEvent) new BaseControlEvent(REFRESH, sp));
+        this.progressTimeout = sp.base.createEventTimeout((ControlEvent) new BaseControlEvent(PROGRESS, sp));
+
+        this.refreshWindow = 0;
+        this.localityDelay = 0;
+        this.progressInterval = DEFAULT_PROGRESS_INTERVAL_MILLIS;
+        this.delayedRefreshTime = 0;
 
         this.autocloseIdle = false;
         this.suspended = false;
+        this.refreshPending = false;
+        this.progressPending = false;
+    }
+
+    /**
+     * Alternate constructor. Uses {@link HopcroftKarpMatching} as the {@link MatchingAlgorithm} and
+     * {@link PriorityPolicy#CRITICAL_PATH} as the {@link PriorityPolicy}.
+     */
+    public ServerLogic(InetAddress address, ServerProcessor sp) {
+        this(address, sp, new HopcroftKarpMatching(), PriorityPolicy.CRITICAL_PATH);
     }
 
     // HELPER METHODS
 
+    /**
+     * Gets the content hashes of class path entries known to be needed by the given {@link FlowNode}'s
+     * {@link Codelet}. The manifest starts out with the {@link Codelet} class itself, which is read and hashed off of
+     * the processing thread, and it grows as clients request further entries.
+     */
+    protected Map<String, String> getManifest(FlowNode flowNode) {
+
+        Class<?> clazz = flowNode.getCodelet().getClass();
+        final ClassLoader cl = clazz.getClassLoader();
+
+        Map<String, String> manifest = this.manifestMap.get(cl);
+
+        if (manifest == null) {
+
+            // Data workers fill in entries concurrently.
+            final Map<String, String> newManifest = new ConcurrentHashMap<String, String>();
+
+            final Flow flow = flowNode.getLogicalNode().getFlow();
+            final String pathname = String.format("%s.class", clazz.getName().replace('.', '/'));
+
+            // Until the hash arrives, clients just request the class, which the read will have cached by then.
+            this.dataExecutor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+
+                    try {
+
+                        newManifest.put(pathname, ServerLogic.this.dataCache.get(flow, cl, pathname).getHash());
+
+                    } catch (Exception e) {
+
+                        // Not fatal, as the client will just request the class.
+                        Server.getLog().debug(String.format("Could not hash \"%s\".", pathname), e);
+                    }
+                }
+            });
+
+            manifest = newManifest;
+            this.manifestMap.put(cl, manifest);
+        }
+
+        return manifest;
+    }
+
+    /**
+     * Creates a {@link ResourceEvent} for the given {@link FlowNode}. Clients key their class loaders by the
+     * server-side class loader, so that jobs of the same flow, or of flows loaded from the same archive, share already
+     * loaded classes.
+     */
+    protected ResourceEvent createResourceEvent(FlowNode flowNode) {
+
+        ClassLoader cl = flowNode.getCodelet().getClass().getClassLoader();
+
+        String loaderKey = this.loaderKeyMap.get(cl);
+
+        // Keys are unique across server instances, as clients may well outlive us.
+        if (loaderKey == null) {
+
+            loaderKey = UUID.randomUUID().toString();
+            this.loaderKeyMap.put(cl, loaderKey);
+        }
+
+        return flowNode.createResourceEvent(new HashMap<String, String>(getManifest(flowNode)), //
+                loaderKey, new ArrayList<String>(this.retiredKeys));
+    }
+
+    /**
+     * Retires the keys of class loaders used by the given {@link Flow} and no other executing {@link Flow}. Clients
+     * learn of retired keys with their next {@link ResourceEvent} and evict the corresponding class loaders.
+     */
+    protected void retireLoaders(Flow flow) {
+
+        Set<ClassLoader> loaders = getLoaders(flow);
+
+        for (Flow other : this.allFlowsMap.keySet()) {
+
+            if (other != flow && other.getStatus() == FlowStatus.EXECUTE) {
+                loaders.removeAll(getLoaders(other));
+            }
+        }
+
+        for (ClassLoader cl : loaders) {
+
+            String loaderKey = this.loaderKeyMap.remove(cl);
+
+            if (loaderKey != null) {
+
+                this.retiredKeys.add(loaderKey);
+
+                if (this.retiredKeys.size() > MAX_RETIRED_LOADER_KEYS) {
+                    this.retiredKeys.removeFirst();
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the class loaders of the given {@link Flow}'s {@link Codelet}s.
+     */
+    protected static Set<ClassLoader> getLoaders(Flow flow) {
+
+        Set<ClassLoader> loaders = new HashSet<ClassLoader>();
+
+        for (LogicalNode node : flow.getNodes()) {
+
+            for (FlowNode flowNode : node.getFlowNodes()) {
+                loaders.add(flowNode.getCodelet().getClass().getClassLoader());
+            }
+        }
+
+        return loaders;
+    }
+
+    /**
+     * Requests a refresh of the computation state. Requests are coalesced: if a refresh is already pending, it will
+     * observe the changes that prompted this request, and so nothing more is done.
+     */
+    protected void requestRefresh() {
+
+        this.nRefreshRequests.incrementAndGet();
+
+        if (this.refreshPending) {
+            return;
+        }
+
+        this.refreshPending = true;
+
+        // Give further state changes a chance to accumulate, if so configured.
+        if (this.refreshWindow > 0) {
+
+            this.refreshTimeout.schedule(this.refreshWindow);
+
+        } else {
+
+            this.sp.onLocal(new BaseControlEvent(REFRESH, this.sp));
+        }
+    }
+
+    /**
+     * Requests a refresh of the computation state after the given delay, for when some condition is known to lapse by
+     * then. Only the earliest such request is kept pending, and so every refresh must renew requests for conditions
+     * that have yet to lapse.
+     */
+    protected void requestRefresh(long delayMillis) {
+
+        this.nRefreshRequests.incrementAndGet();
+
+        long time = System.currentTimeMillis() + delayMillis;
+
+        if (this.delayedRefreshTimeout.isScheduled() && this.delayedRefreshTime <= time) {
+            return;
+        }
+
+        this.delayedRefreshTime = time;
+        this.delayedRefreshTimeout.schedule(delayMillis);
+    }
+
+    /**
+     * Gets the number of refreshes requested.
+     */
+    protected long getRefreshRequestCount() {
+        return this.nRefreshRequests.get();
+    }
+
+    /**
+     * Gets the number of refreshes executed.
+     */
+    protected long getRefreshCount() {
+        return this.nRefreshes.get();
+    }
+
+    /**
+     * Gets the number of {@link LogicalNode}s spanning more than one {@link FlowNode} that have been dispatched.
+     */
+    protected long getGangDispatchCount() {
+        return this.nGangDispatches.get();
+    }
+
+    /**
+     * Gets the total time in milliseconds that dispatched gangs spent waiting for clients.
+     */
+    protected long getGangWaitMillis() {
+        return this.gangWaitMillis.get();
+    }
+
+    /**
+     * Gets the longest time in milliseconds that a dispatched gang spent waiting for clients.
+     */
+    protected long getMaxGangWaitMillis() {
+        return this.maxGangWaitMillis.get();
+    }
+
+    /**
+     * Gets the number of speculative backup copies launched.
+     */
+    protected long getBackupCount() {
+        return this.nBackups.get();
+    }
+
+    /**
+     * Gets the number of speculative backup copies that finished before their originals.
+     */
+    protected long getBackupWinCount() {
+        return this.nBackupWins.get();
+    }
+
     /**
      * Resets the given {@link LogicalNode} because some one of its equivalence class members failed.
      */
@@ -151,21 +495,537 @@ public class ServerLogic {
 
         for (FlowNode flowNode : node.getFlowNodes()) {
 
+            // Backup copies are moot once the original is reset.
+            this.executeStartMap.remove(flowNode);
+            cancelBackup(flowNode);
+
             ClientState csh = flowNode.getClientState();
 
             if (csh != null) {
 
-                // The client had better not be in the wait set when we add it.
-                Control.assertTrue(this.clientWaitSet.add(csh));
+                unlinkClient(node.getFlow(), flowNode, csh);
+                resetClient(csh, "One client failed in its execution");
+            }
+        }
+    }
+
+    /**
+     * Sends a reset to the given unlinked client, and returns it to the wait set.
+     */
+    protected void resetClient(ClientState csh, String message) {
+
+        csh.getControlHandler().onRemote(new ResetEvent(message, new IllegalStateException(), null));
+        csh.setStatus(ClientStatus.WAIT);
+
+        addWaitingClient(csh);
+    }
+
+    /**
+     * Makes the given {@link FlowNode} and client known to each other, and charges the client to the {@link Flow}'s
+     * share.
+     */
+    protected void linkClient(Flow flow, FlowNode flowNode, ClientState csh) {
+
+        flowNode.setClientState(csh);
+        csh.setFlowNode(flowNode);
+
+        this.allFlowsMap.get(flow).nExecuting++;
+
+        chargeShare(flow);
+    }
+
+    /**
+     * Unlinks the given {@link FlowNode} and client, and credits the client back to the {@link Flow}'s share.
+     */
+    protected void unlinkClient(Flow flow, FlowNode flowNode, ClientState csh) {
+
+        csh.setFlowNode(null);
+        flowNode.setClientState(null);
 
-                csh.setFlowNode(null);
-                flowNode.setClientState(null);
+        this.allFlowsMap.get(flow).nExecuting--;
 
-                csh.getControlHandler().onRemote(new ResetEvent("One client failed in its execution", //
-                        new IllegalStateException(), null));
-                csh.setStatus(ClientStatus.WAIT);
+        creditShare(flow);
+    }
+
+    /**
+     * Charges a client to the given {@link Flow}'s share.
+     */
+    protected void chargeShare(Flow flow) {
+
+        this.allFlowsMap.get(flow).nClients++;
+    }
+
+    /**
+     * Credits a client back to the given {@link Flow}'s share.
+     */
+    protected void creditShare(Flow flow) {
+
+        FlowProxy fp = this.allFlowsMap.get(flow);
+
+        fp.nClients--;
+
+        // Nodes held back by the maximum quota may now proceed.
+        if (fp.throttled) {
+
+            fp.throttled = false;
+            this.readyQueue.wakeFlow(flow);
+        }
+    }
+
+    /**
+     * Attempts to match the given {@link LogicalNode} with waiting clients and, if successful, dispatches it.
+     * 
+     * @return {@code true} if and only if the node was dispatched.
+     */
+    protected boolean dispatch(LogicalNode node, FlowProxy fp) {
+
+        Set<FlowNode> flowNodes = node.getFlowNodes();
+
+        // Only the reservation holder may use reserved clients.
+        Set<ClientState> excluded = (node != this.reservation) ? this.reservedClients //
+                : Collections.<ClientState> emptySet();
+
+        // Don't bother matching if there aren't enough clients to go around.
+        if (flowNodes.size() > this.clientWaitSet.size() - excluded.size()) {
+            return false;
+        }
+
+        // Respect the maximum quota. The node waits for a client of its flow to be credited back rather than for
+        // clients to arrive.
+        if (isThrottled(node, fp)) {
+
+            fp.throttled = true;
+            this.readyQueue.hold(node);
+
+            return false;
+        }
+
+        Map<FlowNode, Set<InetAddress>> hostsMap = getProducerHosts(flowNodes);
+        Map<FlowNode, ClientState> matches = null;
+
+        // Prefer clients on the hosts that produced the input handles.
+        if (!hostsMap.isEmpty()) {
+
+            matches = this.clientWaitSet.match(flowNodes, this.matching, excluded, hostsMap);
+
+            if (matches.size() != flowNodes.size()) {
+
+                matches = null;
+
+                if (deferForLocality(node)) {
+                    return false;
+                }
             }
         }
+
+        if (matches == null) {
+            matches = this.clientWaitSet.match(flowNodes, this.matching, excluded);
+        }
+
+        Set<Entry<FlowNode, ClientState>> matchEntries = matches.entrySet();
+
+        // Fail if not all requirements could be met; the node stays blocked.
+        if (flowNodes.size() != matchEntries.size()) {
+            return false;
+        }
+
+        for (Entry<FlowNode, ClientState> matchEntry : matchEntries) {
+
+            FlowNode flowNode = matchEntry.getKey();
+            ClientState csh = matchEntry.getValue();
+
+            Control.assertTrue(csh.getStatus() == ClientStatus.WAIT);
+
+            // The client no longer belongs to the wait set.
+            Control.assertTrue(this.clientWaitSet.remove(csh));
+
+            // Make the node and the client known to each other.
+            linkClient(node.getFlow(), flowNode, csh);
+        }
+
+        // Only add out-edges for assignment.
+        for (FlowNode flowNode : flowNodes) {
+
+            for (FlowEdge flowEdge : flowNode.getOut()) {
+                flowEdge.generate();
+            }
+        }
+
+        // Some edges may query the client states at both ends, so create resources AFTER linking.
+        for (Entry<FlowNode, ClientState> matchEntry : matchEntries) {
+
+            FlowNode flowNode = matchEntry.getKey();
+            ClientState csh = matchEntry.getValue();
+
+            // Send over resource descriptors.
+            csh.getControlHandler().onRemote(createResourceEvent(flowNode));
+            csh.setStatus(ClientStatus.RESOURCE);
+            csh.timeout(CLIENT_TIMEOUT_MILLIS);
+        }
+
+        // Start a count down for waiting on all clients to acknowledge.
+        Control.assertTrue(node.getStatus().isExecutable());
+        node.getClientCountDown().reset();
+        node.setStatus(LogicalNodeStatus.RESOURCE);
+
+        // Record how long gangs wait, since they are the ones prone to starvation.
+        if (flowNodes.size() > 1) {
+
+            long waitMillis = System.currentTimeMillis() - this.readyQueue.getReadyTime(node);
+
+            this.nGangDispatches.incrementAndGet();
+            this.gangWaitMillis.addAndGet(waitMillis);
+
+            if (waitMillis > this.maxGangWaitMillis.get()) {
+                this.maxGangWaitMillis.set(waitMillis);
+            }
+        }
+
+        // Remove the node because it is now executing.
+        Control.assertTrue(this.readyQueue.remove(node));
+        this.localityDeferredSet.remove(node);
+
+        return true;
+    }
+
+    /**
+     * Gets the hosts of the clients that produced the input handles of the given {@link FlowNode}s. {@link FlowNode}s
+     * without such information are left out.
+     */
+    protected static Map<FlowNode, Set<InetAddress>> getProducerHosts(Set<FlowNode> flowNodes) {
+
+        Map<FlowNode, Set<InetAddress>> res = new HashMap<FlowNode, Set<InetAddress>>();
+
+        for (FlowNode flowNode : flowNodes) {
+
+            for (FlowEdge flowEdge : flowNode.getIn()) {
+
+                if (flowEdge.getType() != FlowEdgeType.HANDLE) {
+                    continue;
+                }
+
+                InetSocketAddress producerAddress = ((HandleEdge) flowEdge).getProducerAddress();
+
+                if (producerAddress == null) {
+                    continue;
+                }
+
+                Set<InetAddress> hosts = res.get(flowNode);
+
+                if (hosts == null) {
+
+                    hosts = new HashSet<InetAddress>();
+                    res.put(flowNode, hosts);
+                }
+
+                hosts.add(producerAddress.getAddress());
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Decides whether the given {@link LogicalNode} should keep waiting for clients near its input handles, in the
+     * manner of delay scheduling. If so, a refresh is scheduled for when the delay expires.
+     */
+    protected boolean deferForLocality(LogicalNode node) {
+
+        long remaining = this.readyQueue.getReadyTime(node) + this.localityDelay - System.currentTimeMillis();
+
+        if (remaining <= 0) {
+            return false;
+        }
+
+        if (this.localityDeferredSet.add(node)) {
+            requestRefresh(remaining);
+        }
+
+        // The node waits for its delay to expire rather than for clients to arrive.
+        this.readyQueue.hold(node);
+
+        return true;
+    }
+
+    /**
+     * Gets whether the given client runs a speculative backup copy of its {@link FlowNode}, in which case the
+     * {@link FlowNode} does not point back to it.
+     */
+    protected static boolean isBackup(ClientState csh) {
+
+        FlowNode flowNode = csh.getFlowNode();
+
+        return flowNode != null && flowNode.getClientState() != csh;
+    }
+
+    /**
+     * Gets whether the given {@link LogicalNode} may be speculatively executed. Only side effect-free singleton nodes
+     * qualify: They may read through handles, but may not stream, write handles that a second copy would write as well,
+     * or embed subflows.
+     */
+    protected static boolean isSpeculable(LogicalNode node) {
+
+        Set<FlowNode> flowNodes = node.getFlowNodes();
+
+        if (flowNodes.size() != 1) {
+            return false;
+        }
+
+        FlowNode flowNode = flowNodes.iterator().next();
+
+        if (flowNode.getCodelet() instanceof EmbeddingCodelet) {
+            return false;
+        }
+
+        for (FlowEdge edge : flowNode.getIn()) {
+
+            if (edge.getType() == FlowEdgeType.STREAM) {
+                return false;
+            }
+        }
+
+        // Only dummy out-edges, which carry nothing, are safe to duplicate.
+        for (FlowEdge edge : flowNode.getOut()) {
+
+            if (edge.getType() != FlowEdgeType.DUMMY) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Records the execution time of a finished {@link FlowNode}, keeping each {@link Codelet} class's times sorted.
+     */
+    protected static void addDuration(FlowProxy fp, FlowNode flowNode, long duration) {
+
+        Class<?> clazz = flowNode.getCodelet().getClass();
+
+        List<Long> durations = fp.durationsMap.get(clazz);
+
+        if (durations == null) {
+
+            durations = new ArrayList<Long>();
+            fp.durationsMap.put(clazz, durations);
+        }
+
+        int index = Collections.binarySearch(durations, duration);
+        durations.add((index >= 0) ? index : -index - 1, duration);
+    }
+
+    /**
+     * Gets the median execution time of the given {@link FlowNode}'s finished siblings, or {@code -1} if there are too
+     * few of them.
+     */
+    protected static long getMedianDuration(FlowProxy fp, FlowNode flowNode) {
+
+        List<Long> durations = fp.durationsMap.get(flowNode.getCodelet().getClass());
+
+        return (durations != null && durations.size() >= MIN_SPECULATION_SAMPLES) //
+        ? durations.get(durations.size() >> 1) : -1;
+    }
+
+    /**
+     * Launches a speculative backup copy of the given {@link FlowNode} on the given waiting client.
+     */
+    protected void launchBackup(FlowNode flowNode, ClientState csh) {
+
+        Control.assertTrue(csh.getStatus() == ClientStatus.WAIT);
+
+        // The client no longer belongs to the wait set.
+        Control.assertTrue(this.clientWaitSet.remove(csh));
+
+        // Only the client points to the node, which distinguishes it from the original.
+        csh.setFlowNode(flowNode);
+        this.backupMap.put(flowNode, csh);
+
+        chargeShare(flowNode.getLogicalNode().getFlow());
+
+        csh.getControlHandler().onRemote(createResourceEvent(flowNode));
+        csh.setStatus(ClientStatus.RESOURCE);
+        csh.timeout(CLIENT_TIMEOUT_MILLIS);
+
+        this.nBackups.incrementAndGet();
+    }
+
+    /**
+     * Advances a backup copy to the next stage on its own, since it doesn't participate in its node's count downs.
+     */
+    protected void advanceBackup(ClientState csh, ClientStatus nextClientStatus, //
+            ControlEventType eventType, long timeout) {
+
+        csh.untimeout();
+        csh.getControlHandler().onRemote(new BaseControlEvent(eventType, null));
+        csh.setStatus(nextClientStatus);
+        csh.timeout(timeout);
+    }
+
+    /**
+     * Unlinks the backup copy of the given {@link FlowNode}, if any.
+     * 
+     * @return the backup client, or {@code null} if none.
+     */
+    protected ClientState unlinkBackup(FlowNode flowNode) {
+
+        ClientState csh = this.backupMap.remove(flowNode);
+
+        if (csh != null) {
+
+            csh.setFlowNode(null);
+            creditShare(flowNode.getLogicalNode().getFlow());
+        }
+
+        return csh;
+    }
+
+    /**
+     * Cancels the backup copy of the given {@link FlowNode}, if any.
+     * 
+     * @return {@code true} if and only if there was a backup copy.
+     */
+    protected boolean cancelBackup(FlowNode flowNode) {
+
+        ClientState csh = unlinkBackup(flowNode);
+
+        if (csh == null) {
+            return false;
+        }
+
+        csh.untimeout();
+        resetClient(csh, "Another copy finished first");
+
+        return true;
+    }
+
+    /**
+     * Launches backup copies of straggling {@link FlowNode}s, which are those running far longer than the median of
+     * their finished siblings. Backups only get clients left over from dispatch. A refresh is scheduled for when the
+     * next {@link FlowNode} would become a straggler.
+     */
+    protected void speculate() {
+
+        if (this.executeStartMap.isEmpty()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long deadline = Long.MAX_VALUE;
+
+        for (Entry<FlowNode, Long> entry : this.executeStartMap.entrySet()) {
+
+            FlowNode flowNode = entry.getKey();
+
+            if (this.backupMap.containsKey(flowNode)) {
+                continue;
+            }
+
+            LogicalNode node = flowNode.getLogicalNode();
+            FlowProxy fp = this.allFlowsMap.get(node.getFlow());
+
+            long median = getMedianDuration(fp, flowNode);
+
+            if (median < 0) {
+                continue;
+            }
+
+            long straggleTime = entry.getValue() + (long) (SPECULATION_SLOWDOWN * median);
+
+            if (straggleTime > now) {
+
+                deadline = Math.min(deadline, straggleTime);
+
+                continue;
+            }
+
+            if (isThrottled(node, fp)) {
+                continue;
+            }
+
+            ClientState csh = this.clientWaitSet.match(Collections.singleton(flowNode), //
+                    this.matching, this.reservedClients).get(flowNode);
+
+            if (csh != null) {
+                launchBackup(flowNode, csh);
+            }
+        }
+
+        if (deadline != Long.MAX_VALUE) {
+            requestRefresh(deadline - now);
+        }
+    }
+
+    /**
+     * Gets whether dispatching the given {@link LogicalNode} would put its {@link Flow} over the maximum quota. A
+     * {@link Flow} without clients is never throttled, lest a node larger than the quota never run.
+     */
+    protected boolean isThrottled(LogicalNode node, FlowProxy fp) {
+        return fp.nClients > 0 && fp.nClients + node.getFlowNodes().size() > fp.maxClients;
+    }
+
+    /**
+     * Reserves waiting clients for the longest waiting gang that isn't throttled and fits the pool, in the manner of
+     * EASY backfilling, so that smaller nodes can't perpetually take the clients it needs. Other nodes may only
+     * backfill onto clients that the gang has no use for. Clients released from a previous reservation are made known
+     * to the {@link ReadyQueue} again.
+     */
+    protected void updateReservation() {
+
+        LogicalNode prevReservation = this.reservation;
+        Set<ClientState> prevReservedClients = this.reservedClients;
+
+        this.reservation = null;
+        this.reservedClients = Collections.emptySet();
+
+        for (LogicalNode gang : this.readyQueue.getGangs()) {
+
+            // Earlier dispatches may have since removed the gang from the queue.
+            if (!this.readyQueue.contains(gang)) {
+                continue;
+            }
+
+            FlowProxy fp = this.allFlowsMap.get(gang.getFlow());
+
+            // Skip gangs held back by their quotas, or whose domain requirements the connected clients couldn't
+            // satisfy all at once, in favor of the next oldest.
+            if (isThrottled(gang, fp) || !this.connectedClients.isFeasible(gang.getFlowNodes())) {
+                continue;
+            }
+
+            // Move on to the next gang if this one could be dispatched.
+            if (dispatch(gang, fp)) {
+                continue;
+            }
+
+            this.reservation = gang;
+            this.reservedClients = new HashSet<ClientState>(this.clientWaitSet.match(gang.getFlowNodes(), //
+                    this.matching, this.reservedClients).values());
+
+            break;
+        }
+
+        // A gang that lost its reservation competes with the others again.
+        if (prevReservation != null && prevReservation != this.reservation) {
+            this.readyQueue.wake(prevReservation);
+        }
+
+        for (ClientState csh : prevReservedClients) {
+
+            if (!this.reservedClients.contains(csh) && this.clientWaitSet.contains(csh)) {
+                this.readyQueue.addClient(csh);
+            }
+        }
+    }
+
+    /**
+     * Adds the given client to the wait set and notifies the {@link ReadyQueue} of its arrival.
+     */
+    protected void addWaitingClient(ClientState csh) {
+
+        // The client had better not be in the wait set when we add it.
+        Control.assertTrue(this.clientWaitSet.add(csh));
+
+        this.readyQueue.addClient(csh);
     }
 
     /**
@@ -177,20 +1037,25 @@ public class ServerLogic {
 
         Set<LogicalNode> nodes = flow.getNodes();
 
+        this.readyQueue.removeFlow(flow);
+
         // Deliver a reset to all active clients.
         for (LogicalNode node : nodes) {
 
-            this.executeList.remove(node);
             resetNode(node);
             node.setStatus(LogicalNodeStatus.FAILED);
         }
 
         FlowProxy fp = this.allFlowsMap.get(flow);
 
+        fp.onFlowProgress(fp.getAttachment(), System.currentTimeMillis());
         fp.onFlowError(fp.getAttachment(), t);
         fp.setException(t);
 
         flow.setStatus(FlowStatus.FAILED);
+
+        retireLoaders(flow);
+        this.dataCache.remove(flow);
     }
 
     /**
@@ -234,15 +1099,24 @@ public class ServerLogic {
     }
 
     /**
-     * Closes all idle clients.
+     * Closes all idle clients, which are those that cannot fulfill requirements of any pending node.
      */
     protected void closeIdleClients() {
 
-        for (ClientState csh : new HashSet<ClientState>(this.clientWaitSet)) {
+        List<ClientState> clients = new ArrayList<ClientState>(this.clientWaitSet.size());
+
+        for (ClientState csh : this.clientWaitSet) {
+            clients.add(csh);
+        }
+
+        for (ClientState csh : clients) {
+
+            csh.setIdle(!this.readyQueue.isWanted(csh));
 
             if (csh.isIdle()) {
 
                 this.clientWaitSet.remove(csh);
+                this.connectedClients.remove(csh);
 
                 IoBase.close(csh.getControlHandler());
                 csh.untimeout();
@@ -255,121 +1129,140 @@ public class ServerLogic {
      * Gets the pending computation count.
      */
     protected int getPendingCount() {
-
-        int nFlowNodes = 0;
-
-        for (LogicalNode node : this.executeList) {
-            nFlowNodes += node.getFlowNodes().size();
-        }
-
-        return nFlowNodes;
+        return this.readyQueue.getFlowNodeCount();
     }
 
     /**
      * Gets the pending computation count for the given {@link Flow}.
      */
     protected int getPendingCount(Flow flow) {
-
-        int nFlowNodes = 0;
-
-        Set<LogicalNode> nodes = flow.getNodes();
-
-        for (LogicalNode node : this.executeList) {
-
-            if (nodes.contains(node)) {
-                nFlowNodes += node.getFlowNodes().size();
-            }
-        }
-
-        return nFlowNodes;
+        return this.readyQueue.getFlowNodeCount(flow);
     }
 
     // INTERNAL LOGIC
 
     /**
-     * Handles a request to refresh the computation state and see if any work can be done.
+     * Handles a request to refresh the computation state and see if any work can be done. Only nodes that are newly
+     * eligible, or that were blocked and have since seen the arrival of a client able to fulfill one of their
+     * requirements, are examined.
      */
     protected void handleRefresh() {
 
+        // Any further requests will need a refresh of their own.
+        this.refreshPending = false;
+
         // Check if a suspension is in effect.
         if (this.suspended) {
             return;
         }
 
-        // All waiting clients are considered idle until they are matched.
-        for (ClientState csh : this.clientWaitSet) {
-            csh.setIdle(true);
+        this.nRefreshes.incrementAndGet();
+
+        long now = System.currentTimeMillis();
+
+        long localityDeadline = Long.MAX_VALUE;
+
+        // Wake up nodes whose locality delays have expired, so that they may settle for any client.
+        for (Iterator<LogicalNode> itr = this.localityDeferredSet.iterator(); itr.hasNext();) {
+
+            LogicalNode node = itr.next();
+
+            if (!this.readyQueue.contains(node)) {
+
+                itr.remove();
+
+                continue;
+            }
+
+            long expiry = this.readyQueue.getReadyTime(node) + this.localityDelay;
+
+            if (expiry <= now) {
+
+                this.readyQueue.wake(node);
+                itr.remove();
+
+            } else {
+
+                localityDeadline = Math.min(localityDeadline, expiry);
+            }
+        }
+
+        // Renew the delayed refresh for delays yet to expire, in case this refresh came early.
+        if (localityDeadline != Long.MAX_VALUE) {
+            requestRefresh(localityDeadline - now);
         }
 
-        // Greedily pick small equivalence classes by sorting with a size-based comparator.
-        Collections.sort(this.executeList, sizeComparator);
+        // Give the longest waiting gang first pick.
+        updateReservation();
 
-        loop: for (Iterator<LogicalNode> itr = this.executeList.iterator(); itr.hasNext();) {
+        // Nodes woken by client arrivals may not be able to use the clients after all, in which case those passed
+        // over for want of capacity get a turn.
+        do {
 
-            LogicalNode node = itr.next();
+            dispatchDirty();
 
-            Set<FlowNode> flowNodes = node.getFlowNodes();
+        } while (this.clientWaitSet.size() > this.reservedClients.size() && this.readyQueue.wakeOverflow());
 
-            Set<Entry<FlowNode, ClientState>> matchEntries = //
-            this.matching.match(flowNodes, this.clientWaitSet).entrySet();
+        // Give stragglers backup copies on whatever clients remain.
+        speculate();
 
-            // Matched clients are no longer considered idle.
-            for (Entry<FlowNode, ClientState> matchEntry : matchEntries) {
-                matchEntry.getValue().setIdle(false);
-            }
+        // Automatically close any clients left over.
+        if (this.autocloseIdle) {
+            closeIdleClients();
+        }
+    }
 
-            // Skip the current iteration if not all requirements could be met.
-            if (flowNodes.size() != matchEntries.size()) {
-                continue loop;
-            }
+    /**
+     * Examines the dirty nodes of the {@link ReadyQueue}, interleaving {@link Flow}s by fair share, and dispatches
+     * those that can be.
+     */
+    protected void dispatchDirty() {
 
-            for (Entry<FlowNode, ClientState> matchEntry : matchEntries) {
+        // Group candidates by flow while preserving priority order within each.
+        Map<Flow, FlowCursor> cursorMap = new HashMap<Flow, FlowCursor>();
 
-                FlowNode flowNode = matchEntry.getKey();
-                ClientState csh = matchEntry.getValue();
+        for (LogicalNode node : this.readyQueue.poll()) {
 
-                Control.assertTrue(csh.getStatus() == ClientStatus.WAIT);
+            Flow flow = node.getFlow();
+            FlowCursor cursor = cursorMap.get(flow);
 
-                // The client no longer belongs to the wait set.
-                Control.assertTrue(this.clientWaitSet.remove(csh));
+            if (cursor == null) {
 
-                // Make the node and the client known to each other.
-                flowNode.setClientState(csh);
-                csh.setFlowNode(flowNode);
+                cursor = new FlowCursor(this.allFlowsMap.get(flow));
+                cursorMap.put(flow, cursor);
             }
 
-            // Only add out-edges for assignment.
-            for (FlowNode flowNode : node.getFlowNodes()) {
+            cursor.nodes.add(node);
+        }
 
-                for (FlowEdge flowEdge : flowNode.getOut()) {
-                    flowEdge.generate();
-                }
-            }
+        PriorityQueue<FlowCursor> cursors = new PriorityQueue<FlowCursor>(Math.max(cursorMap.size(), 1), //
+                shareComparator);
 
-            // Some edges may query the client states at both ends, so create resources AFTER linking.
-            for (Entry<FlowNode, ClientState> matchEntry : matchEntries) {
+        for (FlowCursor cursor : cursorMap.values()) {
 
-                FlowNode flowNode = matchEntry.getKey();
-                ClientState csh = matchEntry.getValue();
+            cursor.itr = cursor.nodes.iterator();
+            cursors.add(cursor);
+        }
 
-                // Send over resource descriptors.
-                csh.getControlHandler().onRemote(flowNode.createResourceEvent());
-                csh.setStatus(ClientStatus.RESOURCE);
-                csh.timeout(CLIENT_TIMEOUT_MILLIS);
-            }
+        // Repeatedly give the flow furthest below its fair share a chance at the clients.
+        for (FlowCursor cursor; (cursor = cursors.poll()) != null;) {
 
-            // Start a count down for waiting on all clients to acknowledge.
-            Control.assertTrue(node.getStatus().isExecutable());
-            node.getClientCountDown().reset();
-            node.setStatus(LogicalNodeStatus.RESOURCE);
+            LogicalNode node = cursor.itr.next();
 
-            // Remove the node because it is now executing.
-            itr.remove();
-        }
+            // The reservation holder has already had its chance, and gets another with every refresh.
+            if (node != this.reservation) {
 
-        // Automatically close any clients left over.
-        if (this.autocloseIdle) {
-            closeIdleClients();
+                dispatch(node, cursor.fp);
+
+            } else {
+
+                this.readyQueue.hold(node);
+            }
+
+            // Reinsert the cursor, as its priority may have changed.
+            if (cursor.itr.hasNext()) {
+                cursors.add(cursor);
+            }
         }
     }
 
@@ -394,27 +1287,31 @@ public class ServerLogic {
             // Signal failure.
             evt.setException(e);
 
-            this.sp.onLocal(new BaseControlEvent(REFRESH, this.sp));
+            requestRefresh();
 
             return;
         }
 
         for (LogicalNode node : FlowUtilities.buildCountDowns(flow)) {
 
-            this.executeList.add(node);
+            this.readyQueue.add(node);
             node.setStatus(LogicalNodeStatus.PENDING_EXECUTE);
         }
 
         // Create and register the flow proxy.
-        FlowProxy fp = this.sp.new FlowProxy(flow, fbr.flowFlags);
+        FlowProxy fp = this.sp.new FlowProxy(flow, fbr.flowFlags, fbr.weight, fbr.minClients, fbr.maxClients);
         fp.onFlowBegin(fp.getAttachment());
 
         Control.assertTrue(this.allFlowsMap.put(flow, fp) == null);
 
+        if ((fbr.flowFlags & FlowEvent.F_FLOW_PROGRESS) != 0) {
+            requestProgress();
+        }
+
         evt.set(fp);
 
         // Interrupt self.
-        this.sp.onLocal(new BaseControlEvent(REFRESH, this.sp));
+        requestRefresh();
     }
 
     /**
@@ -432,7 +1329,7 @@ public class ServerLogic {
         evt.set(null);
 
         // Interrupt self.
-        this.sp.onLocal(new BaseControlEvent(REFRESH, this.sp));
+        requestRefresh();
     }
 
     /**
@@ -455,7 +1352,108 @@ public class ServerLogic {
         evt.set(null);
 
         // Interrupt self.
-        this.sp.onLocal(new BaseControlEvent(REFRESH, this.sp));
+        requestRefresh();
+    }
+
+    /**
+     * Handles a request to set the window in milliseconds over which refresh requests are batched.
+     */
+    protected void handleSetRefreshWindow(RequestEvent<Long, Object> evt) {
+
+        Long refreshWindow = evt.getInput();
+
+        if (refreshWindow != null && refreshWindow.longValue() >= 0) {
+
+            this.refreshWindow = refreshWindow.longValue();
+
+            // Notify the invoker of completion.
+            evt.set(null);
+
+        } else {
+
+            evt.setException(new IllegalArgumentException("Invalid refresh window"));
+        }
+    }
+
+    /**
+     * Handles a request to set the delay in milliseconds for which nodes wait on clients near their input handles.
+     */
+    protected void handleSetLocalityDelay(RequestEvent<Long, Object> evt) {
+
+        Long localityDelay = evt.getInput();
+
+        if (localityDelay != null && localityDelay.longValue() >= 0) {
+
+            this.localityDelay = localityDelay.longValue();
+
+            // Notify the invoker of completion.
+            evt.set(null);
+
+        } else {
+
+            evt.setException(new IllegalArgumentException("Invalid locality delay"));
+        }
+    }
+
+    /**
+     * Handles a request to set the interval in milliseconds at which aggregated {@link Flow} progress is broadcast.
+     */
+    protected void handleSetProgressInterval(RequestEvent<Long, Object> evt) {
+
+        Long progressInterval = evt.getInput();
+
+        if (progressInterval != null && progressInterval.longValue() > 0) {
+
+            this.progressInterval = progressInterval.longValue();
+
+            // Notify the invoker of completion.
+            evt.set(null);
+
+        } else {
+
+            evt.setException(new IllegalArgumentException("Invalid progress interval"));
+        }
+    }
+
+    /**
+     * Handles a progress tick by broadcasting aggregated progress for all executing {@link Flow}s that asked for it.
+     */
+    protected void handleProgress() {
+
+        this.progressPending = false;
+
+        long now = System.currentTimeMillis();
+        boolean active = false;
+
+        for (FlowProxy fp : this.allFlowsMap.values()) {
+
+            if (fp.originalFlow.getStatus() == FlowStatus.EXECUTE //
+                    && (fp.flowFlags & FlowEvent.F_FLOW_PROGRESS) != 0) {
+
+                fp.onFlowProgress(fp.getAttachment(), now);
+
+                active = true;
+            }
+        }
+
+        // Keep ticking for as long as somebody is interested.
+        if (active) {
+            requestProgress();
+        }
+    }
+
+    /**
+     * Schedules the next progress tick, unless one is already pending.
+     */
+    protected void requestProgress() {
+
+        if (this.progressPending) {
+            return;
+        }
+
+        this.progressPending = true;
+
+        this.progressTimeout.schedule(this.progressInterval);
     }
 
     /**
@@ -473,7 +1471,7 @@ public class ServerLogic {
 
             if (fp != null) {
 
-                fp.setFlow(f.clone());
+                refreshFlowProxy(f, fp);
 
                 evt.set(null);
 
@@ -493,7 +1491,7 @@ public class ServerLogic {
 
                 if (flow.getStatus().isExecuting()) {
 
-                    fp.setFlow(flow.clone());
+                    refreshFlowProxy(flow, fp);
 
                     res.add(fp);
                 }
@@ -503,6 +1501,43 @@ public class ServerLogic {
         }
     }
 
+    /**
+     * Brings the given {@link FlowProxy}'s statuses of the given {@link Flow} up to date. Only the status changes
+     * since the last refresh are replayed, unless they're no longer available, in which case the statuses are read off
+     * of the {@link Flow} anew.
+     */
+    protected void refreshFlowProxy(Flow flow, FlowProxy fp) {
+
+        FlowStatusLog log = flow.getStatusLog();
+        List<Change> changes = log.getChangesSince(fp.getVersion());
+
+        if (changes != null) {
+
+            fp.addChanges(changes, log.getVersion());
+
+        } else {
+
+            fp.resync(flow, log.getVersion());
+        }
+    }
+
+    /**
+     * Handles a request to get a copy of a {@link Flow}, structure included.
+     */
+    protected void handleGetFlowSnapshot(RequestEvent<Flow, Flow> evt) {
+
+        Flow flow = evt.getInput();
+
+        if (this.allFlowsMap.containsKey(flow)) {
+
+            evt.set(flow.clone());
+
+        } else {
+
+            evt.setException(new IllegalArgumentException("Flow did not originate from this server"));
+        }
+    }
+
     /**
      * Handles a request to get the number of additional clients required to saturate pending computations.
      */
@@ -526,13 +1561,17 @@ public class ServerLogic {
         switch (evt.getType()) {
 
         case SUSPEND:
-            this.suspended = true;
-            break;
-
         case RESUME:
 
-            this.suspended = false;
-            this.sp.onLocal(new BaseControlEvent(REFRESH, this.sp));
+            // Consult the broadcaster, since notifications posted by its producer and consumers may arrive out of
+            // order.
+            boolean suspended = this.sp.feb.isSaturated();
+
+            if (this.suspended && !suspended) {
+                requestRefresh();
+            }
+
+            this.suspended = suspended;
 
             break;
 
@@ -566,30 +1605,36 @@ public class ServerLogic {
         // In case the client was awaiting instructions.
         this.clientWaitSet.remove(csh);
 
-        if (flowNode != null) {
+        // Losing a backup copy leaves the original unaffected.
+        if (isBackup(csh)) {
+
+            unlinkBackup(flowNode);
+
+        } else if (flowNode != null) {
 
             FlowProxy fp = this.allFlowsMap.get(flowNode.getLogicalNode().getFlow());
             fp.onFlowNodeError(fp.getAttachment(), flowNode.getAttachment(), exception);
 
-            // Unlink the client from its node BEFORE resetting its equivalence class peers.
-            csh.setFlowNode(null);
-            flowNode.setClientState(null);
-
             LogicalNode node = flowNode.getLogicalNode();
 
+            // Unlink the client from its node BEFORE resetting its equivalence class peers.
+            unlinkClient(node.getFlow(), flowNode, csh);
+
             // Reset everything in this flow node's equivalence class.
-            Control.assertTrue(node.getStatus().isExecuting() && this.executeList.add(node));
+            Control.assertTrue(node.getStatus().isExecuting() && this.readyQueue.add(node));
             resetNode(node);
             node.setStatus(LogicalNodeStatus.PENDING_EXECUTE);
         }
 
+        this.connectedClients.remove(csh);
+
         // Close the connection and invalidate it, since the error could have resulted from a timeout.
         IoBase.close(csh.getControlHandler());
         csh.untimeout();
         csh.setStatus(ClientStatus.INVALID);
 
         // Interrupt self.
-        this.sp.onLocal(new BaseControlEvent(REFRESH, this.sp));
+        requestRefresh();
     }
 
     /**
@@ -608,12 +1653,20 @@ public class ServerLogic {
 
         case EXECUTE:
 
+            // Backup copies are dropped instead, since the original sets the time limit.
+            if (isBackup(csh)) {
+
+                handleError(new ErrorEvent(new TimeoutException("Backup copy timed out"), evt.getSource()));
+
+                break;
+            }
+
             FlowNode flowNode = csh.getFlowNode();
 
             purgeFlow(flowNode.getLogicalNode().getFlow(), new IllegalStateException(String.format("Maximum " //
                     + "execution time limit of %d milliseconds exceeded", flowNode.getTimeout())));
 
-            this.sp.onLocal(new BaseControlEvent(REFRESH, this.sp));
+            requestRefresh();
 
             break;
 
@@ -631,7 +1684,7 @@ public class ServerLogic {
 
         FlowNode flowNode = csh.getFlowNode();
 
-        Control.assertTrue(flowNode != null && csh == flowNode.getClientState());
+        Control.assertTrue(flowNode != null && (csh == flowNode.getClientState() || isBackup(csh)));
 
         String identifier = evt.getPathname();
 
@@ -643,26 +1696,59 @@ public class ServerLogic {
                     "Invalid request syntax");
 
             String mode = m.group(1);
-            String pathname = m.group(2);
-
-            final byte[] data;
+            final String pathname = m.group(2);
 
             if (mode.equals("cp")) {
 
-                data = IoBase.getBytes(flowNode.getCodelet().getClass().getClassLoader() //
-                        .getResourceAsStream(pathname));
+                final DataEvent request = evt;
+                final FlowNode requester = flowNode;
+                final Flow flow = flowNode.getLogicalNode().getFlow();
+                final ClassLoader cl = flowNode.getCodelet().getClass().getClassLoader();
+
+                // Read and hash off of the processing thread, so that slow reads don't stall scheduling.
+                this.dataExecutor.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+
+                        ServerProcessor sp = ServerLogic.this.sp;
+
+                        try {
+
+                            Content content = ServerLogic.this.dataCache.get(flow, cl, pathname);
+
+                            sp.onLocal(new DataReadyEvent(request, requester, //
+                                    content.getData(), content.getHash(), null, sp));
+
+                        } catch (Throwable t) {
+
+                            sp.onLocal(new DataReadyEvent(request, requester, null, null, t, sp));
+                        }
+                    }
+                });
 
             } else if (mode.equals("id")) {
 
-                data = FlowUtilities.createIdentifier(HandleEdge.class).getBytes();
+                sendData(csh, evt, FlowUtilities.createIdentifier(HandleEdge.class).getBytes());
+
+            } else if (mode.equals("ids")) {
+
+                // Lease a block of identifiers, whose requested size follows the request counter.
+                String[] split = pathname.split(":", -1);
+
+                Control.checkTrue(split.length == 2, //
+                        "Invalid request syntax");
+
+                int count = Math.max(1, Math.min(Integer.parseInt(split[1]), MAX_STEM_BLOCK_SIZE));
+
+                sendData(csh, evt, String.format("%08x:%d", //
+                        FlowUtilities.createIdentifiers(HandleEdge.class, count), count).getBytes());
 
             } else {
 
                 throw new IllegalArgumentException("Invalid request syntax");
             }
 
-            csh.getControlHandler().onRemote(new DataEvent(m.group(0), data, null));
-
         } catch (Exception e) {
 
             handleReset(new ResetEvent(String.format("Requested data \"%s\" could not be retrieved", identifier), e, //
@@ -670,6 +1756,71 @@ public class ServerLogic {
         }
     }
 
+    /**
+     * Handles the outcome of a data request that was read off of the processing thread, or data whose side channel
+     * transfer failed.
+     */
+    protected void handleDataReady(DataReadyEvent evt) {
+
+        DataEvent request = evt.getRequest();
+
+        ClientState csh = (ClientState) request.getSource().getHandler();
+
+        // The client has since moved on, so drop the data.
+        if (csh.getStatus() != ClientStatus.EXECUTE || csh.getFlowNode() != evt.getFlowNode()) {
+            return;
+        }
+
+        // The side channel failed, so inline the data in the control stream.
+        if (evt.isInline()) {
+
+            csh.getControlHandler().onRemote(new DataEvent(request.getPathname(), evt.getData(), null));
+
+            return;
+        }
+
+        Throwable exception = evt.getException();
+
+        if (exception != null) {
+
+            handleReset(new ResetEvent(String.format("Requested data \"%s\" could not be retrieved", //
+                    request.getPathname()), exception, request.getSource()));
+
+            return;
+        }
+
+        byte[] data = evt.getData();
+
+        Matcher m = dataRequestPattern.matcher(request.getPathname());
+        Control.checkTrue(m.matches());
+
+        // Advertise the entry to future executions. The hash was computed along with the read.
+        getManifest(evt.getFlowNode()).put(m.group(2), evt.getHash());
+
+        sendData(csh, request, data);
+    }
+
+    /**
+     * Sends requested data to the given client.
+     */
+    protected void sendData(ClientState csh, DataEvent request, byte[] data) {
+
+        this.allFlowsMap.get(csh.getFlowNode().getLogicalNode().getFlow()).onBytes(data.length);
+
+        String channel = request.getChannel();
+
+        // Push bulk data over a side channel if the client offered one. The data pool bounds concurrent transfers.
+        if (channel != null && data.length >= BULK_DATA_THRESHOLD && csh.getAddress() != null) {
+
+            this.dataExecutor.execute(new DataSender(this.sp.base, this.sp, request, csh.getFlowNode(), //
+                    csh.getAddress(), data));
+
+        } else {
+
+            csh.getControlHandler().onRemote(new DataEvent(request.getPathname(), data, null));
+        }
+    }
+
     /**
      * Handles a message from the client resetting both ends to a common, inactive state.
      */
@@ -683,6 +1834,18 @@ public class ServerLogic {
 
         FlowNode flowNode = csh.getFlowNode();
 
+        // A failed backup copy leaves the original unaffected, and doesn't count against its retries.
+        if (isBackup(csh)) {
+
+            unlinkBackup(flowNode);
+            resetClient(csh, "The backup copy failed");
+
+            // Interrupt self.
+            requestRefresh();
+
+            return;
+        }
+
         Control.assertTrue(flowNode != null && csh == flowNode.getClientState());
 
         LogicalNode node = flowNode.getLogicalNode();
@@ -697,7 +1860,7 @@ public class ServerLogic {
         if (flowNode.incrementAndGetRetries() <= maxRetries) {
 
             // Reset everything in this flow node's equivalence class.
-            Control.assertTrue(node.getStatus().isExecuting() && this.executeList.add(node));
+            Control.assertTrue(node.getStatus().isExecuting() && this.readyQueue.add(node));
             resetNode(node);
             node.setStatus(LogicalNodeStatus.PENDING_EXECUTE);
 
@@ -709,7 +1872,7 @@ public class ServerLogic {
         }
 
         // Interrupt self.
-        this.sp.onLocal(new BaseControlEvent(REFRESH, this.sp));
+        requestRefresh();
     }
 
     /**
@@ -719,8 +1882,10 @@ public class ServerLogic {
 
         ClientState csh = (ClientState) evt.getSource().getHandler();
 
-        // The client had better not be in the wait set when we add it.
-        Control.assertTrue(this.clientWaitSet.add(csh));
+        // Switch to the compact wire format if the client understands it; the client follows suit upon receipt.
+        if (evt.isBinaryCapable()) {
+            csh.getControlHandler().setWireFormat(WireFormat.BINARY);
+        }
 
         // Notify the client of connection establishment.
         csh.getControlHandler().onRemote(new BaseControlEvent(INIT, null));
@@ -747,8 +1912,12 @@ public class ServerLogic {
         // The client is now awaiting further instructions.
         csh.setStatus(ClientStatus.WAIT);
 
+        // The domain is known, so the client may now be matched.
+        this.connectedClients.add(csh);
+        addWaitingClient(csh);
+
         // Interrupt self.
-        this.sp.onLocal(new BaseControlEvent(REFRESH, this.sp));
+        requestRefresh();
     }
 
     /**
@@ -757,6 +1926,14 @@ public class ServerLogic {
      * in, they all make said transition.
      */
     protected void handleResourceToPrepare(ClientState csh) {
+
+        if (isBackup(csh)) {
+
+            advanceBackup(csh, ClientStatus.PREPARE, PREPARE, CLIENT_TIMEOUT_MILLIS);
+
+            return;
+        }
+
         transitionIfReady(csh, //
                 ClientStatus.RESOURCE_ACK, ClientStatus.PREPARE, //
                 LogicalNodeStatus.RESOURCE, LogicalNodeStatus.PREPARE, //
@@ -772,13 +1949,27 @@ public class ServerLogic {
 
         FlowNode flowNode = csh.getFlowNode();
 
-        FlowProxy fp = this.allFlowsMap.get(flowNode.getLogicalNode().getFlow());
+        if (isBackup(csh)) {
+
+            advanceBackup(csh, ClientStatus.EXECUTE, EXECUTE, flowNode.getTimeout());
+
+            return;
+        }
+
+        LogicalNode node = flowNode.getLogicalNode();
+
+        FlowProxy fp = this.allFlowsMap.get(node.getFlow());
         fp.onFlowNodeBegin(fp.getAttachment(), flowNode.getAttachment());
 
         transitionIfReady(csh, //
                 ClientStatus.PREPARE_ACK, ClientStatus.EXECUTE, //
                 LogicalNodeStatus.PREPARE, LogicalNodeStatus.EXECUTE, //
                 EXECUTE, flowNode.getTimeout());
+
+        // Time the execution of candidates for speculation.
+        if (node.getStatus() == LogicalNodeStatus.EXECUTE && fp.isSpeculative() && isSpeculable(node)) {
+            this.executeStartMap.put(flowNode, System.currentTimeMillis());
+        }
     }
 
     /**
@@ -798,23 +1989,53 @@ public class ServerLogic {
         Server.getLog().debug(String.format("%s received on flow \"%s\".", evt.getType(), flow));
 
         FlowProxy fp = this.allFlowsMap.get(flow);
+
+        Long startTime = this.executeStartMap.remove(fn1);
+
+        // A backup copy finished first, so it takes the place of the original.
+        if (isBackup(csh)) {
+
+            ClientState loser = fn1.getClientState();
+
+            unlinkBackup(fn1);
+            unlinkClient(flow, fn1, loser);
+
+            loser.untimeout();
+            resetClient(loser, "Another copy finished first");
+
+            linkClient(flow, fn1, csh);
+
+            this.nBackupWins.incrementAndGet();
+
+        } else {
+
+            cancelBackup(fn1);
+
+            // Only originals contribute execution times, lest backups skew them.
+            if (startTime != null) {
+                addDuration(fp, fn1, System.currentTimeMillis() - startTime);
+            }
+        }
+
         fp.onFlowNodeEnd(fp.getAttachment(), fn1.getAttachment());
 
         try {
 
-            FlowUtilities.assignParameters(fn1, evt.getParameters(), evt.getEdgeParameters());
+            FlowUtilities.assignParameters(fn1, evt.getParameters(), evt.getEdgeParameters(), csh.getAddress());
 
         } catch (DapperException e) {
 
             handleReset(new ResetEvent("Failed to assign embedding parameters", e, evt.getSource()));
 
-            this.sp.onLocal(new BaseControlEvent(REFRESH, this.sp));
+            requestRefresh();
 
             return;
         }
 
         Control.assertTrue(n1.getStatus() == LogicalNodeStatus.EXECUTE);
 
+        boolean flowFinished = false;
+
         if (n1.getClientCountDown().countDown(fn1)) {
 
             ArrayList<Object> buildArgs = new ArrayList<Object>();
@@ -832,6 +2053,7 @@ public class ServerLogic {
 
             // Mark the node as having finished BEFORE determining completion or embedding a subflow.
             n1.setStatus(LogicalNodeStatus.FINISHED);
+            fp.onFlowNodesFinished(n1.getFlowNodes().size());
 
             // No subflows require embedding.
             if (buildArgs.isEmpty()) {
@@ -844,64 +2066,99 @@ public class ServerLogic {
                     // This node is ready to execute.
                     if (n2.getDependencyCountDown().countDown(n1)) {
 
-                        this.executeList.add(n2);
+                        this.readyQueue.add(n2);
                         n2.setStatus(LogicalNodeStatus.PENDING_EXECUTE);
                     }
                 }
 
                 // Count down on the node's flow.
-                if (flow.getFlowCountDown().countDown(n1)) {
-
-                    fp.onFlowEnd(fp.getAttachment());
-                    fp.set(null);
-
-                    flow.setStatus(FlowStatus.FINISHED);
-                }
+                flowFinished = flow.getFlowCountDown().countDown(n1);
             }
             // A subflow requires embedding.
             else {
 
-                Set<LogicalNode> nodes = flow.getNodes();
-
-                // Remove all eligible nodes belonging to this flow.
-                this.executeList.removeAll(nodes);
+                final Set<LogicalNode> changedNodes;
 
                 try {
 
-                    flow.build(buildArgs.toArray());
+                    changedNodes = flow.build(buildArgs.toArray());
 
                 } catch (DapperException e) {
 
                     purgeFlow(flow, e);
 
-                    this.sp.onLocal(new BaseControlEvent(REFRESH, this.sp));
+                    requestRefresh();
 
                     return;
                 }
 
-                // Restore all eligible nodes belonging to this flow.
-                for (LogicalNode n2 : FlowUtilities.buildCountDowns(flow)) {
+                // The embedding flow nodes have been removed, but they still count as finished.
+                fp.onSubflowsEmbedded(buildArgs.size() >> 1);
+
+                // Eligible nodes merged away by the embedding are gone. The rest keep their ready times and places in
+                // line.
+                this.readyQueue.retainFlow(flow, flow.getNodes());
 
-                    this.executeList.add(n2);
-                    n2.setStatus(LogicalNodeStatus.PENDING_EXECUTE);
+                // Only nodes that the embedding created or rewired can have become eligible.
+                for (LogicalNode n2 : FlowUtilities.buildCountDowns(changedNodes)) {
+
+                    if (this.readyQueue.add(n2)) {
+                        n2.setStatus(LogicalNodeStatus.PENDING_EXECUTE);
+                    }
                 }
 
                 // By construction, the modified flow no longer contains the completed node.
-                Control.assertTrue(!nodes.contains(n1));
+                Control.assertTrue(!flow.getNodes().contains(n1));
+
+                // The build took the completed node off of the flow's count down, and the subflows may have added
+                // nothing left to do.
+                flowFinished = flow.getFlowCountDown().countDown(null);
             }
         }
 
-        // The client had better not be in the wait set when we add it.
-        Control.assertTrue(this.clientWaitSet.add(csh));
+        // Unlink the client from its node BEFORE reporting final progress, so that it no longer counts as executing.
+        unlinkClient(flow, fn1, csh);
 
-        // Unlink the client from its node.
-        csh.setFlowNode(null);
-        fn1.setClientState(null);
+        if (flowFinished) {
+
+            fp.onFlowProgress(fp.getAttachment(), System.currentTimeMillis());
+            fp.onFlowEnd(fp.getAttachment());
+            fp.set(null);
+
+            flow.setStatus(FlowStatus.FINISHED);
+
+            retireLoaders(flow);
+            this.dataCache.remove(flow);
+        }
 
         // The client is now awaiting further instructions.
         csh.setStatus(ClientStatus.WAIT);
 
+        addWaitingClient(csh);
+
         // Interrupt self.
-        this.sp.onLocal(new BaseControlEvent(REFRESH, this.sp));
+        requestRefresh();
+    }
+
+    /**
+     * A cursor over the {@link LogicalNode}s of a {@link Flow} that are candidates for dispatch.
+     */
+    protected static class FlowCursor {
+
+        final FlowProxy fp;
+        final List<LogicalNode> nodes;
+
+        Iterator<LogicalNode> itr;
+
+        /**
+         * Default constructor.
+         */
+        protected FlowCursor(FlowProxy fp) {
+
+            this.fp = fp;
+            this.nodes = new ArrayList<LogicalNode>();
+
+            this.itr = null;
+        }
     }
 }
@@ -29,22 +29,30 @@
 package org.dapper.server;
 
 import static org.dapper.Constants.MAX_INTERNAL_QUEUE_SIZE;
+import static org.dapper.Constants.MIN_FLOW_STATUS_LOG_SIZE;
 import static org.dapper.event.ControlEvent.ControlEventType.GET_FLOW_PENDING_COUNT;
 import static org.dapper.event.ControlEvent.ControlEventType.GET_FLOW_PROXY;
+import static org.dapper.event.ControlEvent.ControlEventType.GET_FLOW_SNAPSHOT;
 import static org.dapper.event.ControlEvent.ControlEventType.PURGE_FLOW;
 import static org.dapper.event.SourceType.PROCESSOR;
 
 import java.net.InetAddress;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Formatter;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
 
+import org.dapper.DapperBase;
 import org.dapper.client.ClientStatus;
+import org.dapper.codelet.Codelet;
 import org.dapper.codelet.Taggable;
 import org.dapper.event.AddressEvent;
 import org.dapper.event.ControlEvent;
@@ -56,12 +64,21 @@ import org.dapper.event.ExecuteAckEvent;
 import org.dapper.event.FlowEvent;
 import org.dapper.event.FlowEvent.FlowEventType;
 import org.dapper.event.FlowEventBroadcaster;
+import org.dapper.event.FlowEventBroadcaster.OverflowPolicy;
+import org.dapper.event.FlowEventFilter;
+import org.dapper.event.FlowProgressEvent;
 import org.dapper.event.ResetEvent;
 import org.dapper.event.SourceType;
 import org.dapper.event.TimeoutEvent;
 import org.dapper.server.flow.Flow;
 import org.dapper.server.flow.FlowBuilder;
 import org.dapper.server.flow.FlowNode;
+import org.dapper.server.flow.FlowStatus;
+import org.dapper.server.flow.FlowStatusLog.Change;
+import org.dapper.server.flow.LogicalNode;
+import org.dapper.server.flow.LogicalNodeStatus;
+import org.dapper.util.HopcroftKarpMatching;
+import org.dapper.util.MatchingAlgorithm;
 import org.dapper.util.RequestFuture;
 import org.shared.event.EnumStatus;
 import org.shared.event.EventProcessor;
@@ -98,6 +115,7 @@ public class ServerProcessor extends EventProcessor<ControlEvent, ControlEventTy
     };
 
     final Runnable finalizer;
+    final DapperBase base;
     final ServerLogic logic;
     final StateTable<ServerStatus, ControlEventType, ControlEvent> fsmInternal;
     final StateTable<ClientStatus, ControlEventType, ControlEvent> fsmClient;
@@ -108,10 +126,18 @@ public class ServerProcessor extends EventProcessor<ControlEvent, ControlEventTy
 
     /**
      * Default constructor.
+     * 
+     * @param matching
+     *            the {@link MatchingAlgorithm} for pairing {@link FlowNode}s with waiting clients.
+     * @param policy
+     *            the {@link PriorityPolicy} for ordering {@link LogicalNode}s eligible for execution.
      */
-    public ServerProcessor(InetAddress address, final Runnable finalizer) {
+    public ServerProcessor(InetAddress address, DapperBase base, final Runnable finalizer, //
+            MatchingAlgorithm matching, PriorityPolicy policy) {
         super("SEP");
 
+        this.base = base;
+
         this.finalizer = new Runnable() {
 
             @Override
@@ -131,11 +157,13 @@ public class ServerProcessor extends EventProcessor<ControlEvent, ControlEventTy
 
                 IoBase.close(sp.feb);
 
+                sp.logic.dataExecutor.shutdownNow();
+
                 finalizer.run();
             }
         };
 
-        this.logic = new ServerLogic(address, this);
+        this.logic = new ServerLogic(address, this, matching, policy);
         this.fsmInternal = new StateTable<ServerStatus, ControlEventType, ControlEvent>(this, //
                 ServerStatus.class, ControlEventType.class, //
                 "internal");
@@ -149,6 +177,14 @@ public class ServerProcessor extends EventProcessor<ControlEvent, ControlEventTy
         this.status = ServerStatus.RUN;
     }
 
+    /**
+     * Alternate constructor. Uses {@link HopcroftKarpMatching} as the {@link MatchingAlgorithm} and
+     * {@link PriorityPolicy#CRITICAL_PATH} as the {@link PriorityPolicy}.
+     */
+    public ServerProcessor(InetAddress address, DapperBase base, Runnable finalizer) {
+        this(address, base, finalizer, new HopcroftKarpMatching(), PriorityPolicy.CRITICAL_PATH);
+    }
+
     @Override
     public SourceType getType() {
         return PROCESSOR;
@@ -200,6 +236,24 @@ public class ServerProcessor extends EventProcessor<ControlEvent, ControlEventTy
         }
     };
 
+    @Transition(currentState = "RUN", eventType = "PROGRESS", group = "internal")
+    final Handler<ControlEvent> progressHandler = new Handler<ControlEvent>() {
+
+        @Override
+        public void handle(ControlEvent evt) {
+            ServerProcessor.this.logic.handleProgress();
+        }
+    };
+
+    @Transition(currentState = "RUN", eventType = "DATA_READY", group = "internal")
+    final Handler<ControlEvent> dataReadyHandler = new Handler<ControlEvent>() {
+
+        @Override
+        public void handle(ControlEvent evt) {
+            ServerProcessor.this.logic.handleDataReady((DataReadyEvent) evt);
+        }
+    };
+
     @Transition(currentState = "RUN", eventType = "CREATE_FLOW", group = "internal")
     final Handler<ControlEvent> createFlowHandler = new Handler<ControlEvent>() {
 
@@ -230,6 +284,36 @@ public class ServerProcessor extends EventProcessor<ControlEvent, ControlEventTy
         }
     };
 
+    @Transition(currentState = "RUN", eventType = "SET_REFRESH_WINDOW", group = "internal")
+    final Handler<ControlEvent> setRefreshWindowHandler = new Handler<ControlEvent>() {
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void handle(ControlEvent evt) {
+            ServerProcessor.this.logic.handleSetRefreshWindow((RequestEvent<Long, Object>) evt);
+        }
+    };
+
+    @Transition(currentState = "RUN", eventType = "SET_LOCALITY_DELAY", group = "internal")
+    final Handler<ControlEvent> setLocalityDelayHandler = new Handler<ControlEvent>() {
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void handle(ControlEvent evt) {
+            ServerProcessor.this.logic.handleSetLocalityDelay((RequestEvent<Long, Object>) evt);
+        }
+    };
+
+    @Transition(currentState = "RUN", eventType = "SET_PROGRESS_INTERVAL", group = "internal")
+    final Handler<ControlEvent> setProgressIntervalHandler = new Handler<ControlEvent>() {
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void handle(ControlEvent evt) {
+            ServerProcessor.this.logic.handleSetProgressInterval((RequestEvent<Long, Object>) evt);
+        }
+    };
+
     @Transition(currentState = "RUN", eventType = "GET_FLOW_PROXY", group = "internal")
     final Handler<ControlEvent> getFlowProxyHandler = new Handler<ControlEvent>() {
 
@@ -240,6 +324,16 @@ public class ServerProcessor extends EventProcessor<ControlEvent, ControlEventTy
         }
     };
 
+    @Transition(currentState = "RUN", eventType = "GET_FLOW_SNAPSHOT", group = "internal")
+    final Handler<ControlEvent> getFlowSnapshotHandler = new Handler<ControlEvent>() {
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void handle(ControlEvent evt) {
+            ServerProcessor.this.logic.handleGetFlowSnapshot((RequestEvent<Flow, Flow>) evt);
+        }
+    };
+
     @Transition(currentState = "RUN", eventType = "GET_PENDING_COUNT", group = "internal")
     final Handler<ControlEvent> getPendingCountHandler = new Handler<ControlEvent>() {
 
@@ -266,8 +360,13 @@ public class ServerProcessor extends EventProcessor<ControlEvent, ControlEventTy
         @SuppressWarnings("unchecked")
         @Override
         public void handle(ControlEvent evt) {
-            ((RequestEvent<Flow, BlockingQueue<FlowEvent<Object, Object>>>) evt) //
-                    .set(ServerProcessor.this.feb.createUserQueue());
+            RequestEvent<UserQueueRequest, BlockingQueue<FlowEvent<Object, Object>>> rEvt = //
+            (RequestEvent<UserQueueRequest, BlockingQueue<FlowEvent<Object, Object>>>) evt;
+
+            UserQueueRequest uqr = rEvt.getInput();
+
+            rEvt.set((uqr != null) ? ServerProcessor.this.feb.<Object, Object> createUserQueue(uqr.filter, //
+                    uqr.policy, MAX_INTERNAL_QUEUE_SIZE) : ServerProcessor.this.feb.<Object, Object> createUserQueue());
         }
     };
 
@@ -416,6 +515,56 @@ public class ServerProcessor extends EventProcessor<ControlEvent, ControlEventTy
         return evt.get();
     }
 
+    /**
+     * Gets the number of refreshes requested of the {@link ServerLogic}.
+     */
+    public long getRefreshRequestCount() {
+        return this.logic.getRefreshRequestCount();
+    }
+
+    /**
+     * Gets the number of refreshes executed by the {@link ServerLogic}. Since requests are coalesced, this is at most
+     * {@link #getRefreshRequestCount()}.
+     */
+    public long getRefreshCount() {
+        return this.logic.getRefreshCount();
+    }
+
+    /**
+     * Gets the number of speculative backup copies launched.
+     */
+    public long getBackupCount() {
+        return this.logic.getBackupCount();
+    }
+
+    /**
+     * Gets the number of speculative backup copies that finished before their originals.
+     */
+    public long getBackupWinCount() {
+        return this.logic.getBackupWinCount();
+    }
+
+    /**
+     * Gets the number of dispatched gangs, which are {@link ServerLogic} nodes spanning more than one {@link FlowNode}.
+     */
+    public long getGangDispatchCount() {
+        return this.logic.getGangDispatchCount();
+    }
+
+    /**
+     * Gets the total time in milliseconds that dispatched gangs spent waiting for clients.
+     */
+    public long getGangWaitMillis() {
+        return this.logic.getGangWaitMillis();
+    }
+
+    /**
+     * Gets the longest time in milliseconds that a dispatched gang spent waiting for clients.
+     */
+    public long getMaxGangWaitMillis() {
+        return this.logic.getMaxGangWaitMillis();
+    }
+
     /**
      * Broadcasts a {@link FlowEvent} constructed from the given information.
      * 
@@ -425,7 +574,11 @@ public class ServerProcessor extends EventProcessor<ControlEvent, ControlEventTy
      *            the {@link FlowNode} attachment type.
      */
     public <F, N> void broadcast(FlowEventType type, F flowAttachment, N flowNodeAttachment, Throwable exception) {
-        this.feb.add(new FlowEvent<F, N>(type, flowAttachment, flowNodeAttachment, exception));
+
+        // Avoid creating events that no subscriber accepts.
+        if (this.feb.hasSubscribers(type)) {
+            this.feb.add(new FlowEvent<F, N>(type, flowAttachment, flowNodeAttachment, exception));
+        }
     }
 
     /**
@@ -496,25 +649,69 @@ public class ServerProcessor extends EventProcessor<ControlEvent, ControlEventTy
     }
 
     /**
-     * A wrapper for {@link Flow}s gotten from the server.
+     * A wrapper for {@link Flow}s gotten from the server. Statuses are kept in arrays indexed by order, which refreshes
+     * bring up to date by replaying the {@link Flow}'s recent changes, so that observing a {@link Flow} doesn't
+     * require copying it.
      */
     public class FlowProxy extends FutureTask<Object> implements RequestFuture<Object>, Taggable<Object> {
 
-        Flow flow;
+        FlowStatus flowStatus;
+        final StatusArray<LogicalNodeStatus> nodeStatuses;
+        final StatusArray<ClientStatus> clientStatuses;
+
+        final List<Change> changes;
+        long flowVersion, baseVersion;
+        int capacity;
 
         final Flow originalFlow;
         final int flowFlags;
+        final double weight;
+        final int minClients, maxClients;
+
+        final Map<Class<?>, List<Long>> durationsMap;
+
+        int nClients, nExecuting;
+        boolean throttled;
+
+        long nFinished, nFailed, nBytes, nEmbedded;
+        long progressMillis, progressFinished, progressBytes;
+
+        volatile boolean speculative;
 
         /**
          * Default constructor.
          */
-        protected FlowProxy(Flow originalFlow, int flowFlags) {
+        protected FlowProxy(Flow originalFlow, int flowFlags, double weight, int minClients, int maxClients) {
             super(nullRunnable, null);
 
             this.originalFlow = originalFlow;
             this.flowFlags = flowFlags;
+            this.weight = weight;
+            this.minClients = minClients;
+            this.maxClients = maxClients;
+
+            this.durationsMap = new HashMap<Class<?>, List<Long>>();
 
-            this.flow = originalFlow.clone();
+            this.nClients = 0;
+            this.nExecuting = 0;
+            this.throttled = false;
+
+            this.nFinished = 0;
+            this.nFailed = 0;
+            this.nBytes = 0;
+            this.nEmbedded = 0;
+            this.progressMillis = System.currentTimeMillis();
+            this.progressFinished = 0;
+            this.progressBytes = 0;
+
+            this.speculative = false;
+
+            this.nodeStatuses = new StatusArray<LogicalNodeStatus>(this);
+            this.clientStatuses = new StatusArray<ClientStatus>(this);
+
+            this.changes = new ArrayList<Change>();
+
+            resync(originalFlow, originalFlow.getStatusLog().getVersion());
 
             ServerProcessor sp = ServerProcessor.this;
 
@@ -551,29 +748,183 @@ public class ServerProcessor extends EventProcessor<ControlEvent, ControlEventTy
         }
 
         /**
-         * Gets the current {@link Flow}.
+         * Gets a copy of the {@link Flow} as it stands, structure included. Since copying takes time proportional to
+         * the size of the {@link Flow}, observers of statuses alone should refresh and consult
+         * {@link #getFlowStatus()}, {@link #getNodeStatuses()}, {@link #getClientStatuses()}, or
+         * {@link #getChangesSince(long)} instead.
+         * 
+         * @throws InterruptedException
+         *             when this operation is interrupted.
+         * @throws ExecutionException
+         *             when something goes awry.
          */
-        public Flow getFlow() {
-            return this.flow;
+        public Flow getFlow() throws InterruptedException, ExecutionException {
+            return (Flow) request(GET_FLOW_SNAPSHOT, this.originalFlow);
         }
 
         /**
-         * Sets the current {@link Flow}.
+         * Gets the {@link FlowStatus} as of the last refresh.
          */
-        public void setFlow(Flow flow) {
-            this.flow = flow;
+        public synchronized FlowStatus getFlowStatus() {
+            return this.flowStatus;
         }
 
         /**
-         * Delegates to the current {@link Flow}'s {@link Flow#toString()} method.
+         * Gets a view of the {@link LogicalNodeStatus}es as of the latest refresh, indexed by {@link LogicalNode} order.
+         * Orders not in use map to {@code null}.
          */
-        @Override
-        public String toString() {
+        public List<LogicalNodeStatus> getNodeStatuses() {
+            return this.nodeStatuses;
+        }
 
-            Formatter f = new Formatter();
-            this.flow.render(f);
+        /**
+         * Gets a view of the {@link ClientStatus}es of clients linked to {@link FlowNode}s as of the latest refresh,
+         * indexed by {@link FlowNode} order. Orders not in use, and {@link FlowNode}s without clients, map to
+         * {@code null}.
+         */
+        public List<ClientStatus> getClientStatuses() {
+            return this.clientStatuses;
+        }
 
-            return f.toString();
+        /**
+         * Gets the version of the {@link Flow} as of the latest refresh.
+         */
+        public synchronized long getVersion() {
+            return this.flowVersion;
+        }
+
+        /**
+         * Gets the status changes made after the given version, up to the latest refresh.
+         * 
+         * @return the changes in the order they were made, or {@code null} if they are no longer available and the
+         *         status views should be read in full.
+         */
+        public synchronized List<Change> getChangesSince(long version) {
+
+            if (version < this.baseVersion || version > this.flowVersion) {
+                return null;
+            }
+
+            return new ArrayList<Change>(this.changes.subList((int) (version - this.baseVersion), this.changes.size()));
+        }
+
+        /**
+         * Gets the fair share weight.
+         */
+        public double getWeight() {
+            return this.weight;
+        }
+
+        /**
+         * Gets the number of clients the {@link Flow} is entitled to before fair sharing applies.
+         */
+        public int getMinClients() {
+            return this.minClients;
+        }
+
+        /**
+         * Gets the maximum number of clients the {@link Flow} may occupy.
+         */
+        public int getMaxClients() {
+            return this.maxClients;
+        }
+
+        /**
+         * Gets whether stragglers may be speculatively executed.
+         */
+        public boolean isSpeculative() {
+            return this.speculative;
+        }
+
+        /**
+         * Sets whether stragglers may be speculatively executed. If so, a side effect-free singleton
+         * {@link LogicalNode}, which reads through handles at most, has only dummy out-edges, and doesn't embed
+         * subflows, gets a backup copy on a waiting client once it runs far longer than its finished siblings of the
+         * same {@link Codelet} class. Whichever copy finishes first wins.
+         */
+        public FlowProxy setSpeculative(boolean speculative) {
+
+            this.speculative = speculative;
+
+            return this;
+        }
+
+        /**
+         * Reads all statuses off of the given {@link Flow} as of the given version. Done when the changes since the
+         * last refresh are no longer available.
+         */
+        protected synchronized void resync(Flow flow, long flowVersion) {
+
+            this.flowStatus = flow.getStatus();
+
+            this.nodeStatuses.reset();
+            this.clientStatuses.reset();
+
+            for (LogicalNode node : flow.getNodes()) {
+
+                this.nodeStatuses.put(node.getOrder(), node.getStatus());
+
+                for (FlowNode flowNode : node.getFlowNodes()) {
+                    this.clientStatuses.put(flowNode.getOrder(), flowNode.getClientStatus());
+                }
+            }
+
+            this.changes.clear();
+
+            this.flowVersion = flowVersion;
+            this.baseVersion = flowVersion;
+
+            // Retain enough changes for observers to catch up on a couple of full passes over the flow.
+            this.capacity = Math.max(MIN_FLOW_STATUS_LOG_SIZE, //
+                    2 * (this.nodeStatuses.size + this.clientStatuses.size));
+        }
+
+        /**
+         * Replays the given status changes, which bring the statuses up to the given version.
+         */
+        protected synchronized void addChanges(List<Change> changes, long flowVersion) {
+
+            for (Change change : changes) {
+
+                switch (change.getType()) {
+
+                case FLOW:
+                    this.flowStatus = (FlowStatus) change.getStatus();
+                    break;
+
+                case LOGICAL_NODE:
+                    this.nodeStatuses.put(change.getOrder(), (LogicalNodeStatus) change.getStatus());
+                    break;
+
+                case FLOW_NODE:
+                    this.clientStatuses.put(change.getOrder(), (ClientStatus) change.getStatus());
+                    break;
+
+                default:
+                    throw new IllegalArgumentException("Invalid change type");
+                }
+            }
+
+            this.changes.addAll(changes);
+            this.flowVersion = flowVersion;
+
+            // The structure may have grown, and the log with it.
+            this.capacity = Math.max(this.capacity, 2 * (this.nodeStatuses.size + this.clientStatuses.size));
+
+            // Drop the log wholesale instead of letting it grow without bound; laggards will read the views in full.
+            if (this.changes.size() > this.capacity) {
+
+                this.changes.clear();
+                this.baseVersion = flowVersion;
+            }
+        }
+
+        /**
+         * Delegates to the {@link Flow}'s {@link Flow#toString()} method.
+         */
+        @Override
+        public String toString() {
+            return this.originalFlow.toString();
         }
 
         /**
@@ -679,10 +1030,133 @@ public class ServerProcessor extends EventProcessor<ControlEvent, ControlEventTy
          */
         protected void onFlowNodeError(Object flowAttachment, Object flowNodeAttachment, Throwable exception) {
 
+            this.nFailed++;
+
             if ((this.flowFlags & FlowEvent.F_FLOW_NODE) != 0) {
                 broadcast(FlowEventType.FLOW_NODE_ERROR, flowAttachment, flowNodeAttachment, exception);
             }
         }
+
+        /**
+         * On {@link FlowNode}s finishing.
+         */
+        protected void onFlowNodesFinished(int count) {
+            this.nFinished += count;
+        }
+
+        /**
+         * On embedding {@link FlowNode}s being replaced by their subflows. They stay counted as finished even though
+         * they are no longer part of the {@link Flow}.
+         */
+        protected void onSubflowsEmbedded(int count) {
+            this.nEmbedded += count;
+        }
+
+        /**
+         * On data being served to the {@link Flow}'s clients.
+         */
+        protected void onBytes(int count) {
+            this.nBytes += count;
+        }
+
+        /**
+         * On a {@link Flow} progress tick. Broadcasts counts accumulated in place of individual {@link FlowNode}
+         * events, along with rates since the previous tick.
+         */
+        protected void onFlowProgress(Object flowAttachment, long now) {
+
+            if ((this.flowFlags & FlowEvent.F_FLOW_PROGRESS) == 0) {
+                return;
+            }
+
+            double seconds = Math.max(now - this.progressMillis, 1) / 1000.0;
+
+            // Count executing flow nodes rather than occupied clients, since speculative backup copies occupy clients
+            // too.
+            long nPending = Math.max(this.originalFlow.getFlowNodeCount() + this.nEmbedded //
+                    - this.nFinished - this.nExecuting, 0);
+
+            if (ServerProcessor.this.feb.hasSubscribers(FlowEventType.FLOW_PROGRESS)) {
+                ServerProcessor.this.feb.add(new FlowProgressEvent<Object, Object>(flowAttachment, //
+                        nPending, this.nExecuting, this.nFinished, this.nFailed, this.nBytes, //
+                        (this.nBytes - this.progressBytes) / seconds, //
+                        (this.nFinished - this.progressFinished) / seconds));
+            }
+
+            this.progressMillis = now;
+            this.progressFinished = this.nFinished;
+            this.progressBytes = this.nBytes;
+        }
+    }
+
+    /**
+     * A growable array of statuses indexed by order. It doubles as a read-only {@link List} view, whose reads
+     * synchronize on the given lock.
+     * 
+     * @param <T>
+     *            the status type.
+     */
+    protected static class StatusArray<T> extends AbstractList<T> {
+
+        final Object lock;
+
+        Object[] values;
+        int size;
+
+        /**
+         * Default constructor.
+         */
+        protected StatusArray(Object lock) {
+
+            this.lock = lock;
+
+            this.values = new Object[] {};
+            this.size = 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T get(int index) {
+
+            synchronized (this.lock) {
+
+                if (index < 0 || index >= this.size) {
+                    throw new IndexOutOfBoundsException();
+                }
+
+                return (T) this.values[index];
+            }
+        }
+
+        @Override
+        public int size() {
+
+            synchronized (this.lock) {
+                return this.size;
+            }
+        }
+
+        /**
+         * Puts a status at the given order, growing the array as needed. The lock must be held.
+         */
+        protected void put(int order, T value) {
+
+            if (order >= this.values.length) {
+                this.values = Arrays.copyOf(this.values, Math.max(2 * this.values.length, order + 1));
+            }
+
+            this.values[order] = value;
+            this.size = Math.max(this.size, order + 1);
+        }
+
+        /**
+         * Clears all statuses. The lock must be held.
+         */
+        protected void reset() {
+
+            Arrays.fill(this.values, 0, this.size, null);
+            this.size = 0;
+        }
     }
 
     /**
@@ -705,14 +1179,71 @@ public class ServerProcessor extends EventProcessor<ControlEvent, ControlEventTy
          */
         final public int flowFlags;
 
+        /**
+         * The weight used to apportion clients among competing {@link Flow}s.
+         */
+        final public double weight;
+
+        /**
+         * The number of clients the {@link Flow} is entitled to before fair sharing applies.
+         */
+        final public int minClients;
+
+        /**
+         * The maximum number of clients the {@link Flow} may occupy.
+         */
+        final public int maxClients;
+
         /**
          * Default constructor.
          */
-        public FlowBuildRequest(FlowBuilder flowBuilder, ClassLoader classLoader, int flowFlags) {
+        public FlowBuildRequest(FlowBuilder flowBuilder, ClassLoader classLoader, int flowFlags, //
+                double weight, int minClients, int maxClients) {
+
+            Control.checkTrue(weight > 0.0, //
+                    "Weight must be positive");
+
+            Control.checkTrue(minClients >= 0 && minClients <= maxClients, //
+                    "Invalid client quotas");
 
             this.flowBuilder = flowBuilder;
             this.classLoader = classLoader;
             this.flowFlags = flowFlags;
+            this.weight = weight;
+            this.minClients = minClients;
+            this.maxClients = maxClients;
+        }
+
+        /**
+         * Alternate constructor. The {@link Flow} gets unit weight and no quotas.
+         */
+        public FlowBuildRequest(FlowBuilder flowBuilder, ClassLoader classLoader, int flowFlags) {
+            this(flowBuilder, classLoader, flowFlags, 1.0, 0, Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * A container class for requesting a subscription to {@link FlowEvent}s.
+     */
+    public static class UserQueueRequest {
+
+        /**
+         * The {@link FlowEventFilter} selecting the events of interest.
+         */
+        final public FlowEventFilter filter;
+
+        /**
+         * The {@link OverflowPolicy} to apply when the subscriber falls behind.
+         */
+        final public OverflowPolicy policy;
+
+        /**
+         * Default constructor.
+         */
+        public UserQueueRequest(FlowEventFilter filter, OverflowPolicy policy) {
+
+            this.filter = (filter != null) ? filter : FlowEventFilter.ALL;
+            this.policy = (policy != null) ? policy : OverflowPolicy.BLOCK;
         }
     }
 }
@@ -28,13 +28,20 @@
 
 package org.dapper.server.flow;
 
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Set;
 
 import org.shared.util.Control;
 
 /**
- * An implementation of {@link CountDown} that leaves the {@link CountDown#reset()} method abstract.
+ * An implementation of {@link CountDown} that leaves the {@link CountDown#reset()} method abstract. Members are kept
+ * in an array sorted by their natural ordering, which for nodes is their assigned order, so that a {@link BitSet} over
+ * array positions and an int counter suffice to track what remains. Members may also come and go between resets, in
+ * which case departed ones linger as tombstones until they make up half of the array.
  * 
  * @param <T>
  *            the type to count down on.
@@ -42,30 +49,157 @@ import org.shared.util.Control;
  */
 abstract public class AbstractCountDown<T> implements CountDown<T> {
 
-    final Set<T> countDownSet, unmodifiableView;
+    /**
+     * An empty array of members.
+     */
+    final protected static Object[] emptyMembers = new Object[] {};
+
+    final BitSet remainingBits;
+    final BitSet retiredBits;
+
+    Object[] members;
+    int nMembers, nRemaining, nRetired;
 
     /**
      * Default constructor.
      */
-    public AbstractCountDown(Set<T> countDownSet) {
+    public AbstractCountDown() {
 
-        this.countDownSet = countDownSet;
-        this.unmodifiableView = Collections.unmodifiableSet(this.countDownSet);
+        this.remainingBits = new BitSet();
+        this.retiredBits = new BitSet();
+
+        this.members = emptyMembers;
+        this.nMembers = 0;
+        this.nRemaining = 0;
+        this.nRetired = 0;
     }
 
     @Override
     public boolean countDown(T value) {
 
         if (value != null) {
-            Control.checkTrue(this.countDownSet.remove(value), //
+
+            int index = Arrays.binarySearch(this.members, 0, this.nMembers, value);
+
+            Control.checkTrue(index >= 0 && this.members[index] == value && this.remainingBits.get(index), //
                     "Value was not part of countdown");
+
+            this.remainingBits.clear(index);
+            this.nRemaining--;
         }
 
-        return this.countDownSet.isEmpty();
+        return this.nRemaining == 0;
     };
 
+    /**
+     * Gets a snapshot of the remaining items.
+     */
+    @SuppressWarnings("unchecked")
     @Override
     public Set<T> getRemaining() {
-        return this.unmodifiableView;
+
+        Set<T> res = new HashSet<T>();
+
+        for (int i = this.remainingBits.nextSetBit(0); i >= 0; i = this.remainingBits.nextSetBit(i + 1)) {
+            res.add((T) this.members[i]);
+        }
+
+        return Collections.unmodifiableSet(res);
+    }
+
+    /**
+     * Resets the count down on the given members.
+     */
+    protected void reset(Collection<? extends T> members) {
+
+        this.members = members.toArray();
+        Arrays.sort(this.members);
+
+        this.nMembers = this.members.length;
+
+        this.retiredBits.clear();
+        this.nRetired = 0;
+
+        refill();
+    }
+
+    /**
+     * Resets the count down on the current members.
+     */
+    protected void refill() {
+
+        this.remainingBits.clear();
+        this.remainingBits.set(0, this.nMembers);
+        this.remainingBits.andNot(this.retiredBits);
+
+        this.nRemaining = this.nMembers - this.nRetired;
+    }
+
+    /**
+     * Adds a member yet to be counted down on. Since members are kept sorted, it must come after all current ones.
+     */
+    @SuppressWarnings("unchecked")
+    protected void append(T value) {
+
+        int index = this.nMembers;
+
+        Control.checkTrue(index == 0 || ((Comparable<Object>) this.members[index - 1]).compareTo(value) < 0, //
+                "Value must come after all members");
+
+        if (index == this.members.length) {
+            this.members = Arrays.copyOf(this.members, Math.max(2 * index, 1));
+        }
+
+        this.members[index] = value;
+        this.nMembers++;
+
+        this.remainingBits.set(index);
+        this.nRemaining++;
+    }
+
+    /**
+     * Removes a member, whether or not it has been counted down on.
+     */
+    protected void retire(T value) {
+
+        int index = Arrays.binarySearch(this.members, 0, this.nMembers, value);
+
+        Control.checkTrue(index >= 0 && this.members[index] == value && !this.retiredBits.get(index), //
+                "Value was not part of countdown");
+
+        if (this.remainingBits.get(index)) {
+
+            this.remainingBits.clear(index);
+            this.nRemaining--;
+        }
+
+        this.retiredBits.set(index);
+        this.nRetired++;
+
+        // Compact once tombstones make up half of the members, so that retirement takes amortized constant time.
+        if (2 * this.nRetired > this.nMembers) {
+
+            int nLive = 0;
+
+            for (int i = 0; i < this.nMembers; i++) {
+
+                if (this.retiredBits.get(i)) {
+                    continue;
+                }
+
+                this.members[nLive] = this.members[i];
+                this.remainingBits.set(nLive, this.remainingBits.get(i));
+
+                nLive++;
+            }
+
+            Arrays.fill(this.members, nLive, this.nMembers, null);
+            this.remainingBits.clear(nLive, this.nMembers);
+
+            this.nMembers = nLive;
+
+            this.retiredBits.clear();
+            this.nRetired = 0;
+        }
     }
 }
@@ -32,12 +32,15 @@ import static org.dapper.Constants.BLACK;
 import static org.dapper.Constants.DARK_GREEN;
 import static org.dapper.Constants.DARK_ORANGE;
 import static org.dapper.Constants.DARK_RED;
+import static org.dapper.Constants.MIN_FLOW_STATUS_LOG_SIZE;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Formatter;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -45,14 +48,12 @@ import java.util.Set;
 import java.util.TreeSet;
 
 import org.dapper.DapperException;
-import org.dapper.codelet.Codelet;
 import org.dapper.codelet.Taggable;
-import org.dapper.server.ClientState;
 import org.dapper.server.flow.FlowEdge.FlowEdgeType;
+import org.dapper.server.flow.FlowStatusLog.ChangeType;
 import org.shared.array.ObjectArray;
 import org.shared.event.EnumStatus;
 import org.shared.parallel.Edge;
-import org.shared.parallel.LimitedMemoryPolicy;
 import org.shared.parallel.Traversable;
 import org.shared.util.Control;
 
@@ -90,15 +91,29 @@ public class Flow implements Cloneable, Renderable, EnumStatus<FlowStatus>, Tagg
 
     FlowStatus status;
 
+    FlowStatusLog statusLog;
+
     //
 
     Set<LogicalNode> nodes;
     Set<FlowNode> flowNodes;
 
+    int nextOrder, nextFlowNodeOrder;
+
     /**
      * The {@link CountDown} on {@link LogicalNode}s.
      */
-    protected CountDown<LogicalNode> flowCountDown;
+    protected AbstractCountDown<LogicalNode> flowCountDown;
+
+    /**
+     * The undo actions recorded by the build in progress, or {@code null} if none.
+     */
+    protected List<Runnable> journal;
+
+    /**
+     * The lists whose original contents have already been recorded by the build in progress.
+     */
+    protected Set<List<?>> journaledLists;
 
     /**
      * Default constructor.
@@ -111,12 +126,20 @@ public class Flow implements Cloneable, Renderable, EnumStatus<FlowStatus>, Tagg
         this.attachment = null;
         this.status = FlowStatus.EXECUTE;
 
+        this.statusLog = new FlowStatusLog(MIN_FLOW_STATUS_LOG_SIZE);
+
         //
 
         this.nodes = new HashSet<LogicalNode>();
         this.flowNodes = new HashSet<FlowNode>();
 
-        this.flowCountDown = createFlowCountDown(new HashSet<LogicalNode>());
+        this.nextOrder = 0;
+        this.nextFlowNodeOrder = 0;
+
+        this.flowCountDown = createFlowCountDown();
+
+        this.journal = null;
+        this.journaledLists = null;
     }
 
     /**
@@ -192,19 +215,43 @@ public class Flow implements Cloneable, Renderable, EnumStatus<FlowStatus>, Tagg
     /**
      * Creates the flow {@link CountDown}.
      */
-    protected CountDown<LogicalNode> createFlowCountDown(final Set<LogicalNode> cds) {
+    protected AbstractCountDown<LogicalNode> createFlowCountDown() {
 
-        return new AbstractCountDown<LogicalNode>(cds) {
+        return new AbstractCountDown<LogicalNode>() {
 
             @Override
             public void reset() {
-
-                cds.clear();
-                cds.addAll(Flow.this.nodes);
+                reset(Flow.this.nodes);
             }
         };
     }
 
+    /**
+     * Brings a freshly created {@link CountDown} on a flow copy to the same state as the original.
+     * 
+     * @return the copy.
+     */
+    final protected static <T, C extends CountDown<T>> C copyCountDown(C copy, CountDown<T> original, //
+            Map<T, T> valueMap) {
+
+        Set<T> remaining = new HashSet<T>();
+
+        for (T value : original.getRemaining()) {
+            remaining.add(valueMap.get(value));
+        }
+
+        copy.reset();
+
+        for (T value : copy.getRemaining()) {
+
+            if (!remaining.contains(value)) {
+                copy.countDown(value);
+            }
+        }
+
+        return copy;
+    }
+
     /**
      * Copies this flow.
      */
@@ -222,9 +269,15 @@ public class Flow implements Cloneable, Renderable, EnumStatus<FlowStatus>, Tagg
             throw new RuntimeException(e);
         }
 
+        // Copies start their own log, since they are observed rather than executed.
+        res.statusLog = new FlowStatusLog(this.statusLog.capacity);
+
         res.nodes = new HashSet<LogicalNode>();
         res.flowNodes = new HashSet<FlowNode>();
 
+        res.journal = null;
+        res.journaledLists = null;
+
         Map<LogicalNode, LogicalNode> logicalNodeMap = new HashMap<LogicalNode, LogicalNode>();
         Map<LogicalEdge, LogicalEdge> logicalEdgeMap = new HashMap<LogicalEdge, LogicalEdge>();
 
@@ -267,37 +320,24 @@ public class Flow implements Cloneable, Renderable, EnumStatus<FlowStatus>, Tagg
 
         assignNodeNeighbors(flowNodeMap, flowEdgeMap);
 
-        Set<LogicalNode> newNodeSet = new HashSet<LogicalNode>();
-
         for (Entry<LogicalNode, LogicalNode> entry : logicalNodeMap.entrySet()) {
 
             LogicalNode oldLogicalNode = entry.getKey();
             LogicalNode newLogicalNode = entry.getValue();
 
-            Set<LogicalNode> newDependencySet = new HashSet<LogicalNode>();
-            Set<FlowNode> newClientSet = new HashSet<FlowNode>();
-
-            for (LogicalNode logicalNode : oldLogicalNode.getDependencyCountDown().getRemaining()) {
-                newDependencySet.add(logicalNodeMap.get(logicalNode));
-            }
-
-            for (FlowNode flowNode : oldLogicalNode.getClientCountDown().getRemaining()) {
-                newClientSet.add(flowNodeMap.get(flowNode));
-            }
-
-            newLogicalNode.dependencyCountDown = newLogicalNode.createDependencyCountDown(newDependencySet);
-            newLogicalNode.clientCountDown = newLogicalNode.createClientCountDown(newClientSet);
-
             Set<FlowNode> newFlowNodes = newLogicalNode.getFlowNodes();
 
             for (FlowNode flowNode : oldLogicalNode.getFlowNodes()) {
                 newFlowNodes.add(flowNodeMap.get(flowNode));
             }
 
-            newNodeSet.add(newLogicalNode);
+            newLogicalNode.dependencyCountDown = copyCountDown(newLogicalNode.createDependencyCountDown(), //
+                    oldLogicalNode.getDependencyCountDown(), logicalNodeMap);
+            newLogicalNode.clientCountDown = copyCountDown(newLogicalNode.createClientCountDown(), //
+                    oldLogicalNode.getClientCountDown(), flowNodeMap);
         }
 
-        res.flowCountDown = res.createFlowCountDown(newNodeSet);
+        res.flowCountDown = copyCountDown(res.createFlowCountDown(), this.flowCountDown, logicalNodeMap);
 
         return res;
     }
@@ -351,7 +391,17 @@ public class Flow implements Cloneable, Renderable, EnumStatus<FlowStatus>, Tagg
 
     @Override
     public void setStatus(FlowStatus status) {
+
         this.status = status;
+
+        this.statusLog.record(ChangeType.FLOW, -1, status);
+    }
+
+    /**
+     * Gets the {@link FlowStatusLog}.
+     */
+    public FlowStatusLog getStatusLog() {
+        return this.statusLog;
     }
 
     @Override
@@ -374,6 +424,13 @@ public class Flow implements Cloneable, Renderable, EnumStatus<FlowStatus>, Tagg
         return this.nodes;
     }
 
+    /**
+     * Gets the number of {@link FlowNode}s.
+     */
+    public int getFlowNodeCount() {
+        return this.flowNodes.size();
+    }
+
     /**
      * Gets the flow {@link CountDown}.
      */
@@ -382,50 +439,240 @@ public class Flow implements Cloneable, Renderable, EnumStatus<FlowStatus>, Tagg
     }
 
     /**
-     * Builds this flow using the given {@link FlowBuilder}.
+     * Builds this flow using the given {@link FlowBuilder}. The flow {@link CountDown} is kept up to date, while
+     * dependency {@link CountDown}s are left to the caller.
      * 
+     * @return the new {@link LogicalNode}s and the preexisting ones whose neighborhoods changed.
      * @throws DapperException
      *             when something goes awry.
      */
-    public void build(Object... args) throws DapperException {
+    public Set<LogicalNode> build(Object... args) throws DapperException {
 
         Control.checkTrue(args.length % 2 == 0, //
                 "Number of arguments must be even");
 
-        final Flow backup = clone();
+        this.journal = new ArrayList<Runnable>();
+        this.journaledLists = Collections.newSetFromMap(new IdentityHashMap<List<?>, Boolean>());
+
+        final int nextOrder = this.nextOrder;
+        final int nextFlowNodeOrder = this.nextFlowNodeOrder;
+
+        journal(new Runnable() {
+
+            @Override
+            public void run() {
+
+                Flow.this.nextOrder = nextOrder;
+                Flow.this.nextFlowNodeOrder = nextFlowNodeOrder;
+            }
+        });
+
+        List<LogicalNode> newNodes = new ArrayList<LogicalNode>();
+        List<LogicalNode> removedNodes = new ArrayList<LogicalNode>();
+
+        final Set<LogicalNode> changedNodes;
 
         try {
 
-            embedSubflows(args);
+            changedNodes = embedSubflows(args, newNodes, removedNodes);
 
         } catch (Throwable t) {
 
-            this.nodes = backup.nodes;
-            this.flowNodes = backup.flowNodes;
-            this.flowCountDown = backup.flowCountDown;
+            nodeMapLocal.set(null);
 
-            for (LogicalNode node : this.nodes) {
-                node.setFlow(this);
+            // Undo all changes to preexisting nodes and edges in reverse order; whatever was created goes away with
+            // them.
+            for (int i = this.journal.size() - 1; i >= 0; i--) {
+                this.journal.get(i).run();
             }
 
-            // Remember to redirect all connections.
-            for (FlowNode flowNode : this.flowNodes) {
+            throw new DapperException(t);
 
-                ClientState csh = flowNode.getClientState();
+        } finally {
 
-                if (csh != null) {
-                    csh.getControlHandler().setHandler(csh);
-                }
+            this.journal = null;
+            this.journaledLists = null;
+        }
+
+        restructure();
+
+        // Structural changes go into the log like any others, so that observers can follow along without copying.
+        for (int i = 1, n = args.length; i < n; i += 2) {
+
+            FlowNode subflowNode = (FlowNode) args[i];
+
+            if (subflowNode != null) {
+                this.statusLog.record(ChangeType.FLOW_NODE, subflowNode.getOrder(), null);
             }
+        }
 
-            throw new DapperException(t);
+        for (LogicalNode node : removedNodes) {
+
+            this.flowCountDown.retire(node);
+            this.statusLog.record(ChangeType.LOGICAL_NODE, node.getOrder(), null);
+        }
+
+        // New nodes come after all others in order, and so go at the end of the count down.
+        Collections.sort(newNodes);
+
+        for (LogicalNode node : newNodes) {
+
+            this.flowCountDown.append(node);
+
+            if (node.getStatus().isFinished()) {
+                this.flowCountDown.countDown(node);
+            }
+
+            this.statusLog.record(ChangeType.LOGICAL_NODE, node.getOrder(), node.getStatus());
+
+            for (FlowNode flowNode : node.getFlowNodes()) {
+                this.statusLog.record(ChangeType.FLOW_NODE, flowNode.getOrder(), flowNode.getClientStatus());
+            }
+        }
+
+        return changedNodes;
+    }
+
+    /**
+     * Records an undo action, if a build is in progress.
+     */
+    protected void journal(Runnable undo) {
+
+        if (this.journal != null) {
+            this.journal.add(undo);
+        }
+    }
+
+    /**
+     * Records the contents of the given list before its first modification by the build in progress.
+     * 
+     * @return the list.
+     */
+    protected <E> List<E> journalList(final List<E> list) {
+
+        if (this.journal != null && this.journaledLists.add(list)) {
+
+            final List<E> saved = new ArrayList<E>(list);
+
+            this.journal.add(new Runnable() {
+
+                @Override
+                public void run() {
+
+                    list.clear();
+                    list.addAll(saved);
+                }
+            });
         }
+
+        return list;
+    }
+
+    /**
+     * Adds an element to the given set and records the undo action.
+     */
+    protected <E> boolean journalAdd(final Set<E> set, final E elt) {
+
+        boolean changed = set.add(elt);
+
+        if (changed) {
+
+            journal(new Runnable() {
+
+                @Override
+                public void run() {
+                    set.remove(elt);
+                }
+            });
+        }
+
+        return changed;
+    }
+
+    /**
+     * Removes an element from the given set and records the undo action.
+     */
+    protected <E> boolean journalRemove(final Set<E> set, final E elt) {
+
+        boolean changed = set.remove(elt);
+
+        if (changed) {
+
+            journal(new Runnable() {
+
+                @Override
+                public void run() {
+                    set.add(elt);
+                }
+            });
+        }
+
+        return changed;
+    }
+
+    /**
+     * Records the endpoints of the given {@link FlowEdge} before they are changed.
+     */
+    protected void journalEndpoints(final FlowEdge edge) {
+
+        final FlowNode u = edge.getU();
+        final FlowNode v = edge.getV();
+
+        journal(new Runnable() {
+
+            @Override
+            public void run() {
+
+                edge.setU(u);
+                edge.setV(v);
+            }
+        });
+    }
+
+    /**
+     * Sets the {@link LogicalNode} of the given {@link FlowNode} and records the undo action.
+     */
+    protected void journalSetLogicalNode(final FlowNode flowNode, LogicalNode logicalNode) {
+
+        final LogicalNode prev = flowNode.getLogicalNode();
+
+        journal(new Runnable() {
+
+            @Override
+            public void run() {
+                flowNode.setLogicalNode(prev);
+            }
+        });
+
+        flowNode.setLogicalNode(logicalNode);
+    }
+
+    /**
+     * Marks a structural change in the {@link FlowStatusLog}, whose capacity grows along with this flow.
+     */
+    protected void restructure() {
+
+        // Retain enough changes for observers to catch up on a couple of full passes over the flow.
+        this.statusLog.restructure(Math.max(MIN_FLOW_STATUS_LOG_SIZE, //
+                2 * (this.nodes.size() + this.flowNodes.size())));
     }
 
     /**
      * Embeds subflows.
+     * 
+     * @param newNodes
+     *            the list to which new {@link LogicalNode}s are added.
+     * @param removedNodes
+     *            the list to which removed {@link LogicalNode}s are added.
+     * @return the new {@link LogicalNode}s and the preexisting ones whose neighborhoods changed.
      */
-    protected void embedSubflows(Object[] args) {
+    protected Set<LogicalNode> embedSubflows(Object[] args, List<LogicalNode> newNodes, //
+            List<LogicalNode> removedNodes) {
+
+        // Keep track of the new nodes and of the preexisting ones they attach to, so that recomputation can be
+        // confined to them.
+        final List<FlowNode> newFlowNodes = new ArrayList<FlowNode>();
+        final Set<FlowNode> touchedFlowNodes = new HashSet<FlowNode>();
 
         for (int i = 0, n = args.length; i < n; i += 2) {
 
@@ -464,9 +711,9 @@ public class Flow implements Cloneable, Renderable, EnumStatus<FlowStatus>, Tagg
 
                 if (fe1.getType() == FlowEdgeType.HANDLE && ((HandleEdge) fe1).isExpandOnEmbed()) {
 
-                    Control.assertTrue(in.remove(j) != null);
+                    Control.assertTrue(journalList(in).remove(j) != null);
 
-                    List<FlowEdge> neighborOut = originalNode.getOut();
+                    List<FlowEdge> neighborOut = journalList(originalNode.getOut());
                     int outIndex = neighborOut.indexOf(fe1);
 
                     Control.assertTrue(neighborOut.remove(outIndex) != null);
@@ -508,7 +755,7 @@ public class Flow implements Cloneable, Renderable, EnumStatus<FlowStatus>, Tagg
                 outSet.add(originalNode);
 
                 if (subflowNode != null) {
-                    Control.assertTrue(originalNode.getIn().remove(fe1));
+                    Control.assertTrue(journalList(originalNode.getIn()).remove(fe1));
                 }
             }
 
@@ -578,7 +825,13 @@ public class Flow implements Cloneable, Renderable, EnumStatus<FlowStatus>, Tagg
                 tmpMapCopy.remove(fn1);
             }
 
-            this.flowNodes.addAll(tmpMapCopy.values());
+            for (FlowNode fn1 : tmpMapCopy.values()) {
+
+                journalAdd(this.flowNodes, fn1);
+
+                newFlowNodes.add(fn1);
+                touchedFlowNodes.add(fn1);
+            }
 
             // Map edge and node proxies to originals.
 
@@ -591,8 +844,11 @@ public class Flow implements Cloneable, Renderable, EnumStatus<FlowStatus>, Tagg
 
                 FlowEdge originalEdge = proxyEdgeMap.get(fe1);
 
+                journalEndpoints(originalEdge);
                 originalEdge.setV(inNode);
                 inNode.getIn().add(originalEdge);
+
+                touchedFlowNodes.add(originalEdge.getU());
             }
 
             for (FlowNode fn1 : newOut) {
@@ -600,16 +856,18 @@ public class Flow implements Cloneable, Renderable, EnumStatus<FlowStatus>, Tagg
                 FlowNode outNode = tmpMap.get(fn1);
                 FlowNode originalNode = proxyNodeMap.get(fn1);
 
+                touchedFlowNodes.add(originalNode);
+
                 for (FlowEdge fe1 : outNode.getIn()) {
 
                     fe1.setV(originalNode);
-                    originalNode.getIn().add(fe1);
+                    journalList(originalNode.getIn()).add(fe1);
                 }
 
                 for (FlowEdge fe1 : outNode.getOut()) {
 
                     fe1.setU(originalNode);
-                    originalNode.getOut().add(fe1);
+                    journalList(originalNode.getOut()).add(fe1);
                 }
             }
         }
@@ -624,38 +882,44 @@ public class Flow implements Cloneable, Renderable, EnumStatus<FlowStatus>, Tagg
 
             if (subflowNode != null) {
 
-                Control.assertTrue(this.flowNodes.remove(subflowNode));
+                Control.assertTrue(journalRemove(this.flowNodes, subflowNode));
                 removals.add(subflowNode.getLogicalNode());
             }
         }
 
         for (LogicalNode node : removals) {
 
-            Control.assertTrue(this.nodes.remove(node));
+            Control.assertTrue(journalRemove(this.nodes, node));
+            removedNodes.add(node);
 
             for (FlowNode fn1 : node.getFlowNodes()) {
-                fn1.setLogicalNode(null);
+
+                journalSetLogicalNode(fn1, null);
+                touchedFlowNodes.add(fn1);
             }
         }
 
-        FlowNode stopFlowNode = new FlowNode((Codelet) null);
+        // Assign orders to the new flow nodes, which also checks that they don't introduce a cycle, even one that runs
+        // through preexisting nodes.
+        this.nextFlowNodeOrder = assignOrders(newFlowNodes, this.nextFlowNodeOrder);
 
-        for (FlowNode fn1 : this.flowNodes) {
-            stopFlowNode.getIn().add(new DummyEdge(fn1, stopFlowNode));
-        }
+        // Recompute the equivalence classes containing touched nodes; all others remain as they were.
 
-        // Assign priority order according to the traversal policy and assert that the number of nodes traversed is
-        // equal to set of nodes.
-        Control.assertTrue(new LimitedMemoryPolicy<FlowNode, FlowEdge>() //
-                .assign(stopFlowNode) == this.flowNodes.size() + 1);
+        Set<FlowNode> pendingFlowNodes = new HashSet<FlowNode>();
 
-        //
+        for (FlowNode fn1 : touchedFlowNodes) {
 
-        Set<FlowNode> allFlowNodes = new HashSet<FlowNode>(this.flowNodes);
+            if (this.flowNodes.contains(fn1)) {
+                pendingFlowNodes.add(fn1);
+            }
+        }
+
+        Set<FlowNode> affectedFlowNodes = new HashSet<FlowNode>();
 
-        for (Set<FlowNode> equivalenceClass; !allFlowNodes.isEmpty(); allFlowNodes.removeAll(equivalenceClass)) {
+        for (Set<FlowNode> equivalenceClass; !pendingFlowNodes.isEmpty(); //
+        pendingFlowNodes.removeAll(equivalenceClass)) {
 
-            equivalenceClass = FlowUtilities.equivalenceClassDfs(allFlowNodes.iterator().next(), //
+            equivalenceClass = FlowUtilities.equivalenceClassDfs(pendingFlowNodes.iterator().next(), //
                     new HashSet<FlowNode>());
 
             Set<FlowNode> unattachedFlowNodes = new HashSet<FlowNode>();
@@ -673,6 +937,17 @@ public class Flow implements Cloneable, Renderable, EnumStatus<FlowStatus>, Tagg
 
                     unattachedFlowNodes.add(fn1);
                 }
+
+                // Members and their neighbors may have logical edges to a logical node about to be replaced.
+                affectedFlowNodes.add(fn1);
+
+                for (FlowEdge edge : fn1.getIn()) {
+                    affectedFlowNodes.add(edge.getU());
+                }
+
+                for (FlowEdge edge : fn1.getOut()) {
+                    affectedFlowNodes.add(edge.getV());
+                }
             }
 
             Control.assertTrue(!unattachedFlowNodes.isEmpty() || touchedNodes.size() <= 1);
@@ -691,16 +966,21 @@ public class Flow implements Cloneable, Renderable, EnumStatus<FlowStatus>, Tagg
 
                 // The construction ensures that only pending and finished nodes can be joined.
                 for (LogicalNode n1 : touchedNodes) {
+
                     Control.assertTrue(n1.getStatus().isMergeable() //
                             && canonicalFlowNodes.containsAll(n1.getFlowNodes()) //
-                            && this.nodes.remove(n1));
+                            && journalRemove(this.nodes, n1));
+
+                    removedNodes.add(n1);
                 }
 
                 for (FlowNode fn1 : canonicalFlowNodes) {
-                    fn1.setLogicalNode(canonicalNode);
+                    journalSetLogicalNode(fn1, canonicalNode);
                 }
 
-                this.nodes.add(canonicalNode);
+                journalAdd(this.nodes, canonicalNode);
+
+                newNodes.add(canonicalNode);
             }
             // Otherwise, everything belongs to a single equivalence class.
             else {
@@ -715,18 +995,33 @@ public class Flow implements Cloneable, Renderable, EnumStatus<FlowStatus>, Tagg
             }
         }
 
-        // Associate logical nodes to physical nodes, and determine connections among physical nodes.
+        // Determine connections among logical nodes whose neighborhoods may have changed.
 
-        Map<FlowNode, LogicalNode> reverseMap = new HashMap<FlowNode, LogicalNode>();
+        Set<LogicalNode> changedNodes = new HashSet<LogicalNode>();
 
-        for (LogicalNode n1 : this.nodes) {
+        for (FlowNode fn1 : affectedFlowNodes) {
 
-            for (FlowNode flowNode : n1.getFlowNodes()) {
-                reverseMap.put(flowNode, n1);
+            LogicalNode n1 = fn1.getLogicalNode();
+
+            if (n1 != null && this.nodes.contains(n1)) {
+                changedNodes.add(n1);
             }
         }
 
-        for (LogicalNode n1 : this.nodes) {
+        final Map<LogicalNode, Integer> previousHeights = new HashMap<LogicalNode, Integer>();
+
+        journal(new Runnable() {
+
+            @Override
+            public void run() {
+
+                for (Entry<LogicalNode, Integer> entry : previousHeights.entrySet()) {
+                    entry.getKey().setHeight(entry.getValue());
+                }
+            }
+        });
+
+        for (LogicalNode n1 : changedNodes) {
 
             // Note: Logical edges fulfill hashCode and equals contracts.
             Set<LogicalEdge> inSet = new HashSet<LogicalEdge>();
@@ -735,11 +1030,11 @@ public class Flow implements Cloneable, Renderable, EnumStatus<FlowStatus>, Tagg
             for (FlowNode flowNode : n1.getFlowNodes()) {
 
                 for (FlowEdge edge : flowNode.getIn()) {
-                    inSet.add(new LogicalEdge(reverseMap.get(edge.getU()), n1));
+                    inSet.add(new LogicalEdge(edge.getU().getLogicalNode(), n1));
                 }
 
                 for (FlowEdge edge : flowNode.getOut()) {
-                    outSet.add(new LogicalEdge(n1, reverseMap.get(edge.getV())));
+                    outSet.add(new LogicalEdge(n1, edge.getV().getLogicalNode()));
                 }
             }
 
@@ -747,23 +1042,180 @@ public class Flow implements Cloneable, Renderable, EnumStatus<FlowStatus>, Tagg
             inSet.remove(new LogicalEdge(n1, n1));
             outSet.remove(new LogicalEdge(n1, n1));
 
-            n1.getIn().clear();
-            n1.getIn().addAll(inSet);
+            List<LogicalEdge> in = n1.getIn();
+            List<LogicalEdge> out = n1.getOut();
 
-            n1.getOut().clear();
-            n1.getOut().addAll(outSet);
+            // Leave unchanged neighborhoods alone, so that only changed ones need journaling.
+            if (in.size() != inSet.size() || !inSet.containsAll(in)) {
+
+                journalList(in).clear();
+                in.addAll(inSet);
+            }
+
+            if (out.size() != outSet.size() || !outSet.containsAll(out)) {
+
+                journalList(out).clear();
+                out.addAll(outSet);
+
+                // The longest path to a sink may have changed.
+                if (n1.getHeight() >= 0 && !n1.getStatus().isFinished()) {
+
+                    previousHeights.put(n1, n1.getHeight());
+                    n1.setHeight(-1);
+                }
+            }
         }
 
-        // Prepare and execute a topological sort.
+        this.nextOrder = assignOrders(newNodes, this.nextOrder);
+
+        // Update critical path lengths for new nodes and the nodes upstream of them. This also checks that no cycles
+        // were introduced among logical nodes.
+        FlowUtilities.assignHeights(changedNodes, previousHeights);
+
+        return changedNodes;
+    }
+
+    /**
+     * Assigns orders and depths to the given new nodes in topological order.
+     * 
+     * @param nextOrder
+     *            the first order to assign.
+     * @return the next unassigned order.
+     */
+    final protected static <V extends Traversable<V, E>, E extends Edge<V>> int assignOrders( //
+            Collection<V> newNodes, int nextOrder) {
 
-        LogicalNode stopNode = new LogicalNode(this);
+        // Any cycle introduced by the new nodes passes through one of them, and so lies within the region found
+        // below. Count in-edges within that region only; nodes outside of it cannot be on such a cycle.
+        Set<V> region = findRegion(newNodes);
+        Set<V> newNodeSet = new HashSet<V>(newNodes);
 
-        for (LogicalNode n1 : this.nodes) {
-            stopNode.getIn().add(new LogicalEdge(n1, stopNode));
+        Map<V, Integer> inDegrees = new HashMap<V, Integer>();
+
+        for (V v : region) {
+            inDegrees.put(v, 0);
+        }
+
+        for (V u : region) {
+
+            for (E edge : u.getOut()) {
+
+                V v = edge.getV();
+                Integer inDegree = inDegrees.get(v);
+
+                if (inDegree != null) {
+                    inDegrees.put(v, inDegree + 1);
+                }
+            }
+        }
+
+        List<V> readyNodes = new ArrayList<V>();
+
+        for (V v : region) {
+
+            if (inDegrees.get(v) == 0) {
+                readyNodes.add(v);
+            }
+        }
+
+        int nVisited = 0;
+
+        for (; !readyNodes.isEmpty(); nVisited++) {
+
+            V u = readyNodes.remove(readyNodes.size() - 1);
+
+            // Preexisting nodes are already ordered.
+            if (newNodeSet.contains(u)) {
+
+                int depth = 0;
+
+                for (E edge : u.getIn()) {
+                    depth = Math.max(depth, edge.getU().getDepth() + 1);
+                }
+
+                u.setDepth(depth);
+                u.setOrder(nextOrder++);
+            }
+
+            for (E edge : u.getOut()) {
+
+                V v = edge.getV();
+                Integer inDegree = inDegrees.get(v);
+
+                if (inDegree != null) {
+
+                    inDegrees.put(v, inDegree - 1);
+
+                    if (inDegree == 1) {
+                        readyNodes.add(v);
+                    }
+                }
+            }
+        }
+
+        Control.checkTrue(nVisited == region.size(), //
+                "The flow must not contain cycles");
+
+        return nextOrder;
+    }
+
+    /**
+     * Finds the given new nodes along with the preexisting nodes that lie on paths between them. Forward and backward
+     * searches from the new nodes advance in lockstep until one of them finishes, and the search in the opposite
+     * direction is then confined to what it found. The cost is thus proportional to the smaller of the two sides
+     * rather than to the whole graph.
+     */
+    final protected static <V extends Traversable<V, E>, E extends Edge<V>> Set<V> findRegion( //
+            Collection<V> newNodes) {
+
+        Set<V> forwardNodes = new HashSet<V>(newNodes);
+        Set<V> backwardNodes = new HashSet<V>(newNodes);
+
+        List<V> forwardStack = new ArrayList<V>(newNodes);
+        List<V> backwardStack = new ArrayList<V>(newNodes);
+
+        for (; !forwardStack.isEmpty() && !backwardStack.isEmpty();) {
+
+            for (E edge : forwardStack.remove(forwardStack.size() - 1).getOut()) {
+
+                V v = edge.getV();
+
+                if (forwardNodes.add(v)) {
+                    forwardStack.add(v);
+                }
+            }
+
+            for (E edge : backwardStack.remove(backwardStack.size() - 1).getIn()) {
+
+                V u = edge.getU();
+
+                if (backwardNodes.add(u)) {
+                    backwardStack.add(u);
+                }
+            }
+        }
+
+        boolean forward = forwardStack.isEmpty();
+        Set<V> candidates = forward ? forwardNodes : backwardNodes;
+
+        Set<V> region = new HashSet<V>(newNodes);
+        List<V> stack = new ArrayList<V>(newNodes);
+
+        for (; !stack.isEmpty();) {
+
+            V current = stack.remove(stack.size() - 1);
+
+            for (E edge : forward ? current.getIn() : current.getOut()) {
+
+                V w = forward ? edge.getU() : edge.getV();
+
+                if (candidates.contains(w) && region.add(w)) {
+                    stack.add(w);
+                }
+            }
         }
 
-        Control.assertTrue(new LimitedMemoryPolicy<LogicalNode, LogicalEdge>() //
-                .assign(stopNode) == this.nodes.size() + 1);
+        return region;
     }
 
     @Override
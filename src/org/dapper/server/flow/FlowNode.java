@@ -38,8 +38,10 @@ import static org.dapper.Constants.LIGHT_BLUE;
 import static org.dapper.Constants.MAX_CODELET_RETRIES;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Formatter;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 import org.dapper.client.ClientStatus;
@@ -52,6 +54,7 @@ import org.dapper.codelet.Taggable;
 import org.dapper.event.ResourceEvent;
 import org.dapper.server.ClientState;
 import org.dapper.server.flow.FlowEdge.FlowEdgeType;
+import org.dapper.server.flow.FlowStatusLog.ChangeType;
 import org.dapper.util.Requirement;
 import org.shared.parallel.Traversable;
 import org.shared.util.Control;
@@ -92,6 +95,7 @@ public class FlowNode implements Traversable<FlowNode, FlowEdge>, ParameterMetad
     LogicalNode logicalNode;
 
     ClientState clientState;
+    ClientStatus clientStatus;
 
     /**
      * Default constructor.
@@ -116,6 +120,7 @@ public class FlowNode implements Traversable<FlowNode, FlowEdge>, ParameterMetad
 
         this.logicalNode = null;
         this.clientState = null;
+        this.clientStatus = null;
     }
 
     /**
@@ -235,6 +240,13 @@ public class FlowNode implements Traversable<FlowNode, FlowEdge>, ParameterMetad
         return this.codelet;
     }
 
+    /**
+     * Gets the domain {@link Pattern}, or {@code null} if any domain will do.
+     */
+    public Pattern getDomainPattern() {
+        return this.domainPattern;
+    }
+
     /**
      * Sets the domain {@link Pattern}.
      */
@@ -348,6 +360,13 @@ public class FlowNode implements Traversable<FlowNode, FlowEdge>, ParameterMetad
      * Creates a {@link ResourceEvent}.
      */
     public ResourceEvent createResourceEvent() {
+        return createResourceEvent(Collections.<String, String> emptyMap(), null, Collections.<String> emptyList());
+    }
+
+    /**
+     * Creates a {@link ResourceEvent} that advertises the given class path entry hashes and class loader keys.
+     */
+    public ResourceEvent createResourceEvent(Map<String, String> hashes, String loaderKey, List<String> retiredKeys) {
 
         List<Resource> inResources = new ArrayList<Resource>();
         List<Resource> outResources = new ArrayList<Resource>();
@@ -368,7 +387,7 @@ public class FlowNode implements Traversable<FlowNode, FlowEdge>, ParameterMetad
 
         return new ResourceEvent(inResources, outResources, //
                 this.codelet.getClass().getName(), //
-                this.parameters, null);
+                this.parameters, hashes, loaderKey, retiredKeys, null);
     }
 
     /**
@@ -382,7 +401,29 @@ public class FlowNode implements Traversable<FlowNode, FlowEdge>, ParameterMetad
      * Sets the {@link ClientState}.
      */
     public void setClientState(ClientState clientState) {
+
         this.clientState = clientState;
+
+        setClientStatus((clientState != null) ? clientState.getStatus() : null);
+    }
+
+    /**
+     * Gets the status of the linked client, or {@code null} if none.
+     */
+    public ClientStatus getClientStatus() {
+        return this.clientStatus;
+    }
+
+    /**
+     * Sets the status of the linked client and records the change in the {@link Flow}'s {@link FlowStatusLog}.
+     */
+    public void setClientStatus(ClientStatus clientStatus) {
+
+        this.clientStatus = clientStatus;
+
+        if (this.logicalNode != null && this.logicalNode.flow != null) {
+            this.logicalNode.flow.statusLog.record(ChangeType.FLOW_NODE, this.order, clientStatus);
+        }
     }
 
     /**
@@ -411,7 +452,7 @@ public class FlowNode implements Traversable<FlowNode, FlowEdge>, ParameterMetad
 
         final String color;
 
-        ClientStatus status = (this.clientState != null) ? this.clientState.getStatus() : null;
+        ClientStatus status = this.clientStatus;
 
         if (status != null) {
 
@@ -0,0 +1,187 @@
+/**
+ * <p>
+ * Copyright (c) 2008 The Regents of the University of California<br>
+ * All rights reserved.
+ * </p>
+ * <p>
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ * </p>
+ * <ul>
+ * <li>Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.</li>
+ * <li>Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.</li>
+ * <li>Neither the name of the author nor the names of any contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.</li>
+ * </ul>
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * </p>
+ */
+
+package org.dapper.server.flow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A versioned, append-only log of status changes on a {@link Flow}. Observers holding statuses as of some version
+ * catch up by replaying the changes made since, and so avoid copying the whole {@link Flow} on every refresh. Nodes
+ * that come and go appear as changes too, with {@code null} statuses marking departures, so observers need to read all
+ * statuses anew only when the log no longer reaches back far enough.
+ * 
+ * @author Roy Liu
+ */
+public class FlowStatusLog {
+
+    /**
+     * An enumeration of the things whose status may change.
+     */
+    public enum ChangeType {
+
+        /**
+         * The {@link Flow} itself.
+         */
+        FLOW, //
+
+        /**
+         * A {@link LogicalNode}, identified by its order.
+         */
+        LOGICAL_NODE, //
+
+        /**
+         * The client linked to a {@link FlowNode}, identified by the {@link FlowNode}'s order.
+         */
+        FLOW_NODE;
+    }
+
+    /**
+     * An immutable record of a status change.
+     */
+    public static class Change {
+
+        final ChangeType type;
+        final int order;
+        final Enum<?> status;
+
+        /**
+         * Default constructor.
+         */
+        protected Change(ChangeType type, int order, Enum<?> status) {
+
+            this.type = type;
+            this.order = order;
+            this.status = status;
+        }
+
+        /**
+         * Gets the {@link ChangeType}.
+         */
+        public ChangeType getType() {
+            return this.type;
+        }
+
+        /**
+         * Gets the order of the changed node, or {@code -1} for the {@link Flow} itself.
+         */
+        public int getOrder() {
+            return this.order;
+        }
+
+        /**
+         * Gets the new status, which may be {@code null} for a {@link FlowNode} without a client or for a node that has
+         * left the {@link Flow}.
+         */
+        public Enum<?> getStatus() {
+            return this.status;
+        }
+    }
+
+    final List<Change> changes;
+
+    long version, baseVersion, structureVersion;
+    int capacity;
+
+    /**
+     * Default constructor.
+     */
+    public FlowStatusLog(int capacity) {
+
+        this.changes = new ArrayList<Change>();
+
+        this.version = 0;
+        this.baseVersion = 0;
+        this.structureVersion = 0;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets the current version.
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Gets the version at which the structure of the {@link Flow} last changed.
+     */
+    public long getStructureVersion() {
+        return this.structureVersion;
+    }
+
+    /**
+     * Gets the changes made after the given version.
+     * 
+     * @return the changes in the order they were made, or {@code null} if they are no longer available and a full copy
+     *         is required.
+     */
+    public List<Change> getChangesSince(long version) {
+
+        if (version < this.baseVersion || version > this.version) {
+            return null;
+        }
+
+        if (version == this.version) {
+            return Collections.emptyList();
+        }
+
+        return new ArrayList<Change>(this.changes.subList((int) (version - this.baseVersion), this.changes.size()));
+    }
+
+    /**
+     * Records a status change.
+     */
+    protected void record(ChangeType type, int order, Enum<?> status) {
+
+        // Drop the log wholesale instead of letting it grow without bound; laggards will read all statuses anew.
+        if (this.changes.size() >= this.capacity) {
+
+            this.changes.clear();
+            this.baseVersion = this.version;
+        }
+
+        this.changes.add(new Change(type, order, status));
+        this.version++;
+    }
+
+    /**
+     * Marks a structural change, whose particulars are recorded as changes like any other. Previous versions remain
+     * valid.
+     * 
+     * @param capacity
+     *            the new maximum number of changes to retain.
+     */
+    protected void restructure(int capacity) {
+
+        this.structureVersion = this.version;
+        this.capacity = capacity;
+    }
+}
@@ -28,6 +28,9 @@
 
 package org.dapper.server.flow;
 
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -61,6 +64,15 @@ abstract public class FlowUtilities {
      * Creates a unique identifier for the given class.
      */
     final public static String createIdentifier(Class<?> clazz) {
+        return String.format("%08x", createIdentifiers(clazz, 1));
+    }
+
+    /**
+     * Reserves a block of consecutive unique identifiers for the given class.
+     * 
+     * @return the first identifier of the block, in numeric form.
+     */
+    final public static int createIdentifiers(Class<?> clazz, int count) {
 
         synchronized (counterMap) {
 
@@ -72,7 +84,7 @@ abstract public class FlowUtilities {
                 counterMap.put(clazz, counter);
             }
 
-            return String.format("%08x", counter.getAndIncrement());
+            return counter.getAndAdd(count);
         }
     }
 
@@ -195,14 +207,148 @@ abstract public class FlowUtilities {
         return executeNodes;
     }
 
+    /**
+     * Rebuilds the dependency count downs of the given {@link LogicalNode}s only, such as those that a subflow embedding
+     * created or rewired. The flow count down is left alone.
+     * 
+     * @return those of the given nodes that are eligible for execution.
+     */
+    final public static Set<LogicalNode> buildCountDowns(Collection<LogicalNode> nodes) {
+
+        Set<LogicalNode> executeNodes = new HashSet<LogicalNode>();
+
+        for (LogicalNode node : nodes) {
+
+            CountDown<LogicalNode> countDown = node.getDependencyCountDown();
+            countDown.reset();
+
+            boolean countedDown = countDown.countDown(null);
+
+            // Count down on dependencies that have already finished.
+            for (LogicalEdge edge : node.getIn()) {
+
+                LogicalNode dependency = edge.getU();
+
+                if (dependency.getStatus().isFinished()) {
+                    countedDown = countDown.countDown(dependency);
+                }
+            }
+
+            if (node.getStatus().isExecutable() && countedDown) {
+                executeNodes.add(node);
+            }
+        }
+
+        return executeNodes;
+    }
+
+    /**
+     * Assigns heights to {@link LogicalNode}s whose heights are unassigned, as well as to their unfinished ancestors,
+     * whose longest paths to a sink may have changed as a result. Since the ancestors of an unfinished node are
+     * themselves unfinished, heights elsewhere remain valid.
+     */
+    final public static void assignHeights(Collection<LogicalNode> nodes) {
+        assignHeights(nodes, null);
+    }
+
+    /**
+     * Assigns heights as in {@link #assignHeights(Collection)}, and fails if a cycle is found along the way.
+     * 
+     * @param previousHeights
+     *            if non-{@code null}, receives the previous heights of invalidated nodes.
+     */
+    final public static void assignHeights(Collection<LogicalNode> nodes, Map<LogicalNode, Integer> previousHeights) {
+
+        List<LogicalNode> stack = new ArrayList<LogicalNode>();
+
+        for (LogicalNode node : nodes) {
+
+            if (node.getHeight() < 0) {
+                stack.add(node);
+            }
+        }
+
+        Set<LogicalNode> staleNodes = new HashSet<LogicalNode>(stack);
+
+        // Invalidate the unfinished ancestors.
+        for (; !stack.isEmpty();) {
+
+            for (LogicalEdge edge : stack.remove(stack.size() - 1).getIn()) {
+
+                LogicalNode u = edge.getU();
+
+                if (!u.getStatus().isFinished() && staleNodes.add(u)) {
+
+                    if (previousHeights != null && u.getHeight() >= 0) {
+                        previousHeights.put(u, u.getHeight());
+                    }
+
+                    u.setHeight(-1);
+                    stack.add(u);
+                }
+            }
+        }
+
+        // Nodes whose descendants are being visited. Since those lie above them on the stack, reaching one again means
+        // a cycle.
+        Set<LogicalNode> expandedNodes = new HashSet<LogicalNode>();
+
+        // Perform a depth-first traversal over out-edges, assigning heights in post-order.
+        for (LogicalNode node : staleNodes) {
+
+            stack.add(node);
+
+            for (; !stack.isEmpty();) {
+
+                LogicalNode current = stack.get(stack.size() - 1);
+
+                if (current.getHeight() >= 0) {
+
+                    stack.remove(stack.size() - 1);
+
+                    continue;
+                }
+
+                boolean ready = true;
+                int height = 0;
+
+                expandedNodes.add(current);
+
+                for (LogicalEdge edge : current.getOut()) {
+
+                    LogicalNode v = edge.getV();
+
+                    if (v.getHeight() < 0) {
+
+                        Control.checkTrue(!expandedNodes.contains(v), //
+                                "The flow must not contain cycles");
+
+                        stack.add(v);
+                        ready = false;
+
+                    } else {
+
+                        height = Math.max(height, v.getHeight());
+                    }
+                }
+
+                if (ready) {
+
+                    current.setHeight(height + 1);
+                    stack.remove(stack.size() - 1);
+                }
+            }
+        }
+    }
+
     /**
      * Assigns {@link FlowEdge} parameters to the given client.
      * 
      * @throws DapperException
      *             when something goes awry.
      */
-    final public static void assignParameters(FlowNode flowNode, Node embeddingParameters, Node edgeParameters) //
-            throws DapperException {
+    final public static void assignParameters(FlowNode flowNode, Node embeddingParameters, Node edgeParameters, //
+            InetSocketAddress producerAddress) throws DapperException {
 
         Codelet codelet = flowNode.getCodelet();
 
@@ -226,7 +372,7 @@ abstract public class FlowUtilities {
 
                 case HANDLE:
                     ((HandleEdge) outEdge).setHandleInformation( //
-                            new OutputHandleResource(edgeParameter).get());
+                            new OutputHandleResource(edgeParameter).get(), producerAddress);
                     break;
                 }
             }
@@ -33,13 +33,13 @@ import static org.dapper.Constants.DARK_GREEN;
 import static org.dapper.Constants.DARK_ORANGE;
 import static org.dapper.server.flow.FlowEdge.FlowEdgeType.HANDLE;
 
+import java.net.InetSocketAddress;
 import java.util.Formatter;
 
 import org.dapper.client.ClientStatus;
 import org.dapper.codelet.InputHandleResource;
 import org.dapper.codelet.OutputHandleResource;
 import org.dapper.codelet.Resource;
-import org.dapper.server.ClientState;
 import org.shared.array.ObjectArray;
 import org.shared.util.Control;
 
@@ -58,6 +58,8 @@ public class HandleEdge implements FlowEdge {
 
     ObjectArray<String> handleArray;
 
+    InetSocketAddress producerAddress;
+
     /**
      * Default constructor.
      */
@@ -72,6 +74,7 @@ public class HandleEdge implements FlowEdge {
         //
 
         this.handleArray = null;
+        this.producerAddress = null;
     }
 
     /**
@@ -116,6 +119,24 @@ public class HandleEdge implements FlowEdge {
         return this;
     }
 
+    /**
+     * Sets the handle information along with the address of the client that produced it.
+     */
+    public HandleEdge setHandleInformation(ObjectArray<String> handleArray, InetSocketAddress producerAddress) {
+
+        this.handleArray = handleArray;
+        this.producerAddress = producerAddress;
+
+        return this;
+    }
+
+    /**
+     * Gets the address of the client that produced the handle information, or {@code null} if unknown.
+     */
+    public InetSocketAddress getProducerAddress() {
+        return this.producerAddress;
+    }
+
     /**
      * Gets whether this edge should be expanded into multiple edges on subflow embedding.
      */
@@ -191,8 +212,7 @@ public class HandleEdge implements FlowEdge {
     @Override
     public void render(Formatter f) {
 
-        final ClientState csh = getU().getClientState();
-        final ClientStatus status = (csh != null) ? csh.getStatus() : null;
+        final ClientStatus status = getU().getClientStatus();
         final String color;
 
         if (status != null) {
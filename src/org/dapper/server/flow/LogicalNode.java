@@ -43,6 +43,7 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
+import org.dapper.server.flow.FlowStatusLog.ChangeType;
 import org.shared.parallel.Traversable;
 
 /**
@@ -53,7 +54,7 @@ import org.shared.parallel.Traversable;
  */
 public class LogicalNode implements Traversable<LogicalNode, LogicalEdge>, Cloneable, Renderable {
 
-    int depth, order;
+    int depth, order, height;
 
     LogicalNodeStatus status;
 
@@ -82,6 +83,7 @@ public class LogicalNode implements Traversable<LogicalNode, LogicalEdge>, Clone
     public LogicalNode(Flow flow) {
 
         this.depth = (this.order = -1);
+        this.height = -1;
         this.status = LogicalNodeStatus.PENDING_DEPENDENCY;
 
         //
@@ -91,8 +93,8 @@ public class LogicalNode implements Traversable<LogicalNode, LogicalEdge>, Clone
         this.in = new ArrayList<LogicalEdge>();
         this.out = new ArrayList<LogicalEdge>();
 
-        this.dependencyCountDown = createDependencyCountDown(new HashSet<LogicalNode>());
-        this.clientCountDown = createClientCountDown(new HashSet<FlowNode>());
+        this.dependencyCountDown = createDependencyCountDown();
+        this.clientCountDown = createClientCountDown();
 
         this.flow = flow;
     }
@@ -100,18 +102,20 @@ public class LogicalNode implements Traversable<LogicalNode, LogicalEdge>, Clone
     /**
      * Creates the dependency {@link CountDown}.
      */
-    protected CountDown<LogicalNode> createDependencyCountDown(final Set<LogicalNode> cds) {
+    protected CountDown<LogicalNode> createDependencyCountDown() {
 
-        return new AbstractCountDown<LogicalNode>(cds) {
+        return new AbstractCountDown<LogicalNode>() {
 
             @Override
             public void reset() {
 
-                cds.clear();
+                List<LogicalNode> dependencies = new ArrayList<LogicalNode>();
 
                 for (LogicalEdge edge : LogicalNode.this.in) {
-                    cds.add(edge.getU());
+                    dependencies.add(edge.getU());
                 }
+
+                reset(dependencies);
             }
         };
     }
@@ -119,15 +123,24 @@ public class LogicalNode implements Traversable<LogicalNode, LogicalEdge>, Clone
     /**
      * Creates the client {@link CountDown}.
      */
-    protected CountDown<FlowNode> createClientCountDown(final Set<FlowNode> cds) {
+    protected CountDown<FlowNode> createClientCountDown() {
 
-        return new AbstractCountDown<FlowNode>(cds) {
+        return new AbstractCountDown<FlowNode>() {
 
             @Override
             public void reset() {
 
-                cds.clear();
-                cds.addAll(LogicalNode.this.flowNodes);
+                Set<FlowNode> flowNodes = LogicalNode.this.flowNodes;
+
+                // Membership is fixed once the node has been filled in, so only sort on the first reset.
+                if (this.nMembers != flowNodes.size()) {
+
+                    reset(flowNodes);
+
+                } else {
+
+                    refill();
+                }
             }
         };
     }
@@ -190,6 +203,20 @@ public class LogicalNode implements Traversable<LogicalNode, LogicalEdge>, Clone
         this.depth = depth;
     }
 
+    /**
+     * Gets the number of nodes on the longest path from this node to a sink, or {@code -1} if not yet assigned.
+     */
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Sets the number of nodes on the longest path from this node to a sink.
+     */
+    public void setHeight(int height) {
+        this.height = height;
+    }
+
     @Override
     public List<LogicalEdge> getIn() {
         return this.in;
@@ -225,7 +252,12 @@ public class LogicalNode implements Traversable<LogicalNode, LogicalEdge>, Clone
      * Sets the {@link LogicalNodeStatus}.
      */
     public void setStatus(LogicalNodeStatus status) {
+
         this.status = status;
+
+        if (this.flow != null) {
+            this.flow.statusLog.record(ChangeType.LOGICAL_NODE, this.order, status);
+        }
     }
 
     /**
@@ -178,8 +178,7 @@ public class StreamEdge implements FlowEdge, Identified {
     @Override
     public void render(Formatter f) {
 
-        final ClientState csh = getU().getClientState();
-        final ClientStatus status = (csh != null) ? csh.getStatus() : null;
+        final ClientStatus status = getU().getClientStatus();
         final String color;
 
         if (status != null) {
@@ -44,6 +44,7 @@ import javax.swing.JTabbedPane;
 import javax.swing.Timer;
 
 import org.dapper.event.FlowEvent;
+import org.dapper.event.FlowEventBroadcaster.OverflowPolicy;
 import org.dapper.server.Server;
 import org.dapper.server.ServerProcessor.FlowBuildRequest;
 import org.dapper.server.flow.Flow;
@@ -98,7 +99,8 @@ public class FlowPane extends JTabbedPane implements Observer, ContainerListener
 
                 try {
 
-                    BlockingQueue<FlowEvent<Object, Object>> queue = server.createFlowEventQueue();
+                    BlockingQueue<FlowEvent<Object, Object>> queue = //
+                    server.createFlowEventQueue(OverflowPolicy.DROP_OLDEST);
 
                     for (FlowEvent<Object, Object> evt; (evt = queue.take()) != null;) {
                         FlowManager.log.info(evt.toString(), evt.getException());
@@ -202,7 +204,7 @@ public class FlowPane extends JTabbedPane implements Observer, ContainerListener
         // Force the containing scroll pane to adjust to the new image size accordingly.
         revalidate();
 
-        FlowStatus flowStatus = ft.getFlowProxy().getFlow().getStatus();
+        FlowStatus flowStatus = ft.getFlowProxy().getFlowStatus();
 
         if (this.removeFinished && (flowStatus == FlowStatus.FINISHED || flowStatus == FlowStatus.FAILED)) {
             remove(ft);
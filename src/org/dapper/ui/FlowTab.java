@@ -35,6 +35,8 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.File;
+import java.util.Formatter;
+import java.util.concurrent.ExecutionException;
 
 import javax.imageio.ImageIO;
 import javax.swing.ImageIcon;
@@ -86,6 +88,23 @@ public class FlowTab extends JLabel implements Closeable {
         return this.fp;
     }
 
+    /**
+     * Renders a copy of the {@link Flow} in the Dot language.
+     * 
+     * @throws InterruptedException
+     *             when this operation is interrupted.
+     * @throws ExecutionException
+     *             when something goes awry.
+     */
+    protected String renderDot() throws InterruptedException, ExecutionException {
+
+        Formatter f = new Formatter();
+
+        this.fp.getFlow().render(f);
+
+        return f.toString();
+    }
+
     /**
      * Renders the {@link Flow} as a {@link BufferedImage}.
      */
@@ -97,7 +116,7 @@ public class FlowTab extends JLabel implements Closeable {
 
             ByteArrayOutputStream out = new ByteArrayOutputStream();
 
-            IoBase.execAndWaitFor(new ByteArrayInputStream(this.fp.toString().getBytes()), //
+            IoBase.execAndWaitFor(new ByteArrayInputStream(renderDot().getBytes()), //
                     out, nullOutputStream, null, //
                     dotExecArgsPng);
 
@@ -120,7 +139,7 @@ public class FlowTab extends JLabel implements Closeable {
 
             ByteArrayOutputStream out = new ByteArrayOutputStream();
 
-            IoBase.execAndWaitFor(new ByteArrayInputStream(this.fp.toString().getBytes()), //
+            IoBase.execAndWaitFor(new ByteArrayInputStream(renderDot().getBytes()), //
                     out, nullOutputStream, null, //
                     dotExecArgsSvg);
 
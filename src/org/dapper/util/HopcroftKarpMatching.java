@@ -0,0 +1,253 @@
+/**
+ * <p>
+ * Copyright (c) 2010 The Regents of the University of California<br>
+ * All rights reserved.
+ * </p>
+ * <p>
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ * </p>
+ * <ul>
+ * <li>Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.</li>
+ * <li>Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.</li>
+ * <li>Neither the name of the author nor the names of any contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.</li>
+ * </ul>
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * </p>
+ */
+
+package org.dapper.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.shared.util.Control;
+
+/**
+ * An implementation of {@link MatchingAlgorithm} that uses the <a
+ * href="http://en.wikipedia.org/wiki/Hopcroft%E2%80%93Karp_algorithm">Hopcroft-Karp</a> bipartite matching algorithm
+ * over primitive adjacency arrays. Scratch buffers are retained across invocations, and so instances of this class are
+ * <i>not</i> thread-safe.
+ * 
+ * @author Roy Liu
+ */
+public class HopcroftKarpMatching implements MatchingAlgorithm {
+
+    /**
+     * A distance value indicating unreachability.
+     */
+    final protected static int INFINITY = Integer.MAX_VALUE;
+
+    int[] adjStart, adj, cursor, dist, queue, rMatch, sMatch;
+
+    /**
+     * Default constructor.
+     */
+    public HopcroftKarpMatching() {
+
+        this.adjStart = new int[1];
+        this.adj = new int[0];
+        this.cursor = new int[0];
+        this.dist = new int[0];
+        this.queue = new int[0];
+        this.rMatch = new int[0];
+        this.sMatch = new int[0];
+    }
+
+    @Override
+    public <R extends Requirement<S>, S> Map<R, S> match(Collection<R> requirements, Collection<S> satisfiers) {
+
+        List<R> rList = new ArrayList<R>();
+        List<R> rListTrivial = new ArrayList<R>();
+
+        // Consider only nontrivial requirements for matching.
+        for (R requirement : requirements) {
+            (!requirement.isTrivial() ? rList : rListTrivial).add(requirement);
+        }
+
+        List<S> sList = new ArrayList<S>(satisfiers);
+
+        int nr = rList.size();
+        int ns = sList.size();
+
+        ensureCapacity(nr, ns);
+
+        // Build the adjacency arrays.
+
+        int ne = 0;
+
+        for (int ir = 0; ir < nr; ir++) {
+
+            this.adjStart[ir] = ne;
+
+            R r = rList.get(ir);
+
+            for (int is = 0; is < ns; is++) {
+
+                if (r.isSatisfied(sList.get(is))) {
+
+                    if (ne == this.adj.length) {
+                        this.adj = Arrays.copyOf(this.adj, Math.max(2 * ne, 16));
+                    }
+
+                    this.adj[ne++] = is;
+                }
+            }
+        }
+
+        this.adjStart[nr] = ne;
+
+        Arrays.fill(this.rMatch, 0, nr, -1);
+        Arrays.fill(this.sMatch, 0, ns, -1);
+
+        // Alternate between layering and augmenting along vertex-disjoint shortest paths.
+
+        for (; bfs(nr);) {
+
+            System.arraycopy(this.adjStart, 0, this.cursor, 0, nr);
+
+            for (int ir = 0; ir < nr; ir++) {
+
+                if (this.rMatch[ir] == -1) {
+                    dfs(ir);
+                }
+            }
+        }
+
+        // Match requirements with satisfiers.
+
+        Map<R, S> res = new HashMap<R, S>();
+
+        for (int ir = 0; ir < nr; ir++) {
+
+            int is = this.rMatch[ir];
+
+            if (is != -1) {
+                Control.checkTrue(res.put(rList.get(ir), sList.get(is)) == null, //
+                        "Requirements must be unique under object equality");
+            }
+        }
+
+        int nTrivial = rListTrivial.size();
+
+        for (int is = 0, ir = 0; is < ns && ir < nTrivial; is++) {
+
+            if (this.sMatch[is] == -1) {
+                Control.checkTrue(res.put(rListTrivial.get(ir++), sList.get(is)) == null, //
+                        "Requirements must be unique under object equality");
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Layers the free requirements and everything reachable from them along alternating paths.
+     * 
+     * @return {@code true} if and only if an augmenting path exists.
+     */
+    protected boolean bfs(int nr) {
+
+        int head = 0, tail = 0;
+
+        for (int ir = 0; ir < nr; ir++) {
+
+            if (this.rMatch[ir] == -1) {
+
+                this.dist[ir] = 0;
+                this.queue[tail++] = ir;
+
+            } else {
+
+                this.dist[ir] = INFINITY;
+            }
+        }
+
+        boolean found = false;
+
+        for (; head < tail;) {
+
+            int ir = this.queue[head++];
+
+            for (int ie = this.adjStart[ir], ne = this.adjStart[ir + 1]; ie < ne; ie++) {
+
+                int irNext = this.sMatch[this.adj[ie]];
+
+                if (irNext == -1) {
+
+                    found = true;
+
+                } else if (this.dist[irNext] == INFINITY) {
+
+                    this.dist[irNext] = this.dist[ir] + 1;
+                    this.queue[tail++] = irNext;
+                }
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Searches for an augmenting path within the current layering and applies it.
+     * 
+     * @return {@code true} if and only if an augmenting path was found.
+     */
+    protected boolean dfs(int ir) {
+
+        for (int ne = this.adjStart[ir + 1]; this.cursor[ir] < ne; this.cursor[ir]++) {
+
+            int is = this.adj[this.cursor[ir]];
+            int irNext = this.sMatch[is];
+
+            if (irNext == -1 || (this.dist[irNext] == this.dist[ir] + 1 && dfs(irNext))) {
+
+                this.rMatch[ir] = is;
+                this.sMatch[is] = ir;
+                this.cursor[ir]++;
+
+                return true;
+            }
+        }
+
+        // Prune this requirement from the current phase.
+        this.dist[ir] = INFINITY;
+
+        return false;
+    }
+
+    /**
+     * Grows the scratch buffers as necessary.
+     */
+    protected void ensureCapacity(int nr, int ns) {
+
+        if (this.rMatch.length < nr) {
+
+            int n = Math.max(nr, 2 * this.rMatch.length);
+
+            this.adjStart = new int[n + 1];
+            this.cursor = new int[n];
+            this.dist = new int[n];
+            this.queue = new int[n];
+            this.rMatch = new int[n];
+        }
+
+        if (this.sMatch.length < ns) {
+            this.sMatch = new int[Math.max(ns, 2 * this.sMatch.length)];
+        }
+    }
+}
@@ -0,0 +1,359 @@
+/**
+ * <p>
+ * Copyright (c) 2010 The Regents of the University of California<br>
+ * All rights reserved.
+ * </p>
+ * <p>
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ * </p>
+ * <ul>
+ * <li>Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.</li>
+ * <li>Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.</li>
+ * <li>Neither the name of the author nor the names of any contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.</li>
+ * </ul>
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * </p>
+ */
+
+package org.dapper.util;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.shared.util.Control;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A hashed timing wheel for scheduling timeouts. Scheduling, rescheduling, and canceling are constant time operations
+ * on intrusive lists, and {@link Timeout} handles may be reused indefinitely so that frequent rescheduling doesn't
+ * churn the heap. Expirations are accurate to within one tick.
+ * 
+ * @author Roy Liu
+ */
+public class TimingWheel implements Closeable {
+
+    final protected static Logger log = LoggerFactory.getLogger(TimingWheel.class);
+
+    /**
+     * Gets the static {@link Logger} instance.
+     */
+    final public static Logger getLog() {
+        return log;
+    }
+
+    /**
+     * Defines an action performed upon expiration of a {@link Timeout}.
+     */
+    public interface Action {
+
+        /**
+         * Performs this action.
+         * 
+         * @param tag
+         *            the tag given when the expired {@link Timeout} was scheduled.
+         */
+        public void run(Object tag);
+    }
+
+    /**
+     * A reusable timeout handle.
+     */
+    public class Timeout {
+
+        final Action action;
+
+        Timeout prev, next;
+        Object tag;
+        long rounds;
+        int bucket;
+        boolean scheduled;
+
+        /**
+         * Default constructor.
+         */
+        protected Timeout(Action action) {
+
+            this.action = action;
+
+            this.prev = (this.next = null);
+            this.tag = null;
+            this.rounds = 0;
+            this.bucket = -1;
+            this.scheduled = false;
+        }
+
+        /**
+         * (Re)schedules this timeout to expire after the given delay in milliseconds, canceling any pending
+         * expiration.
+         * 
+         * @param tag
+         *            the tag to hand to the {@link Action}, which identifies this particular scheduling.
+         */
+        public Timeout schedule(long delay, Object tag) {
+
+            TimingWheel.this.schedule(this, delay, tag);
+
+            return this;
+        }
+
+        /**
+         * (Re)schedules this timeout without a tag.
+         */
+        public Timeout schedule(long delay) {
+            return schedule(delay, null);
+        }
+
+        /**
+         * Cancels this timeout.
+         * 
+         * @return whether this timeout was pending.
+         */
+        public boolean cancel() {
+            return TimingWheel.this.cancel(this);
+        }
+
+        /**
+         * Gets whether this timeout is pending.
+         */
+        public boolean isScheduled() {
+
+            synchronized (TimingWheel.this) {
+                return this.scheduled;
+            }
+        }
+    }
+
+    final Timeout[] buckets;
+    final int mask;
+    final long tickNanos;
+    final long startNanos;
+    final Thread worker;
+
+    long tick;
+    boolean run;
+
+    /**
+     * Default constructor.
+     * 
+     * @param tickMillis
+     *            the tick duration in milliseconds.
+     * @param nBuckets
+     *            the number of buckets, which must be a power of two.
+     */
+    public TimingWheel(String name, long tickMillis, int nBuckets) {
+
+        Control.checkTrue(tickMillis > 0 && nBuckets > 0 && (nBuckets & (nBuckets - 1)) == 0, //
+                "Invalid arguments");
+
+        this.buckets = new Timeout[nBuckets];
+        this.mask = nBuckets - 1;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.startNanos = System.nanoTime();
+
+        this.tick = 0;
+        this.run = true;
+
+        this.worker = new Thread(name) {
+
+            @Override
+            public void run() {
+                TimingWheel.this.runWorker();
+            }
+        };
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Creates a reusable {@link Timeout} handle that performs the given {@link Action} upon expiration.
+     */
+    public Timeout createTimeout(Action action) {
+        return new Timeout(action);
+    }
+
+    /**
+     * Schedules the given {@link Runnable} to run after the given delay in milliseconds.
+     */
+    public Timeout schedule(final Runnable runnable, long delay) {
+
+        return createTimeout(new Action() {
+
+            @Override
+            public void run(Object tag) {
+                runnable.run();
+            }
+
+        }).schedule(delay);
+    }
+
+    /**
+     * Stops the worker thread. Pending timeouts never expire.
+     */
+    @Override
+    public void close() {
+
+        synchronized (this) {
+            this.run = false;
+        }
+
+        this.worker.interrupt();
+    }
+
+    /**
+     * Schedules the given {@link Timeout}.
+     */
+    protected synchronized void schedule(Timeout timeout, long delay, Object tag) {
+
+        unlink(timeout);
+
+        timeout.tag = tag;
+
+        long target = (System.nanoTime() - this.startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(delay, 0)) //
+                + this.tickNanos - 1) / this.tickNanos;
+
+        // Ticks already processed can't be revisited.
+        target = Math.max(target, this.tick + 1);
+
+        timeout.rounds = (target - this.tick - 1) / this.buckets.length;
+        timeout.bucket = (int) (target & this.mask);
+        timeout.scheduled = true;
+
+        Timeout head = this.buckets[timeout.bucket];
+
+        timeout.prev = null;
+        timeout.next = head;
+
+        if (head != null) {
+            head.prev = timeout;
+        }
+
+        this.buckets[timeout.bucket] = timeout;
+    }
+
+    /**
+     * Cancels the given {@link Timeout}.
+     */
+    protected synchronized boolean cancel(Timeout timeout) {
+        return unlink(timeout);
+    }
+
+    /**
+     * Unlinks the given {@link Timeout} from its bucket.
+     */
+    protected boolean unlink(Timeout timeout) {
+
+        if (!timeout.scheduled) {
+            return false;
+        }
+
+        if (timeout.prev != null) {
+
+            timeout.prev.next = timeout.next;
+
+        } else {
+
+            this.buckets[timeout.bucket] = timeout.next;
+        }
+
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+
+        timeout.prev = (timeout.next = null);
+        timeout.bucket = -1;
+        timeout.scheduled = false;
+
+        return true;
+    }
+
+    /**
+     * Advances the wheel tick by tick, performing the actions of expired {@link Timeout}s outside of the lock.
+     */
+    protected void runWorker() {
+
+        List<Timeout> expired = new ArrayList<Timeout>();
+        List<Object> tags = new ArrayList<Object>();
+
+        for (;;) {
+
+            synchronized (this) {
+
+                if (!this.run) {
+                    return;
+                }
+
+                long now = (System.nanoTime() - this.startNanos) / this.tickNanos;
+
+                // Catch up on every tick that has elapsed.
+                for (; this.tick < now;) {
+
+                    this.tick++;
+
+                    for (Timeout timeout = this.buckets[(int) (this.tick & this.mask)], next; //
+                    timeout != null; //
+                    timeout = next) {
+
+                        next = timeout.next;
+
+                        if (timeout.rounds == 0) {
+
+                            // Take the tag now, as the timeout may be rescheduled before its action runs.
+                            expired.add(timeout);
+                            tags.add(timeout.tag);
+
+                            unlink(timeout);
+
+                        } else {
+
+                            timeout.rounds--;
+                        }
+                    }
+                }
+            }
+
+            for (int i = 0, n = expired.size(); i < n; i++) {
+
+                try {
+
+                    expired.get(i).action.run(tags.get(i));
+
+                } catch (Throwable t) {
+
+                    // Keep the wheel turning regardless.
+                    getLog().info("Timer action failed.", t);
+                }
+            }
+
+            expired.clear();
+            tags.clear();
+
+            long sleepNanos = this.startNanos + (this.tick + 1) * this.tickNanos - System.nanoTime();
+
+            if (sleepNanos > 0) {
+
+                try {
+
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+
+                } catch (InterruptedException e) {
+
+                    // Check the run flag on the next iteration.
+                }
+            }
+        }
+    }
+}
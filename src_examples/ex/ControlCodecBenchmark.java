@@ -0,0 +1,171 @@
+/**
+ * <p>
+ * Copyright (c) 2008 The Regents of the University of California<br>
+ * All rights reserved.
+ * </p>
+ * <p>
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ * </p>
+ * <ul>
+ * <li>Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.</li>
+ * <li>Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.</li>
+ * <li>Neither the name of the author nor the names of any contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.</li>
+ * </ul>
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * </p>
+ */
+
+package ex;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.dapper.DapperBase;
+import org.dapper.codelet.CodeletUtilities;
+import org.dapper.codelet.InputHandleResource;
+import org.dapper.codelet.OutputHandleResource;
+import org.dapper.codelet.Resource;
+import org.dapper.event.AddressEvent;
+import org.dapper.event.ControlEvent;
+import org.dapper.event.ControlEventHandler;
+import org.dapper.event.DataEvent;
+import org.dapper.event.ExecuteAckEvent;
+import org.dapper.event.ResetEvent;
+import org.dapper.event.ResourceEvent;
+import org.dapper.event.WireFormat;
+import org.shared.array.ObjectArray;
+import org.shared.event.SourceLocal;
+import org.shared.net.Connection;
+import org.shared.util.Control;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+/**
+ * A microbenchmark comparing the frame sizes and the send/receive costs of {@link ControlEvent}s under each
+ * {@link WireFormat}, as seen by a {@link ControlEventHandler}.
+ * 
+ * @author Roy Liu
+ */
+public class ControlCodecBenchmark {
+
+    /**
+     * The number of iterations per event and format.
+     */
+    final protected static int N_ITERATIONS = 10000;
+
+    /**
+     * The program entry point.
+     */
+    public static void main(String[] args) {
+
+        int nIterations = (args.length > 0) ? Integer.parseInt(args[0]) : N_ITERATIONS;
+
+        final ControlEvent[] received = new ControlEvent[1];
+
+        SourceLocal<ControlEvent> sink = new SourceLocal<ControlEvent>() {
+
+            @Override
+            public void onLocal(ControlEvent evt) {
+                received[0] = evt;
+            }
+        };
+
+        for (ControlEvent evt : createEvents()) {
+
+            for (WireFormat format : WireFormat.values()) {
+
+                ControlEventHandler<Connection> sender = //
+                        new ControlEventHandler<Connection>("sender", sink).setWireFormat(format);
+                ControlEventHandler<Connection> receiver = new ControlEventHandler<Connection>("receiver", sink);
+
+                ByteBuffer frame = sender.createFrame(evt);
+
+                // Warm up.
+                for (int i = 0; i < nIterations; i++) {
+                    receiver.onReceive(sender.createFrame(evt));
+                }
+
+                long start = System.nanoTime();
+
+                for (int i = 0; i < nIterations; i++) {
+                    frame = sender.createFrame(evt);
+                }
+
+                long encodeNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+
+                for (int i = 0; i < nIterations; i++) {
+                    receiver.onReceive(frame.duplicate());
+                }
+
+                long decodeNanos = System.nanoTime() - start;
+
+                Control.checkTrue(received[0].getType() == evt.getType(), //
+                        "Event type mismatch");
+
+                System.out.printf("%-12s %-7s %8d bytes %10d ns/send %10d ns/receive%n", //
+                        evt.getType(), format, frame.remaining(), //
+                        encodeNanos / nIterations, decodeNanos / nIterations);
+            }
+        }
+    }
+
+    /**
+     * Creates representative {@link ControlEvent}s.
+     */
+    protected static List<ControlEvent> createEvents() {
+
+        int nHandles = 64;
+
+        ObjectArray<String> handleArray = new ObjectArray<String>(String.class, nHandles, 2);
+
+        OutputHandleResource ohr = new OutputHandleResource("out");
+
+        for (int i = 0; i < nHandles; i++) {
+
+            handleArray.set(String.format("handle_%d", i), i, 0);
+            handleArray.set(String.format("stem_%d", i), i, 1);
+
+            ohr.put(String.format("handle_%d", i), String.format("stem_%d", i));
+        }
+
+        List<Resource> in = new ArrayList<Resource>();
+        List<Resource> out = new ArrayList<Resource>();
+
+        in.add(new InputHandleResource("in", handleArray));
+        out.add(ohr);
+
+        Document doc = DapperBase.newDocument();
+        Node edgeParameters = doc.createElement("edge_parameters");
+        ohr.getContents(edgeParameters.appendChild(doc.createElement("edge_parameter")));
+
+        byte[] data = new byte[1 << 16];
+        Arrays.fill(data, (byte) 0x5A);
+
+        return Arrays.<ControlEvent> asList( //
+                new AddressEvent(new InetSocketAddress("127.0.0.1", 10101), "local", null), //
+                new ResourceEvent(in, out, "ex.Debug", CodeletUtilities.createElement("<value>42</value>"), null), //
+                new ExecuteAckEvent(CodeletUtilities.createElement(""), edgeParameters, null), //
+                new DataEvent("ex/Data.bin", data, null), //
+                new ResetEvent("Benchmark reset", new IllegalStateException("Benchmark cause"), null));
+    }
+
+    // Dummy constructor.
+    ControlCodecBenchmark() {
+    }
+}
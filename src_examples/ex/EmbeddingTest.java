@@ -0,0 +1,401 @@
+/**
+ * <p>
+ * Copyright (c) 2010 The Regents of the University of California<br>
+ * All rights reserved.
+ * </p>
+ * <p>
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ * </p>
+ * <ul>
+ * <li>Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.</li>
+ * <li>Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.</li>
+ * <li>Neither the name of the author nor the names of any contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.</li>
+ * </ul>
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * </p>
+ */
+
+package ex;
+
+import static org.dapper.Constants.LOCAL;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.dapper.DapperException;
+import org.dapper.server.flow.DummyEdge;
+import org.dapper.server.flow.EmbeddingCodelet;
+import org.dapper.server.flow.Flow;
+import org.dapper.server.flow.FlowBuilder;
+import org.dapper.server.flow.FlowEdge;
+import org.dapper.server.flow.FlowNode;
+import org.dapper.server.flow.FlowUtilities;
+import org.dapper.server.flow.HandleEdge;
+import org.dapper.server.flow.LogicalEdge;
+import org.dapper.server.flow.LogicalNode;
+import org.dapper.server.flow.LogicalNodeStatus;
+import org.dapper.server.flow.StreamEdge;
+import org.shared.util.Control;
+
+/**
+ * A driver that grows a {@link Flow} through repeated subflow embeddings, in the manner of {@link ForkBombTest}, and
+ * walks it to completion the way the server would. Before each embedding that goes through, it attempts ones that
+ * close cycles through preexisting nodes or that fail partway, and checks that each is rejected and rolled back
+ * without a trace. After each embedding, it checks the incrementally maintained count downs against a full rebuild.
+ * 
+ * @author Roy Liu
+ */
+public class EmbeddingTest {
+
+    /**
+     * The number of embeddings that go through.
+     */
+    final protected static int N_EMBEDDINGS = 16;
+
+    /**
+     * The program entry point.
+     * 
+     * @throws DapperException
+     *             when a build that should have gone through didn't.
+     */
+    public static void main(String[] args) throws DapperException {
+
+        Flow flow = new Flow("Embedding Test", EmbeddingTest.class.getClassLoader());
+
+        flow.build(new FlowBuilder() {
+
+            @Override
+            public void build(Flow flow, //
+                    List<FlowEdge> inEdges, //
+                    List<FlowNode> outNodes) {
+
+                FlowNode source = new FlowNode("ex.Dummy") //
+                        .setDomainPattern(LOCAL);
+                FlowNode embedding = new FlowNode("ex.ForkBomb") //
+                        .setDomainPattern(LOCAL);
+                FlowNode sink = new FlowNode("ex.Dummy") //
+                        .setDomainPattern(LOCAL);
+
+                flow.add(source);
+                flow.add(embedding, new HandleEdge(source, embedding));
+                flow.add(sink, new DummyEdge(embedding, sink));
+            }
+        }, null);
+
+        Deque<LogicalNode> readyQueue = new ArrayDeque<LogicalNode>(FlowUtilities.buildCountDowns(flow));
+
+        int nExecuted = 0;
+        int nEmbeddings = 0;
+        int nRejections = 0;
+        boolean flowFinished = false;
+
+        for (LogicalNode node; (node = readyQueue.poll()) != null;) {
+
+            Control.checkTrue(!flowFinished, //
+                    "The flow finished with nodes left to execute");
+
+            nExecuted++;
+
+            List<FlowNode> subflowNodes = new ArrayList<FlowNode>();
+
+            for (FlowNode flowNode : node.getFlowNodes()) {
+
+                if (flowNode.getCodelet() instanceof EmbeddingCodelet) {
+                    subflowNodes.add(flowNode);
+                }
+            }
+
+            node.setStatus(LogicalNodeStatus.FINISHED);
+
+            if (subflowNodes.isEmpty()) {
+
+                for (LogicalEdge edge : node.getOut()) {
+
+                    if (edge.getV().getDependencyCountDown().countDown(node)) {
+                        readyQueue.add(edge.getV());
+                    }
+                }
+
+                flowFinished = flow.getFlowCountDown().countDown(node);
+
+                continue;
+            }
+
+            boolean grow = nEmbeddings + subflowNodes.size() < N_EMBEDDINGS;
+
+            // Doomed builds must leave no trace.
+            for (FlowBuilder builder : Arrays.asList( //
+                    new CycleBuilder(false), new CycleBuilder(true), new FailingBuilder(grow))) {
+
+                String before = describe(flow);
+
+                try {
+
+                    flow.build(createArgs(builder, subflowNodes));
+
+                } catch (DapperException e) {
+
+                    nRejections++;
+                }
+
+                Control.checkTrue(describe(flow).equals(before), //
+                        "A failed build left changes behind");
+            }
+
+            Control.checkTrue(nRejections % 3 == 0, //
+                    "A doomed build went through");
+
+            Set<LogicalNode> changedNodes = flow.build(createArgs(new GrowBuilder(grow), subflowNodes));
+
+            nEmbeddings += subflowNodes.size();
+
+            for (LogicalNode changedNode : FlowUtilities.buildCountDowns(changedNodes)) {
+
+                if (!readyQueue.contains(changedNode)) {
+                    readyQueue.add(changedNode);
+                }
+            }
+
+            flowFinished = flow.getFlowCountDown().countDown(null);
+
+            checkCountDowns(flow);
+        }
+
+        Control.checkTrue(flowFinished, //
+                "The flow never finished");
+
+        System.out.printf("executed = %d, embeddings = %d, rejections = %d, flow nodes = %d%n", //
+                nExecuted, nEmbeddings, nRejections, flow.getFlowNodeCount());
+    }
+
+    /**
+     * Creates the arguments to {@link Flow#build(Object...)} that embed a subflow in place of each of the given
+     * {@link FlowNode}s.
+     */
+    protected static Object[] createArgs(FlowBuilder builder, List<FlowNode> subflowNodes) {
+
+        List<Object> args = new ArrayList<Object>();
+
+        for (FlowNode subflowNode : subflowNodes) {
+
+            args.add(builder);
+            args.add(subflowNode);
+        }
+
+        return args.toArray();
+    }
+
+    /**
+     * Checks the incrementally maintained count downs of the given {@link Flow} against those rebuilt from scratch on
+     * a copy.
+     */
+    protected static void checkCountDowns(Flow flow) {
+
+        Flow copy = flow.clone();
+
+        FlowUtilities.buildCountDowns(copy);
+
+        Control.checkTrue(getOrders(flow.getFlowCountDown().getRemaining()).equals( //
+                getOrders(copy.getFlowCountDown().getRemaining())), //
+                "Flow count down mismatch");
+
+        Map<Integer, LogicalNode> copyMap = new HashMap<Integer, LogicalNode>();
+
+        for (LogicalNode node : copy.getNodes()) {
+            copyMap.put(node.getOrder(), node);
+        }
+
+        for (LogicalNode node : flow.getNodes()) {
+
+            if (node.getStatus().isFinished()) {
+                continue;
+            }
+
+            Control.checkTrue(getOrders(node.getDependencyCountDown().getRemaining()).equals( //
+                    getOrders(copyMap.get(node.getOrder()).getDependencyCountDown().getRemaining())), //
+                    "Dependency count down mismatch");
+        }
+    }
+
+    /**
+     * Describes the structure and count downs of the given {@link Flow}, so that states before and after a failed
+     * build may be compared.
+     */
+    protected static String describe(Flow flow) {
+
+        Map<Integer, String> nodeMap = new TreeMap<Integer, String>();
+
+        for (LogicalNode node : flow.getNodes()) {
+
+            Map<Integer, String> flowNodeMap = new TreeMap<Integer, String>();
+
+            for (FlowNode flowNode : node.getFlowNodes()) {
+
+                List<String> out = new ArrayList<String>();
+
+                for (FlowEdge edge : flowNode.getOut()) {
+                    out.add(String.format("%s->%d", edge.getType(), edge.getV().getOrder()));
+                }
+
+                flowNodeMap.put(flowNode.getOrder(), String.format("%d%s", flowNode.getIn().size(), out));
+            }
+
+            nodeMap.put(node.getOrder(), String.format("%s %s %s", node.getStatus(), flowNodeMap, //
+                    getOrders(node.getDependencyCountDown().getRemaining())));
+        }
+
+        return String.format("%d %s %s", flow.getFlowNodeCount(), nodeMap, //
+                getOrders(flow.getFlowCountDown().getRemaining()));
+    }
+
+    /**
+     * Gets the orders of the given {@link LogicalNode}s.
+     */
+    protected static Set<Integer> getOrders(Set<LogicalNode> nodes) {
+
+        Set<Integer> res = new TreeSet<Integer>();
+
+        for (LogicalNode node : nodes) {
+            res.add(node.getOrder());
+        }
+
+        return res;
+    }
+
+    /**
+     * A subflow builder that replaces the embedding node with a new one and, if so directed, another embedding node
+     * downstream of it.
+     */
+    protected static class GrowBuilder implements FlowBuilder {
+
+        final boolean grow;
+
+        /**
+         * Default constructor.
+         */
+        protected GrowBuilder(boolean grow) {
+            this.grow = grow;
+        }
+
+        @Override
+        public void build(Flow flow, //
+                List<FlowEdge> inEdges, //
+                List<FlowNode> outNodes) {
+
+            FlowNode inNode = new FlowNode("ex.Dummy") //
+                    .setDomainPattern(LOCAL);
+
+            flow.add(inNode);
+
+            for (FlowEdge inEdge : inEdges) {
+                inEdge.setV(inNode);
+            }
+
+            FlowNode lastNode = inNode;
+
+            if (this.grow) {
+
+                lastNode = new FlowNode("ex.ForkBomb") //
+                        .setDomainPattern(LOCAL);
+
+                flow.add(lastNode, new HandleEdge(inNode, lastNode));
+            }
+
+            // Embedding nodes may only have dummy out-edges.
+            for (FlowNode outNode : outNodes) {
+                flow.add(this.grow ? new DummyEdge(lastNode, outNode) : new HandleEdge(lastNode, outNode));
+            }
+        }
+    }
+
+    /**
+     * A subflow builder that goes about its work as usual, only to fail at the very end.
+     */
+    protected static class FailingBuilder extends GrowBuilder {
+
+        /**
+         * Default constructor.
+         */
+        protected FailingBuilder(boolean grow) {
+            super(grow);
+        }
+
+        @Override
+        public void build(Flow flow, //
+                List<FlowEdge> inEdges, //
+                List<FlowNode> outNodes) {
+
+            super.build(flow, inEdges, outNodes);
+
+            throw new IllegalStateException("Failing on purpose");
+        }
+    }
+
+    /**
+     * A subflow builder that closes a cycle through each preexisting downstream node, with either handle or stream
+     * edges. The latter collapse into a single {@link LogicalNode}, and so leave no cycle among {@link LogicalNode}s.
+     */
+    protected static class CycleBuilder implements FlowBuilder {
+
+        final boolean stream;
+
+        /**
+         * Default constructor.
+         */
+        protected CycleBuilder(boolean stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public void build(Flow flow, //
+                List<FlowEdge> inEdges, //
+                List<FlowNode> outNodes) {
+
+            FlowNode inNode = new FlowNode("ex.Dummy") //
+                    .setDomainPattern(LOCAL);
+
+            flow.add(inNode);
+
+            for (FlowEdge inEdge : inEdges) {
+                inEdge.setV(inNode);
+            }
+
+            for (FlowNode outNode : outNodes) {
+
+                if (this.stream) {
+
+                    flow.add(new StreamEdge(inNode, outNode));
+                    flow.add(new StreamEdge(outNode, inNode));
+
+                } else {
+
+                    flow.add(new HandleEdge(inNode, outNode));
+                    flow.add(new HandleEdge(outNode, inNode));
+                }
+            }
+        }
+    }
+
+    // Dummy constructor.
+    EmbeddingTest() {
+    }
+}
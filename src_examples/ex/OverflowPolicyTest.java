@@ -0,0 +1,178 @@
+/**
+ * <p>
+ * Copyright (c) 2010 The Regents of the University of California<br>
+ * All rights reserved.
+ * </p>
+ * <p>
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ * </p>
+ * <ul>
+ * <li>Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.</li>
+ * <li>Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.</li>
+ * <li>Neither the name of the author nor the names of any contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.</li>
+ * </ul>
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * </p>
+ */
+
+package ex;
+
+import static org.dapper.event.ControlEvent.ControlEventType.RESUME;
+import static org.dapper.event.ControlEvent.ControlEventType.SUSPEND;
+import static org.dapper.event.FlowEvent.FlowEventType.FLOW_END;
+import static org.dapper.event.FlowEvent.FlowEventType.FLOW_NODE_END;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+import org.dapper.event.ControlEvent;
+import org.dapper.event.ControlEventHandler;
+import org.dapper.event.FlowEvent;
+import org.dapper.event.FlowEventBroadcaster;
+import org.dapper.event.FlowEventBroadcaster.OverflowPolicy;
+import org.dapper.event.FlowEventFilter;
+import org.shared.event.SourceLocal;
+import org.shared.net.Connection;
+import org.shared.util.Control;
+
+/**
+ * A driver that overflows {@link FlowEventBroadcaster} subscribers under each {@link OverflowPolicy} and checks what
+ * they get to see once they catch up.
+ * 
+ * @author Roy Liu
+ */
+public class OverflowPolicyTest {
+
+    /**
+     * The subscriber ring buffer capacity.
+     */
+    final protected static int CAPACITY = 4;
+
+    /**
+     * The number of node events published per flow.
+     */
+    final protected static int N_EVENTS = 10;
+
+    /**
+     * The program entry point.
+     */
+    public static void main(String[] args) {
+
+        final List<ControlEvent> received = new ArrayList<ControlEvent>();
+
+        // Stand in for the server, which would suspend scheduling on behalf of lagging subscribers.
+        ControlEventHandler<Connection> processor = new ControlEventHandler<Connection>("processor", //
+                new SourceLocal<ControlEvent>() {
+
+                    @Override
+                    public void onLocal(ControlEvent evt) {
+                        received.add(evt);
+                    }
+                });
+
+        FlowEventBroadcaster feb = new FlowEventBroadcaster(CAPACITY, processor);
+
+        BlockingQueue<FlowEvent<String, Integer>> blockQueue = //
+                feb.createUserQueue(FlowEventFilter.ALL, OverflowPolicy.BLOCK, CAPACITY);
+        BlockingQueue<FlowEvent<String, Integer>> dropQueue = //
+                feb.createUserQueue(FlowEventFilter.ALL, OverflowPolicy.DROP_OLDEST, CAPACITY);
+        BlockingQueue<FlowEvent<String, Integer>> conflateQueue = //
+                feb.createUserQueue(FlowEventFilter.ALL, OverflowPolicy.CONFLATE, CAPACITY);
+
+        // Publish two flows' worth of events to subscribers that aren't consuming.
+        for (String flow : Arrays.asList("a", "b")) {
+
+            for (int i = 0; i < N_EVENTS; i++) {
+                feb.add(new FlowEvent<String, Integer>(FLOW_NODE_END, flow, i, null));
+            }
+
+            feb.add(new FlowEvent<String, Integer>(FLOW_END, flow, null, null));
+        }
+
+        // Blocking subscribers lose nothing, but hold up the server until they catch up.
+        Control.checkTrue(feb.isSaturated() && received.size() == 1 && received.get(0).getType() == SUSPEND, //
+                "Expected a suspension");
+
+        List<String> blockEvents = drain(blockQueue);
+
+        Control.checkTrue(blockEvents.equals(expected()), //
+                "Blocking subscriber lost events");
+        Control.checkTrue(!feb.isSaturated() && received.size() == 2 && received.get(1).getType() == RESUME, //
+                "Expected a resumption");
+
+        // Dropping subscribers see only the most recent events.
+        List<String> dropEvents = drain(dropQueue);
+
+        Control.checkTrue(dropEvents.equals(Arrays.asList("b:7", "b:8", "b:9", "b:end")), //
+                "Dropping subscriber kept the wrong events");
+
+        // Conflating subscribers see the buffered events, followed by the latest event per flow and type. Neither
+        // flow's terminal event is lost.
+        List<String> conflateEvents = drain(conflateQueue);
+
+        Control.checkTrue(conflateEvents.equals(Arrays.asList("a:0", "a:1", "a:2", "a:3", //
+                "a:9", "a:end", "b:9", "b:end")), //
+                "Conflating subscriber kept the wrong events");
+
+        System.out.printf("%-12s %s%n", OverflowPolicy.BLOCK, blockEvents);
+        System.out.printf("%-12s %s%n", OverflowPolicy.DROP_OLDEST, dropEvents);
+        System.out.printf("%-12s %s%n", OverflowPolicy.CONFLATE, conflateEvents);
+    }
+
+    /**
+     * Drains the given queue into a list of readable event descriptions.
+     */
+    protected static List<String> drain(BlockingQueue<FlowEvent<String, Integer>> queue) {
+
+        List<String> res = new ArrayList<String>();
+
+        for (FlowEvent<String, Integer> evt; (evt = queue.poll()) != null;) {
+            res.add(describe(evt.getFlowAttachment(), evt.getFlowNodeAttachment()));
+        }
+
+        return res;
+    }
+
+    /**
+     * Creates the descriptions of every event published.
+     */
+    protected static List<String> expected() {
+
+        List<String> res = new ArrayList<String>();
+
+        for (String flow : Arrays.asList("a", "b")) {
+
+            for (int i = 0; i < N_EVENTS; i++) {
+                res.add(describe(flow, i));
+            }
+
+            res.add(describe(flow, null));
+        }
+
+        return res;
+    }
+
+    /**
+     * Describes an event by its flow and flow node attachments.
+     */
+    protected static String describe(String flow, Integer node) {
+        return String.format("%s:%s", flow, (node != null) ? node.toString() : "end");
+    }
+
+    // Dummy constructor.
+    OverflowPolicyTest() {
+    }
+}
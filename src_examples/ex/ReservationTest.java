@@ -0,0 +1,185 @@
+/**
+ * <p>
+ * Copyright (c) 2010 The Regents of the University of California<br>
+ * All rights reserved.
+ * </p>
+ * <p>
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+ * following conditions are met:
+ * </p>
+ * <ul>
+ * <li>Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+ * disclaimer.</li>
+ * <li>Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the
+ * following disclaimer in the documentation and/or other materials provided with the distribution.</li>
+ * <li>Neither the name of the author nor the names of any contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.</li>
+ * </ul>
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+ * INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ * WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * </p>
+ */
+
+package ex;
+
+import static org.dapper.Constants.DEFAULT_SERVER_PORT;
+import static org.dapper.Constants.LOCAL;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+import org.dapper.DapperBase;
+import org.dapper.client.Client;
+import org.dapper.event.FlowEvent;
+import org.dapper.event.FlowEvent.FlowEventType;
+import org.dapper.server.Server;
+import org.dapper.server.ServerProcessor.FlowProxy;
+import org.dapper.server.flow.DummyEdge;
+import org.dapper.server.flow.Flow;
+import org.dapper.server.flow.FlowBuilder;
+import org.dapper.server.flow.FlowEdge;
+import org.dapper.server.flow.FlowNode;
+import org.dapper.server.flow.StreamEdge;
+import org.dapper.ui.Program;
+import org.shared.util.Control;
+import org.shared.util.IoBase;
+
+/**
+ * A demonstration of gang reservation and backfilling. A gang of streaming nodes becomes eligible only after a crowd
+ * of singletons has taken every client, and must not wait for the whole crowd to drain before it gets to run. When run
+ * as a program, it starts an in-process server along with a client that has one slot more than the gang needs, so
+ * that singletons may backfill alongside the reservation.
+ * 
+ * @author Roy Liu
+ */
+@Program
+public class ReservationTest implements FlowBuilder {
+
+    /**
+     * The number of nodes in the gang.
+     */
+    final protected static int GANG_SIZE = 4;
+
+    /**
+     * The number of singletons competing with the gang.
+     */
+    final protected static int N_SINGLETONS = 32;
+
+    /**
+     * The program entry point.
+     * 
+     * @throws Exception
+     *             when something goes awry.
+     */
+    public static void main(String[] args) throws Exception {
+
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_SERVER_PORT;
+
+        Server server = new Server(null, port);
+        Client client = new Client(new InetSocketAddress(DapperBase.inferAddress(), port), "local", GANG_SIZE + 1);
+
+        try {
+
+            BlockingQueue<FlowEvent<Object, String>> queue = server.createFlowEventQueue();
+
+            FlowProxy fp = server.createFlow(new ReservationTest(args), ReservationTest.class.getClassLoader(), //
+                    FlowEvent.F_FLOW_NODE);
+
+            fp.await();
+
+            int nSingletonsBefore = -1;
+            int nSingletons = 0;
+
+            for (FlowEvent<Object, String> evt; (evt = queue.poll()) != null;) {
+
+                if (evt.getType() != FlowEventType.FLOW_NODE_BEGIN) {
+                    continue;
+                }
+
+                if ("gang".equals(evt.getFlowNodeAttachment())) {
+
+                    if (nSingletonsBefore < 0) {
+                        nSingletonsBefore = nSingletons;
+                    }
+
+                } else if ("singleton".equals(evt.getFlowNodeAttachment())) {
+
+                    nSingletons++;
+                }
+            }
+
+            Control.checkTrue(nSingletonsBefore >= 0 && server.getGangDispatchCount() > 0, //
+                    "The gang never ran");
+            Control.checkTrue(nSingletonsBefore < N_SINGLETONS, //
+                    "The gang starved until every singleton had run");
+
+            System.out.printf("singletons before gang = %d/%d, gang dispatches = %d, max gang wait = %d ms%n", //
+                    nSingletonsBefore, N_SINGLETONS, server.getGangDispatchCount(), server.getMaxGangWaitMillis());
+
+        } finally {
+
+            IoBase.close(client);
+            IoBase.close(server);
+        }
+    }
+
+    /**
+     * Default constructor.
+     */
+    public ReservationTest(String[] args) {
+    }
+
+    @Override
+    public void build(Flow flow, //
+            List<FlowEdge> inEdges, //
+            List<FlowNode> outNodes) {
+
+        FlowNode dn = new FlowNode("ex.Dummy") //
+                .setDomainPattern(LOCAL);
+        FlowNode gn = new FlowNode("ex.Debug") //
+                .setDomainPattern(LOCAL) //
+                .setAttachment("gang");
+
+        FlowNode source = dn.clone();
+        FlowNode delay = dn.clone();
+
+        flow.add(source);
+        flow.add(delay, new DummyEdge(source, delay));
+
+        for (int i = 0; i < N_SINGLETONS; i++) {
+
+            FlowNode singleton = dn.clone().setAttachment("singleton");
+
+            flow.add(singleton, new DummyEdge(source, singleton));
+        }
+
+        // The gang becomes eligible a step behind the singletons.
+        FlowNode prev = gn.clone();
+
+        flow.add(prev, new DummyEdge(delay, prev));
+
+        for (int i = 1; i < GANG_SIZE; i++) {
+
+            FlowNode next = gn.clone();
+
+            flow.add(next, new StreamEdge(prev, next));
+
+            prev = next;
+        }
+    }
+
+    /**
+     * Creates a human-readable description of this {@link FlowBuilder}.
+     */
+    @Override
+    public String toString() {
+        return "Reservation Test";
+    }
+}